@@ -1,12 +1,29 @@
 package com.example.demo.config;
 
+import com.example.demo.service.ImageStorage;
+import com.example.demo.service.impl.LocalImageStorage;
+import com.example.demo.service.impl.S3ImageStorage;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.core.env.Environment;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.servlet.ServletContext;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
 @ComponentScan(basePackages = "com.example.demo")
 @EnableTransactionManagement
@@ -16,4 +33,46 @@ public class AppConfig {
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
+
+    /**
+     * 多圖片上傳共用的執行緒池：同一個請求的各檔案同時驗證、寫入儲存，所有請求共用固定數量的執行緒。
+     * 佇列滿了時由送件的請求自己處理，同時上傳的管理員再多也不會無限增加執行緒或堆積工作。
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService imageUploadExecutor(Environment environment) {
+        int threads = environment.getProperty("image.upload.threads", Integer.class, 4);
+        int queueCapacity = environment.getProperty("image.upload.queue-capacity", Integer.class, 32);
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(Math.max(threads, 1), Math.max(threads, 1), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), runnable -> {
+                    Thread thread = new Thread(runnable, "image-upload-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 商品圖片儲存：image.storage.type=local（預設，本機或共用目錄）或 s3（S3 相容的物件儲存）
+     */
+    @Bean
+    public ImageStorage imageStorage(Environment environment, ObjectProvider<ServletContext> servletContext) {
+        if ("s3".equalsIgnoreCase(environment.getProperty("image.storage.type", "local"))) {
+            return new S3ImageStorage(URI.create(environment.getRequiredProperty("image.storage.s3.endpoint")),
+                    environment.getRequiredProperty("image.storage.s3.bucket"),
+                    environment.getProperty("image.storage.s3.region", "us-east-1"),
+                    environment.getRequiredProperty("image.storage.s3.access-key"),
+                    environment.getRequiredProperty("image.storage.s3.secret-key"),
+                    environment.getProperty("image.storage.s3.prefix", "products/"),
+                    environment.getProperty("image.storage.s3.public-url"));
+        }
+        // 舊版上傳到網站目錄內的圖片仍可讀取（產生衍生尺寸），新圖片只寫入設定的目錄
+        List<Path> readOnlyDirectories = new ArrayList<>();
+        ServletContext context = servletContext.getIfAvailable();
+        String bundled = context != null ? context.getRealPath(LocalImageStorage.URL_PREFIX) : null;
+        if (bundled != null) {
+            readOnlyDirectories.add(Paths.get(bundled));
+        }
+        return new LocalImageStorage(Paths.get(environment.getProperty("image.storage.local.dir",
+                Paths.get(System.getProperty("user.home"), "yingshop", "images").toString())), readOnlyDirectories);
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.demo.config;
+
+import com.example.demo.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CategoryIndexInitializer implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryIndexInitializer.class);
+
+    private final ProductService productService;
+
+    @Autowired
+    public CategoryIndexInitializer(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            productService.refreshCategoryIndex();
+            log.info("Category index built with {} categories.", productService.getCategories(true).size());
+        } catch (RuntimeException ex) {
+            // 建立失敗時保留空索引，第一次讀取時會再嘗試重建
+            log.warn("Failed to build category index at startup: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * 只在 DispatcherServlet 的 context 中建立。
+ * 根 context（ContextLoaderListener）與 DispatcherServlet 的 context 都掃描整個 com.example.demo，
+ * 每個元件各有兩份；頁面快取與 Controller 使用的是 DispatcherServlet 那一份（有父 context），
+ * 背景排程只需在這一份執行，另一份的結果不會被讀取。
+ */
+public class DispatcherContextCondition implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        return context.getBeanFactory() != null && context.getBeanFactory().getParentBeanFactory() != null;
+    }
+}
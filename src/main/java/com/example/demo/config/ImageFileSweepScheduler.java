@@ -0,0 +1,63 @@
+package com.example.demo.config;
+
+import com.example.demo.service.ImageFileSweeper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在背景執行緒定期刪除已沒有引用、超過寬限期的圖片檔（見 ImageFileSweeper）。
+ * 只在 DispatcherServlet 的 context 中執行（見 DispatcherContextCondition）；多台伺服器同時執行時以資料庫的鎖互斥。
+ */
+@Component
+@Conditional(DispatcherContextCondition.class)
+public class ImageFileSweepScheduler implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageFileSweepScheduler.class);
+
+    private final ImageFileSweeper imageFileSweeper;
+    private final long intervalMinutes;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public ImageFileSweepScheduler(ImageFileSweeper imageFileSweeper, Environment environment) {
+        this.imageFileSweeper = imageFileSweeper;
+        this.intervalMinutes = environment.getProperty("image.delete.sweep-minutes", Long.class, 5L);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-file-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(intervalMinutes, 1);
+        scheduler.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void sweep() {
+        try {
+            int deleted = imageFileSweeper.sweep();
+            if (deleted > 0) {
+                log.info("Deleted {} unreferenced image files", deleted);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to sweep image files: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.config;
+
+import com.example.demo.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+/**
+ * 啟動時建立後台搜尋索引，第一個搜尋請求不需要等待重建。
+ * 只在 DispatcherServlet 的 context 建立：後台搜尋只經過那裡的 ProductService。
+ */
+@Component
+@Conditional(DispatcherContextCondition.class)
+public class ProductSearchIndexInitializer implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndexInitializer.class);
+
+    private final ProductService productService;
+
+    @Autowired
+    public ProductSearchIndexInitializer(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            productService.refreshSearchIndex();
+            log.info("Product search index built.");
+        } catch (RuntimeException ex) {
+            // 建立失敗時保留空索引，第一次搜尋時會再嘗試重建
+            log.warn("Failed to build product search index at startup: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.config;
+
+import com.example.demo.service.RecommendationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在背景執行緒定期重建推薦模型；啟動時立即建立一次，不阻塞應用程式啟動。
+ * 只在 DispatcherServlet 的 context 中執行（見 DispatcherContextCondition），不會有兩個排程重複重建。
+ */
+@Component
+@Conditional(DispatcherContextCondition.class)
+public class RecommendationScheduler implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationScheduler.class);
+
+    private final RecommendationService recommendationService;
+    private final long intervalMinutes;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public RecommendationScheduler(RecommendationService recommendationService, Environment environment) {
+        this.recommendationService = recommendationService;
+        this.intervalMinutes = environment.getProperty("recommendation.rebuild-minutes", Long.class, 60L);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::rebuild, 0, Math.max(intervalMinutes, 1), TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void rebuild() {
+        try {
+            recommendationService.rebuild();
+        } catch (RuntimeException ex) {
+            // 失敗時保留目前的模型，下一輪再重試
+            log.warn("Failed to rebuild recommendations: {}", ex.getMessage());
+        }
+    }
+}
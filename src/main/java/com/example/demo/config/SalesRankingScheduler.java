@@ -0,0 +1,61 @@
+package com.example.demo.config;
+
+import com.example.demo.service.ProductService;
+import com.example.demo.service.SalesRanking;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在背景執行緒定期刷新熱銷排行。頁面快取命中時請求不會到達 ProductController，
+ * 只靠請求觸發的刷新會讓快取中的 sort=bestselling 列表一直停在舊排行；
+ * 排行有變動時 refreshSalesRanking 會清除列表頁的快取。
+ */
+@Component
+@Conditional(DispatcherContextCondition.class)
+public class SalesRankingScheduler implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRankingScheduler.class);
+
+    private final ProductService productService;
+    private final long intervalMillis;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public SalesRankingScheduler(ProductService productService, SalesRanking salesRanking) {
+        this.productService = productService;
+        this.intervalMillis = salesRanking.getRefreshIntervalMillis();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sales-ranking-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, Math.max(intervalMillis, 1000), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            productService.refreshSalesRanking();
+        } catch (RuntimeException ex) {
+            // 失敗時保留目前的排行，下一輪再重試
+            log.warn("Failed to refresh sales ranking: {}", ex.getMessage());
+        }
+    }
+}
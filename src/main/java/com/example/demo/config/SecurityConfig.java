@@ -9,6 +9,7 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
@@ -33,7 +34,7 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
-                        .antMatchers("/resources/**", "/login", "/register", "/users/request-reset", "/users/reset", "/", "/products", "/products/**").permitAll()
+                        .antMatchers("/login", "/register", "/users/request-reset", "/users/reset", "/", "/products", "/products/**").permitAll()
                         .antMatchers("/admin/products/stock/**").hasAnyRole("ADMIN", "STAFF")
                         .antMatchers("/admin/orders/*/status").hasAnyRole("ADMIN", "STAFF")
                         .antMatchers("/admin/**", "/products/create", "/products/edit/**", "/products/delete/**", "/users/**").hasRole("ADMIN")
@@ -53,6 +54,12 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // 靜態檔（商品圖片等）不經過 Security 過濾鏈：不需要登入資訊，也不建立 session 或 SecurityContext
+    @Bean
+    public WebSecurityCustomizer webSecurityCustomizer() {
+        return web -> web.ignoring().antMatchers("/resources/**");
+    }
+
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
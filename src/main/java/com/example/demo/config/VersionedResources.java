@@ -0,0 +1,48 @@
+package com.example.demo.config;
+
+import org.springframework.http.CacheControl;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 靜態檔的快取標頭依請求的網址決定：網址帶版本（內容雜湊）時同一網址的內容不會改變，快取一年並標示 immutable，
+ * 瀏覽器重新整理時也不必再驗證；沒有版本的網址內容可能改變，每次以 Last-Modified 重新驗證（no-cache）。
+ * 資源 handler 只在找到檔案時套用，404 不帶快取標頭。
+ */
+public final class VersionedResources {
+
+    private static final String IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue()
+            + ", immutable";
+
+    private static final String REVALIDATE = CacheControl.noCache().getHeaderValue();
+
+    private VersionedResources() {
+    }
+
+    /**
+     * 依目前請求在 handler 內的路徑（HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE）決定的 Cache-Control。
+     * Spring 5.3 的 CacheControl 不接收請求，也沒有 immutable()，由 DispatcherServlet 綁定的目前請求判斷
+     *
+     * @param versionedPath 路徑帶版本時符合（find）的樣式
+     */
+    public static CacheControl cacheControl(Pattern versionedPath) {
+        return new CacheControl() {
+            @Override
+            public String getHeaderValue() {
+                return isVersioned(versionedPath) ? IMMUTABLE : REVALIDATE;
+            }
+        };
+    }
+
+    private static boolean isVersioned(Pattern versionedPath) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        Object path = request != null
+                ? request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+        return path instanceof String && versionedPath.matcher((String) path).find();
+    }
+}
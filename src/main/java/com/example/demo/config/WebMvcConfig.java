@@ -1,7 +1,11 @@
 package com.example.demo.config;
 
 import java.util.Locale;
+import java.util.regex.Pattern;
 
+import com.example.demo.service.ImageStorage;
+import com.example.demo.service.impl.LocalImageStorage;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -15,6 +19,8 @@ import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.i18n.CookieLocaleResolver;
 import org.springframework.web.servlet.i18n.LocaleChangeInterceptor;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 
 import org.thymeleaf.spring5.SpringTemplateEngine;
 import org.thymeleaf.spring5.templateresolver.SpringResourceTemplateResolver;
@@ -31,6 +37,15 @@ import org.thymeleaf.extras.java8time.dialect.Java8TimeDialect;
 @ComponentScan(basePackages = "com.example.demo")
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    // 上傳的商品圖片：檔名是內容雜湊（FileUploadServiceImpl.contentFilename），可能帶衍生尺寸
+    private static final Pattern CONTENT_NAMED_IMAGE = Pattern.compile("(^|/)[0-9a-f]{32}(_w\\d+)?\\.[a-z0-9]+$");
+
+    // VersionResourceResolver 的內容版本：副檔名前的 -{MD5}
+    private static final Pattern CONTENT_VERSIONED_FILE = Pattern.compile("-[0-9a-f]{32}\\.[a-z0-9]+$");
+
+    @Autowired
+    private ImageStorage imageStorage;
+
     @Bean
     public SpringResourceTemplateResolver templateResolver() {
         SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
@@ -73,10 +88,24 @@ public class WebMvcConfig implements WebMvcConfigurer {
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // 確保 resources 目錄能夠正確訪問
+        // 上傳的商品圖片在設定的目錄（image.storage.local.dir），找不到時再找網站目錄內的舊圖片；
+        // 檔案在處理完成後才寫入，處理中的網址回應 404（不帶快取標頭），不會把原始檔快取一年。
+        // 以內容雜湊命名的圖片不會改寫，快取一年；舊圖片的檔名不含內容雜湊，每次重新驗證
+        if (imageStorage instanceof LocalImageStorage) {
+            String location = ((LocalImageStorage) imageStorage).getDirectory().toUri().toString();
+            registry.addResourceHandler(LocalImageStorage.URL_PREFIX + "**")
+                    .addResourceLocations(location.endsWith("/") ? location : location + "/", LocalImageStorage.URL_PREFIX)
+                    .setCacheControl(VersionedResources.cacheControl(CONTENT_NAMED_IMAGE));
+        }
+        // 其他靜態檔：連結經 ResourceUrlEncodingFilter（web.xml）加上內容雜湊，例如 /resources/css/site-3f2a….css，
+        // 內容改變時網址跟著改變，只有帶版本的網址快取一年，以原始檔名請求時每次重新驗證；
+        // 有預先壓縮的 .br / .gz 檔時依 Accept-Encoding 直接送出
         registry.addResourceHandler("/resources/**")
                 .addResourceLocations("/resources/", "classpath:/resources/")
-                .setCachePeriod(3600);
+                .setCacheControl(VersionedResources.cacheControl(CONTENT_VERSIONED_FILE))
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
     }
 
     @Bean
@@ -1,9 +1,22 @@
 package com.example.demo.controller;
 
+import com.example.demo.model.BulkUpdateResult;
+import com.example.demo.model.CacheStats;
+import com.example.demo.model.ImageUploadResult;
+import com.example.demo.model.ImportReport;
+import com.example.demo.model.PageResult;
 import com.example.demo.model.Product;
 import com.example.demo.model.ProductImage;
+import com.example.demo.model.ProductSearchCriteria;
+import com.example.demo.model.ProductSummary;
+import com.example.demo.model.ProductUpdate;
+import com.example.demo.service.CacheStatisticsService;
+import com.example.demo.service.CatalogExportService;
 import com.example.demo.service.FileUploadService;
+import com.example.demo.service.ImageProcessingPipeline;
+import com.example.demo.service.ImageVariantBackfill;
 import com.example.demo.service.ProductImageService;
+import com.example.demo.service.ProductImportService;
 import com.example.demo.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -13,7 +26,15 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.Comparator;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,6 +51,21 @@ public class AdminController {
     @Autowired
     private ProductImageService productImageService;
 
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ImageProcessingPipeline imageProcessingPipeline;
+
+    @Autowired
+    private ImageVariantBackfill imageVariantBackfill;
+
     @GetMapping
     public String adminDashboard(Authentication authentication) {
         if (authentication == null || !authentication.getAuthorities().stream()
@@ -39,11 +75,84 @@ public class AdminController {
         return "admin-dashboard";
     }
 
+    // 快取命中統計（純文字，/admin/** 已限定管理員）
+    @GetMapping(value = "/cache-stats", produces = "text/plain;charset=UTF-8")
+    @ResponseBody
+    public String cacheStats() {
+        return cacheStatisticsService.getCacheStats().stream()
+                .map(CacheStats::toString)
+                .collect(Collectors.joining("\n"));
+    }
+
+    // 圖片處理佇列的深度與延遲、重新編碼省下的大小（純文字）
+    @GetMapping(value = "/image-stats", produces = "text/plain;charset=UTF-8")
+    @ResponseBody
+    public String imageStats() {
+        return imageProcessingPipeline.getStats() + "\n" + fileUploadService.getEncodingStats()
+                + "\n" + imageVariantBackfill.getStatus();
+    }
+
+    // 匯出整個商品目錄（含圖片網址）：逐筆寫到回應串流，不先載入整個目錄
+    @GetMapping("/products/export")
+    public void exportProducts(@RequestParam(value = "format", defaultValue = "csv") String format,
+                               HttpServletResponse response) throws IOException {
+        boolean json = "json".equalsIgnoreCase(format);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(json ? "application/json" : "text/csv");
+        response.setHeader("Content-Disposition", "attachment; filename=\"products-"
+                + LocalDate.now() + (json ? ".json" : ".csv") + "\"");
+        response.setHeader("Cache-Control", "no-store");
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 16 * 1024);
+        if (json) {
+            catalogExportService.exportJson(writer);
+        } else {
+            catalogExportService.exportCsv(writer);
+        }
+    }
+
+    // 大量匯入：匯入目錄下的工作（products.csv + images/），在背景執行，頁面顯示進度
+    @GetMapping("/products/import")
+    public String showImport(Model model) {
+        ImportReport report = productImportService.getLastReport();
+        model.addAttribute("jobs", productImportService.getAvailableJobs());
+        model.addAttribute("report", report);
+        model.addAttribute("backfillRunning", imageVariantBackfill.isRunning());
+        model.addAttribute("backfillStatus", imageVariantBackfill.getStatus());
+        return "admin-product-import";
+    }
+
+    // 為既有圖片補產生多尺寸衍生檔（背景執行，進度見 /admin/image-stats）
+    @PostMapping("/products/images/backfill")
+    public String startImageBackfill(RedirectAttributes redirectAttributes) {
+        if (imageVariantBackfill.start()) {
+            redirectAttributes.addFlashAttribute("successMessage", "已開始為既有圖片產生縮圖尺寸。");
+        } else {
+            redirectAttributes.addFlashAttribute("errorMessage", "圖片尺寸回填正在執行中。");
+        }
+        return "redirect:/admin/products/import";
+    }
+
+    @PostMapping("/products/import")
+    public String startImport(@RequestParam("jobName") String jobName,
+                              @RequestParam(value = "restart", defaultValue = "false") boolean restart,
+                              RedirectAttributes redirectAttributes) {
+        try {
+            ImportReport report = productImportService.startImport(jobName, restart);
+            redirectAttributes.addFlashAttribute("successMessage", report.getResumedFromRecord() > 0
+                    ? "已從第 " + report.getResumedFromRecord() + " 筆之後繼續匯入「" + jobName + "」。"
+                    : "已開始匯入「" + jobName + "」。");
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+        return "redirect:/admin/products/import";
+    }
+
     @GetMapping("/products")
     public String adminProducts(
             @RequestParam(value = "category", required = false) String category,
             @RequestParam(value = "search", required = false) String search,
-            @RequestParam(value = "sortBy", defaultValue = "id") String sortBy,
+            @RequestParam(value = "sortBy", required = false) String sortBy,
             @RequestParam(value = "sortOrder", defaultValue = "asc") String sortOrder,
             @RequestParam(value = "page", defaultValue = "1") int page,
             @RequestParam(value = "pageSize", defaultValue = "10") int pageSize,
@@ -57,78 +166,36 @@ public class AdminController {
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
         model.addAttribute("isAdmin", isAdmin);
 
-        List<Product> allProducts = productService.getAllProducts();
-        List<String> categories = allProducts.stream()
-                .map(Product::getCategory)
-                .filter(value -> value != null && !value.isBlank())
-                .distinct()
-                .sorted(String.CASE_INSENSITIVE_ORDER)
-                .collect(Collectors.toList());
+        // 分類清單與各分類商品數量由分類索引提供
+        java.util.Map<String, Long> categoryCounts = productService.getCategoryCounts();
+        List<String> categories = productService.getCategories(true);
 
-        // 計算每個分類的商品數量
-        java.util.Map<String, Long> categoryCounts = allProducts.stream()
-                .filter(p -> p.getCategory() != null && !p.getCategory().isBlank())
-                .collect(Collectors.groupingBy(Product::getCategory, Collectors.counting()));
+        // 有關鍵字時預設依相關度排序
+        if (sortBy == null || sortBy.isBlank()) {
+            sortBy = (search != null && !search.isBlank()) ? ProductSearchCriteria.SORT_RELEVANCE : "id";
+        }
 
-        List<Product> products;
-        if (category == null || category.isBlank()) {
-            products = allProducts;
-        } else {
-            products = productService.getProductsByCategory(category);
-        }
-
-        // 搜尋功能
-        if (search != null && !search.isBlank()) {
-            String searchLower = search.toLowerCase();
-            products = products.stream()
-                    .filter(p -> (p.getName() != null && p.getName().toLowerCase().contains(searchLower)) ||
-                            (p.getDescription() != null && p.getDescription().toLowerCase().contains(searchLower)) ||
-                            (p.getCategory() != null && p.getCategory().toLowerCase().contains(searchLower)))
-                    .collect(Collectors.toList());
-        }
-
-        // 排序功能
-        Comparator<Product> comparator;
-        switch (sortBy.toLowerCase()) {
-            case "name":
-                comparator = Comparator.comparing(p -> p.getName() != null ? p.getName() : "", String.CASE_INSENSITIVE_ORDER);
-                break;
-            case "price":
-                comparator = Comparator.comparing(Product::getPrice, Comparator.nullsLast(java.math.BigDecimal::compareTo));
-                break;
-            case "stock":
-                comparator = Comparator.comparing(p -> p.getStock() != null ? p.getStock() : 0, Comparator.nullsLast(Integer::compareTo));
-                break;
-            case "category":
-                comparator = Comparator.comparing(p -> p.getCategory() != null ? p.getCategory() : "", String.CASE_INSENSITIVE_ORDER);
-                break;
-            default:
-                comparator = Comparator.comparing(Product::getId, Comparator.nullsLast(Long::compareTo));
-        }
-        if ("desc".equalsIgnoreCase(sortOrder)) {
-            comparator = comparator.reversed();
-        }
-        products.sort(comparator);
-
-        // 分頁功能
-        int totalProducts = products.size();
-        int totalPages = (int) Math.ceil((double) totalProducts / pageSize);
-        int startIndex = (page - 1) * pageSize;
-        int endIndex = Math.min(startIndex + pageSize, totalProducts);
-        List<Product> paginatedProducts = products.subList(startIndex, endIndex);
-
-        model.addAttribute("products", paginatedProducts);
-        model.addAttribute("allProducts", allProducts);
+        // 關鍵字由搜尋索引比對，排序與分頁交由資料庫處理，只載入當頁商品
+        ProductSearchCriteria criteria = new ProductSearchCriteria();
+        criteria.setCategory(category);
+        criteria.setSearch(search);
+        criteria.setSortBy(sortBy);
+        criteria.setDescending("desc".equalsIgnoreCase(sortOrder));
+        criteria.setPage(page);
+        criteria.setPageSize(pageSize);
+        PageResult<Product> result = productService.searchProducts(criteria);
+
+        model.addAttribute("products", result.getContent());
         model.addAttribute("categories", categories);
         model.addAttribute("categoryCounts", categoryCounts);
         model.addAttribute("selectedCategory", category);
         model.addAttribute("search", search);
         model.addAttribute("sortBy", sortBy);
         model.addAttribute("sortOrder", sortOrder);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("pageSize", pageSize);
-        model.addAttribute("totalPages", totalPages);
-        model.addAttribute("totalProducts", totalProducts);
+        model.addAttribute("currentPage", result.getPage());
+        model.addAttribute("pageSize", result.getPageSize());
+        model.addAttribute("totalPages", result.getTotalPages());
+        model.addAttribute("totalProducts", result.getTotalElements());
         return "admin-products";
     }
 
@@ -138,13 +205,7 @@ public class AdminController {
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
             return "redirect:/";
         }
-        List<Product> allProducts = productService.getAllProducts();
-        List<String> categories = allProducts.stream()
-                .map(Product::getCategory)
-                .filter(value -> value != null && !value.isBlank())
-                .distinct()
-                .sorted(String.CASE_INSENSITIVE_ORDER)
-                .collect(Collectors.toList());
+        List<String> categories = productService.getCategories(true);
         model.addAttribute("product", new Product());
         model.addAttribute("formTitle", "新增商品");
         model.addAttribute("isEdit", false);
@@ -170,7 +231,11 @@ public class AdminController {
             
             // 處理多圖片上傳（優先）
             if (imageFiles != null && !imageFiles.isEmpty()) {
-                List<String> imageUrls = fileUploadService.uploadProductImages(imageFiles, product.getId());
+                ImageUploadResult uploads = fileUploadService.uploadProductImages(imageFiles, product.getId());
+                List<String> imageUrls = uploads.getImageUrls();
+                if (uploads.hasFailures()) {
+                    redirectAttributes.addFlashAttribute("errorMessage", "部分圖片上傳失敗：" + uploads.getFailureSummary());
+                }
                 int order = 0;
                 for (String imageUrl : imageUrls) {
                     ProductImage productImage = new ProductImage();
@@ -221,13 +286,7 @@ public class AdminController {
             redirectAttributes.addFlashAttribute("errorMessage", "找不到指定的商品。");
             return "redirect:/admin/products";
         }
-        List<Product> allProducts = productService.getAllProducts();
-        List<String> categories = allProducts.stream()
-                .map(Product::getCategory)
-                .filter(value -> value != null && !value.isBlank())
-                .distinct()
-                .sorted(String.CASE_INSENSITIVE_ORDER)
-                .collect(Collectors.toList());
+        List<String> categories = productService.getCategories(true);
         
         // 載入商品圖片
         List<ProductImage> images = productImageService.getImagesByProductId(id);
@@ -261,17 +320,14 @@ public class AdminController {
             }
             
             product.setId(id);
+            List<String> replacedImageUrls = new ArrayList<>();
             
             // 刪除指定的圖片
             if (deleteImageIds != null && !deleteImageIds.isEmpty()) {
                 for (Long imageId : deleteImageIds) {
                     ProductImage img = productImageService.getProductImageById(imageId);
                     if (img != null) {
-                        try {
-                            fileUploadService.deleteProductImage(img.getImageUrl());
-                        } catch (Exception e) {
-                            // 忽略刪除錯誤
-                        }
+                        // 檔案可能與其他圖片共用，沒有其他引用時才會刪除
                         productImageService.deleteProductImage(imageId);
                     }
                 }
@@ -279,7 +335,11 @@ public class AdminController {
             
             // 處理多圖片上傳（優先）
             if (imageFiles != null && !imageFiles.isEmpty()) {
-                List<String> imageUrls = fileUploadService.uploadProductImages(imageFiles, id);
+                ImageUploadResult uploads = fileUploadService.uploadProductImages(imageFiles, id);
+                List<String> imageUrls = uploads.getImageUrls();
+                if (uploads.hasFailures()) {
+                    redirectAttributes.addFlashAttribute("errorMessage", "部分圖片上傳失敗：" + uploads.getFailureSummary());
+                }
                 List<ProductImage> existingImages = productImageService.getImagesByProductId(id);
                 int maxOrder = existingImages.stream()
                         .mapToInt(img -> img.getDisplayOrder() != null ? img.getDisplayOrder() : 0)
@@ -319,13 +379,9 @@ public class AdminController {
                 }
             } else if (imageFile != null && !imageFile.isEmpty()) {
                 // 單圖片上傳（向後兼容）
-                // 刪除舊圖片（如果存在）
-                if (existingProduct.getImageUrl() != null && existingProduct.getImageUrl().startsWith("/resources/images/products/")) {
-                    try {
-                        fileUploadService.deleteProductImage(existingProduct.getImageUrl());
-                    } catch (Exception e) {
-                        // 忽略删除旧图片的错误
-                    }
+                // 舊圖片在商品更新後才釋放：檔案可能與其他圖片共用，沒有引用時才刪除
+                if (existingProduct.getImageUrl() != null) {
+                    replacedImageUrls.add(existingProduct.getImageUrl());
                 }
                 
                 // 上传新图片
@@ -337,6 +393,7 @@ public class AdminController {
                     List<ProductImage> existingImages = productImageService.getImagesByProductId(id);
                     if (!existingImages.isEmpty()) {
                         ProductImage firstImage = existingImages.get(0);
+                        replacedImageUrls.add(firstImage.getImageUrl());
                         firstImage.setImageUrl(imagePath);
                         firstImage.setIsCover(true);
                         productImageService.saveProductImage(firstImage);
@@ -355,6 +412,7 @@ public class AdminController {
             }
             
             productService.saveProduct(product);
+            productImageService.releaseImageFiles(replacedImageUrls);
             redirectAttributes.addFlashAttribute("successMessage", "商品已更新。");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "更新商品時發生錯誤：" + e.getMessage());
@@ -388,12 +446,8 @@ public class AdminController {
             redirectAttributes.addFlashAttribute("errorMessage", "分類名稱不能為空。");
             return "redirect:/admin/products";
         }
-        List<Product> products = productService.getProductsByCategory(oldCategory);
-        for (Product product : products) {
-            product.setCategory(newCategory);
-            productService.saveProduct(product);
-        }
-        redirectAttributes.addFlashAttribute("successMessage", "分類「" + oldCategory + "」已更新為「" + newCategory + "」，共 " + products.size() + " 個商品。");
+        int updated = productService.renameCategory(oldCategory, newCategory);
+        redirectAttributes.addFlashAttribute("successMessage", "分類「" + oldCategory + "」已更新為「" + newCategory + "」，共 " + updated + " 個商品。");
         return "redirect:/admin/products";
     }
 
@@ -411,13 +465,9 @@ public class AdminController {
             redirectAttributes.addFlashAttribute("errorMessage", "分類名稱不能為空。");
             return "redirect:/admin/products";
         }
-        List<Product> products = productService.getProductsByCategory(category);
         if (moveToCategory != null && !moveToCategory.isBlank()) {
-            for (Product product : products) {
-                product.setCategory(moveToCategory);
-                productService.saveProduct(product);
-            }
-            redirectAttributes.addFlashAttribute("successMessage", "分類「" + category + "」已刪除，共 " + products.size() + " 個商品已移至「" + moveToCategory + "」。");
+            int updated = productService.reassignCategory(category, moveToCategory);
+            redirectAttributes.addFlashAttribute("successMessage", "分類「" + category + "」已刪除，共 " + updated + " 個商品已移至「" + moveToCategory + "」。");
         } else {
             redirectAttributes.addFlashAttribute("errorMessage", "刪除分類前，請先將該分類下的商品移至其他分類。");
             return "redirect:/admin/products";
@@ -431,8 +481,7 @@ public class AdminController {
                 .anyMatch(a -> a.getAuthority().equals("ROLE_STAFF") || a.getAuthority().equals("ROLE_ADMIN"))) {
             return "redirect:/";
         }
-        List<Product> products = productService.getAllProducts();
-        model.addAttribute("products", products);
+        // 員工首頁只提供功能入口，不需要載入商品
         return "admin-staff-dashboard";
     }
 
@@ -442,7 +491,8 @@ public class AdminController {
                 .anyMatch(a -> a.getAuthority().equals("ROLE_STAFF") || a.getAuthority().equals("ROLE_ADMIN"))) {
             return "redirect:/";
         }
-        List<Product> products = productService.getAllProducts();
+        // 庫存頁只顯示ID、名稱、分類與庫存，使用唯讀摘要
+        List<ProductSummary> products = productService.getProductSummaries(null, true);
         model.addAttribute("products", products);
         return "admin-stock-management";
     }
@@ -461,16 +511,11 @@ public class AdminController {
             redirectAttributes.addFlashAttribute("errorMessage", "更新失敗：資料不完整。");
             return "redirect:/admin/products/stock";
         }
-        int updatedCount = 0;
+        List<ProductUpdate> updates = new ArrayList<>(productIds.size());
         for (int i = 0; i < productIds.size(); i++) {
-            Product product = productService.getProductById(productIds.get(i));
-            if (product != null) {
-                product.setStock(stocks.get(i));
-                productService.saveProduct(product);
-                updatedCount++;
-            }
+            updates.add(ProductUpdate.stock(productIds.get(i), stocks.get(i)));
         }
-        redirectAttributes.addFlashAttribute("successMessage", "已成功更新 " + updatedCount + " 個商品的庫存。");
+        addBulkUpdateMessages(productService.bulkUpdateProducts(updates), "個商品的庫存", redirectAttributes);
         return "redirect:/admin/products/stock";
     }
 
@@ -529,16 +574,11 @@ public class AdminController {
             redirectAttributes.addFlashAttribute("errorMessage", "更新失敗：資料不完整。");
             return "redirect:/admin/products";
         }
-        int updatedCount = 0;
+        List<ProductUpdate> updates = new ArrayList<>(productIds.size());
         for (int i = 0; i < productIds.size(); i++) {
-            Product product = productService.getProductById(productIds.get(i));
-            if (product != null) {
-                product.setStock(stocks.get(i));
-                productService.saveProduct(product);
-                updatedCount++;
-            }
+            updates.add(ProductUpdate.stock(productIds.get(i), stocks.get(i)));
         }
-        redirectAttributes.addFlashAttribute("successMessage", "已成功更新 " + updatedCount + " 個商品的庫存。");
+        addBulkUpdateMessages(productService.bulkUpdateProducts(updates), "個商品的庫存", redirectAttributes);
         return "redirect:/admin/products";
     }
 
@@ -561,33 +601,42 @@ public class AdminController {
             return "redirect:/admin/products";
         }
 
-        int updatedCount = 0;
+        List<ProductUpdate> updates = new ArrayList<>(productIds.size());
         for (int i = 0; i < productIds.size(); i++) {
-            Long id = productIds.get(i);
-            Product product = productService.getProductById(id);
-            if (product == null) {
-                continue;
-            }
-            if (names != null && i < names.size() && names.get(i) != null) {
-                product.setName(names.get(i).trim());
-            }
-            if (categories != null && i < categories.size()) {
-                String cat = categories.get(i);
-                product.setCategory(cat == null ? null : cat.trim());
-            }
-            if (prices != null && i < prices.size() && prices.get(i) != null) {
-                product.setPrice(prices.get(i));
-            }
-            if (stocksAll != null && i < stocksAll.size() && stocksAll.get(i) != null) {
-                product.setStock(stocksAll.get(i));
+            ProductUpdate update = new ProductUpdate(productIds.get(i));
+            update.setName(valueAt(names, i));
+            update.setCategory(valueAt(categories, i));
+            update.setPrice(valueAt(prices, i));
+            update.setStock(valueAt(stocksAll, i));
+            update.setListed(valueAt(listeds, i));
+            updates.add(update);
+        }
+        addBulkUpdateMessages(productService.bulkUpdateProducts(updates), "個商品", redirectAttributes);
+        return "redirect:/admin/products";
+    }
+
+    private static <T> T valueAt(List<T> values, int index) {
+        return values != null && index < values.size() ? values.get(index) : null;
+    }
+
+    /**
+     * 批次編輯結果轉成提示訊息：成功筆數放 successMessage，失敗列（最多列出 10 筆）放 errorMessage
+     */
+    private void addBulkUpdateMessages(BulkUpdateResult result, String subject, RedirectAttributes redirectAttributes) {
+        redirectAttributes.addFlashAttribute("successMessage",
+                "已成功更新 " + result.count(BulkUpdateResult.Status.UPDATED) + " " + subject + "。");
+        List<BulkUpdateResult.Outcome> failures = result.getFailures();
+        if (!failures.isEmpty()) {
+            StringBuilder message = new StringBuilder("有 " + failures.size() + " 筆未更新：");
+            for (int i = 0; i < Math.min(failures.size(), 10); i++) {
+                BulkUpdateResult.Outcome failure = failures.get(i);
+                message.append(i == 0 ? "" : "；").append("商品 #").append(failure.getProductId())
+                        .append(" ").append(failure.getMessage());
             }
-            if (listeds != null && i < listeds.size() && listeds.get(i) != null) {
-                product.setListed(listeds.get(i));
+            if (failures.size() > 10) {
+                message.append("…");
             }
-            productService.saveProduct(product);
-            updatedCount++;
+            redirectAttributes.addFlashAttribute("errorMessage", message.toString());
         }
-        redirectAttributes.addFlashAttribute("successMessage", "已成功更新 " + updatedCount + " 個商品。");
-        return "redirect:/admin/products";
     }
 }
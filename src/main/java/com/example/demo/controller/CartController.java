@@ -3,7 +3,7 @@ package com.example.demo.controller;
 import com.example.demo.model.Address;
 import com.example.demo.model.Cart;
 import com.example.demo.model.PaymentMethod;
-import com.example.demo.model.Product;
+import com.example.demo.model.ProductFacts;
 import com.example.demo.model.User;
 import com.example.demo.service.AddressService;
 import com.example.demo.service.CartService;
@@ -67,7 +67,8 @@ public class CartController {
                           HttpServletRequest request,
                           RedirectAttributes redirectAttributes) {
         boolean isAjax = "XMLHttpRequest".equalsIgnoreCase(request.getHeader("X-Requested-With"));
-        Product product = productService.getProductById(productId);
+        // 只需要名稱與價格，由商品基本資料快取提供
+        ProductFacts product = productService.getProductFacts(productId);
         if (product == null) {
             if (isAjax) {
                 Map<String, Object> body = new HashMap<>();
@@ -61,7 +61,7 @@ public class CheckoutController {
         // 準備選中商品的詳細信息（包含產品圖片）
         List<Map<String, Object>> selectedItemsWithDetails = new ArrayList<>();
         for (CartItem cartItem : cart.getSelectedItems()) {
-            Product product = productService.getProductById(cartItem.getProductId());
+            ProductFacts product = productService.getProductFacts(cartItem.getProductId());
             if (product != null) {
                 Map<String, Object> itemDetail = new HashMap<>();
                 itemDetail.put("cartItem", cartItem);
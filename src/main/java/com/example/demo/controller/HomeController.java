@@ -1,6 +1,5 @@
 package com.example.demo.controller;
 
-import com.example.demo.model.Order;
 import com.example.demo.model.User;
 import com.example.demo.service.OrderService;
 import com.example.demo.service.UserService;
@@ -15,6 +14,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 @Controller
 public class HomeController {
 
+    private static final int RECENT_ORDERS_LIMIT = 5;
+
     private final UserService userService;
     private final OrderService orderService;
 
@@ -36,7 +37,8 @@ public class HomeController {
             User current = userService.getUserByEmail(authentication.getName());
             model.addAttribute("currentUser", current);
             if (current != null) {
-                model.addAttribute("recentOrders", orderService.listOrdersByUser(current));
+                // 只取最近幾筆訂單的摘要，完整清單在「我的訂單」頁
+                model.addAttribute("recentOrders", orderService.listRecentOrders(current, RECENT_ORDERS_LIMIT));
             }
         }
         model.addAttribute("loginError", error != null);
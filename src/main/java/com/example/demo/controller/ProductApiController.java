@@ -0,0 +1,62 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.CatalogQuery;
+import com.example.demo.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 前台商品的 JSON API（行動 App、無限捲動列表）：只回傳上架商品，以游標分頁，
+ * fields 可只取需要的欄位，例如 /api/products?fields=id,name,price&limit=20
+ */
+@RestController
+@RequestMapping("/api/products")
+public class ProductApiController {
+
+    @Autowired
+    private ProductService productService;
+
+    @GetMapping
+    public ResponseEntity<Object> listProducts(
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "sort", defaultValue = CatalogQuery.SORT_ID) String sort,
+            @RequestParam(value = "limit", defaultValue = "" + CatalogQuery.DEFAULT_LIMIT) int limit,
+            @RequestParam(value = "fields", required = false) String fields) {
+        if (!CatalogQuery.SORTS.contains(sort)) {
+            return badRequest("sort 只能是 " + String.join("、", CatalogQuery.SORTS));
+        }
+        CatalogQuery query = new CatalogQuery();
+        query.setCategory(category);
+        query.setSort(sort);
+        query.setLimit(limit);
+        if (fields != null && !fields.isBlank()) {
+            Set<String> selected = new LinkedHashSet<>();
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (!CatalogQuery.FIELDS.contains(name)) {
+                    return badRequest("不支援的欄位：" + name);
+                }
+                selected.add(name);
+            }
+            query.setFields(selected);
+        }
+        try {
+            return ResponseEntity.ok(productService.getCatalogPage(query, cursor));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<Object> badRequest(String message) {
+        return ResponseEntity.badRequest().body(Map.of("error", message));
+    }
+}
@@ -1,26 +1,37 @@
 package com.example.demo.controller;
 
+import com.example.demo.model.ImageUploadResult;
+import com.example.demo.model.CatalogVersion;
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductFacts;
 import com.example.demo.model.ProductImage;
+import com.example.demo.model.ProductSummary;
 import com.example.demo.service.FileUploadService;
+import com.example.demo.service.PageCache;
 import com.example.demo.service.ProductImageService;
 import com.example.demo.service.ProductService;
+import com.example.demo.service.RecommendationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/products")
 public class ProductController {
 
+    private static final int RELATED_PRODUCTS_LIMIT = 4;
+
     @Autowired
     private ProductService productService;
 
@@ -30,47 +41,51 @@ public class ProductController {
     @Autowired
     private ProductImageService productImageService;
 
+    @Autowired
+    private RecommendationService recommendationService;
+
     @GetMapping
     public String listProducts(@RequestParam(value = "category", required = false) String category,
+                               @RequestParam(value = "sort", required = false) String sort,
                                Model model,
-                               Authentication authentication) {
+                               Authentication authentication,
+                               Locale locale,
+                               ServletWebRequest webRequest) {
         // 检查是否是管理员或员工
         boolean isAdmin = authentication != null && authentication.getAuthorities().stream()
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") || a.getAuthority().equals("ROLE_STAFF"));
-        
-        // 管理员可以看到所有商品，普通用户只能看到已上架的商品
-        List<Product> allProducts = isAdmin ? productService.getAllProducts() : productService.getListedProducts();
-        
-        List<String> categories = allProducts.stream()
-                .map(Product::getCategory)
-                .filter(value -> value != null && !value.isBlank())
-                .distinct()
-                .sorted(String.CASE_INSENSITIVE_ORDER)
-                .collect(Collectors.toList());
 
-        List<Product> products;
-        if (category == null || category.isBlank()) {
-            products = allProducts;
-        } else {
-            products = isAdmin ? productService.getProductsByCategory(category) : productService.getListedProductsByCategory(category);
+        // 列表內容沒有變動時直接回應 304，不查詢商品與圖片
+        CatalogVersion version = productService.getListVersion(category, isAdmin);
+        boolean bestSelling = ProductService.SORT_BESTSELLING.equals(sort);
+        String variant = "list:" + (category == null ? "" : category);
+        if (bestSelling) {
+            // 依熱銷排序時，排行更新也會改變列表順序
+            variant += ":bestselling:" + productService.refreshSalesRanking();
         }
-
-        products.sort(Comparator.comparing(Product::getId, Comparator.nullsLast(Long::compareTo)));
-
-        // 為每個商品載入圖片資訊（用於 getCoverImageUrl）
-        for (Product product : products) {
-            List<ProductImage> images = productImageService.getImagesByProductId(product.getId());
-            product.setImages(images);
+        if (checkNotModified(version, variant, model, authentication, locale, webRequest)) {
+            return null;
         }
+        
+        // 分類清單由分類索引提供，不需為此載入整個商品目錄
+        List<String> categories = productService.getCategories(isAdmin);
+
+        // 管理员可以看到所有商品，普通用户只能看到已上架的商品（空白分類視為「全部」）
+        // 以唯讀摘要查詢取代完整商品實體，封面圖片在同一個查詢中決定，依ID或熱銷排行排序
+        List<ProductSummary> products = bestSelling
+                ? productService.getProductSummaries(category, isAdmin, ProductService.SORT_BESTSELLING)
+                : productService.getProductSummaries(category, isAdmin);
 
         model.addAttribute("products", products);
         model.addAttribute("categories", categories);
         model.addAttribute("selectedCategory", category);
+        model.addAttribute("selectedSort", bestSelling ? ProductService.SORT_BESTSELLING : ProductService.SORT_DEFAULT);
         return "products";
     }
 
     @GetMapping("/detail/{id}")
-    public String showProductDetail(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes, Authentication authentication) {
+    public String showProductDetail(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes, Authentication authentication,
+                                    Locale locale, ServletWebRequest webRequest) {
         Product product = productService.getProductById(id);
         if (product == null) {
             redirectAttributes.addFlashAttribute("errorMessage", "找不到指定的商品。");
@@ -86,14 +101,52 @@ public class ProductController {
             redirectAttributes.addFlashAttribute("errorMessage", "找不到指定的商品。");
             return "redirect:/products";
         }
+
+        // 推薦商品由記憶體模型與商品快取提供；它們的名稱、價格與封面也是頁面內容，一併列入 ETag
+        List<ProductFacts> relatedProducts = recommendationService.getRelatedProducts(id, RELATED_PRODUCTS_LIMIT);
+        StringBuilder variant = new StringBuilder("detail:").append(id);
+        for (ProductFacts related : relatedProducts) {
+            variant.append('|').append(related.getId()).append(':').append(related.getName())
+                    .append(':').append(related.getPrice()).append(':').append(related.getCoverImageUrl())
+                    .append(':').append(related.getCoverImageVariantWidths());
+        }
+
+        CatalogVersion version = productService.getDetailVersion(id);
+        if (checkNotModified(version, variant.toString(), model, authentication, locale, webRequest)) {
+            return null;
+        }
         
         // 載入商品圖片
         List<ProductImage> images = productImageService.getImagesByProductId(id);
         model.addAttribute("product", product);
         model.addAttribute("images", images);
+        model.addAttribute("relatedProducts", relatedProducts);
+        webRequest.getRequest().setAttribute(PageCache.RELATED_PRODUCTS_ATTRIBUTE,
+                relatedProducts.stream().map(ProductFacts::getId).collect(Collectors.toList()));
         return "product-detail";
     }
 
+    /**
+     * 條件式 GET：依內容版本產生 ETag / Last-Modified，與 If-None-Match / If-Modified-Since 相符時回應 304。
+     * 有 flash 訊息的頁面只該顯示一次，不提供驗證資訊。
+     */
+    private boolean checkNotModified(CatalogVersion version, String variant, Model model,
+                                     Authentication authentication, Locale locale, ServletWebRequest webRequest) {
+        if (version == null || model.containsAttribute("successMessage") || model.containsAttribute("errorMessage")) {
+            return false;
+        }
+        // 頁面依登入角色與語系 cookie 而不同：只允許瀏覽器快取，且每次使用前都要重新驗證
+        webRequest.getResponse().setHeader("Cache-Control", "private, no-cache");
+        webRequest.getResponse().setHeader("Vary", "Cookie");
+
+        String roles = authentication == null ? "anonymous" : authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .sorted()
+                .collect(Collectors.joining(","));
+        return webRequest.checkNotModified(version.toETag(variant + '|' + roles + '|' + locale),
+                version.getLastModified());
+    }
+
     @GetMapping("/create")
     public String showCreateForm(Model model) {
         model.addAttribute("product", new Product());
@@ -129,7 +182,11 @@ public class ProductController {
                 System.out.println("有效檔案數量: " + validFiles.size());
                 
                 if (!validFiles.isEmpty()) {
-                    List<String> imageUrls = fileUploadService.uploadProductImages(validFiles, product.getId());
+                    ImageUploadResult uploads = fileUploadService.uploadProductImages(validFiles, product.getId());
+                    List<String> imageUrls = uploads.getImageUrls();
+                    if (uploads.hasFailures()) {
+                        redirectAttributes.addFlashAttribute("errorMessage", "部分圖片上傳失敗：" + uploads.getFailureSummary());
+                    }
                     System.out.println("上傳完成，獲得 " + imageUrls.size() + " 個圖片 URL");
                     
                     int order = 0;
@@ -222,6 +279,7 @@ public class ProductController {
             }
             
             product.setId(id);
+            List<String> replacedImageUrls = new ArrayList<>();
             
             // 刪除指定的圖片
             if (deleteImageIds != null && !deleteImageIds.isEmpty()) {
@@ -229,11 +287,7 @@ public class ProductController {
                 for (Long imageId : deleteImageIds) {
                     ProductImage img = productImageService.getProductImageById(imageId);
                     if (img != null) {
-                        try {
-                            fileUploadService.deleteProductImage(img.getImageUrl());
-                        } catch (Exception e) {
-                            // 忽略刪除錯誤
-                        }
+                        // 檔案可能與其他圖片共用，沒有其他引用時才會刪除
                         productImageService.deleteProductImage(imageId);
                     }
                 }
@@ -250,7 +304,11 @@ public class ProductController {
                 System.out.println("有效檔案數量: " + validFiles.size());
                 
                 if (!validFiles.isEmpty()) {
-                    List<String> imageUrls = fileUploadService.uploadProductImages(validFiles, id);
+                    ImageUploadResult uploads = fileUploadService.uploadProductImages(validFiles, id);
+                    List<String> imageUrls = uploads.getImageUrls();
+                    if (uploads.hasFailures()) {
+                        redirectAttributes.addFlashAttribute("errorMessage", "部分圖片上傳失敗：" + uploads.getFailureSummary());
+                    }
                     System.out.println("上傳完成，獲得 " + imageUrls.size() + " 個圖片 URL");
                 List<ProductImage> existingImages = productImageService.getImagesByProductId(id);
                 int maxOrder = existingImages.stream()
@@ -295,13 +353,9 @@ public class ProductController {
             } else if (imageFile != null && !imageFile.isEmpty()) {
                 System.out.println("處理單圖片上傳: " + imageFile.getOriginalFilename());
                 // 單圖片上傳（向後兼容）
-                // 刪除舊圖片（如果存在）
-                if (existingProduct.getImageUrl() != null && existingProduct.getImageUrl().startsWith("/resources/images/products/")) {
-                    try {
-                        fileUploadService.deleteProductImage(existingProduct.getImageUrl());
-                    } catch (Exception e) {
-                        // 忽略删除旧图片的错误
-                    }
+                // 舊圖片在商品更新後才釋放：檔案可能與其他圖片共用，沒有引用時才刪除
+                if (existingProduct.getImageUrl() != null) {
+                    replacedImageUrls.add(existingProduct.getImageUrl());
                 }
                 
                 // 上传新图片
@@ -314,6 +368,7 @@ public class ProductController {
                     List<ProductImage> existingImages = productImageService.getImagesByProductId(id);
                     if (!existingImages.isEmpty()) {
                         ProductImage firstImage = existingImages.get(0);
+                        replacedImageUrls.add(firstImage.getImageUrl());
                         firstImage.setImageUrl(imagePath);
                         firstImage.setIsCover(true);
                         productImageService.saveProductImage(firstImage);
@@ -335,6 +390,7 @@ public class ProductController {
             }
             
             productService.saveProduct(product);
+            productImageService.releaseImageFiles(replacedImageUrls);
             redirectAttributes.addFlashAttribute("successMessage", "商品已更新。");
             System.out.println("========== 商品更新完成 ==========");
         } catch (Exception e) {
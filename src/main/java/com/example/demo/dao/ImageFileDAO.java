@@ -0,0 +1,28 @@
+package com.example.demo.dao;
+
+import com.example.demo.model.ImageFile;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ImageFileDAO {
+
+    ImageFile findByImageUrl(String imageUrl);
+
+    /**
+     * 鎖住圖片檔的紀錄直到交易結束（SELECT ... FOR UPDATE），沒有時回傳 null
+     */
+    ImageFile lock(String imageUrl);
+
+    /**
+     * 新增紀錄並立即寫入；其他伺服器同時新增同一個網址時丟出違反唯一鍵的例外
+     */
+    void create(ImageFile imageFile);
+
+    void delete(ImageFile imageFile);
+
+    /**
+     * 清理用：released_at 不晚於 cutoff、網址排在 afterUrl 之後的圖片，依網址排序，最多 limit 筆
+     */
+    List<String> findReleasedBefore(LocalDateTime cutoff, String afterUrl, int limit);
+}
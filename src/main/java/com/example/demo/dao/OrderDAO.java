@@ -1,6 +1,7 @@
 package com.example.demo.dao;
 
 import com.example.demo.model.Order;
+import com.example.demo.model.OrderSummary;
 import com.example.demo.model.User;
 
 import java.util.List;
@@ -18,4 +19,9 @@ public interface OrderDAO {
     List<Order> findAll();
 
     List<Order> findByUser(User user);
+
+    /**
+     * 使用者最近的 limit 筆訂單（新到舊），只查詢訂單本身的欄位，不載入明細
+     */
+    List<OrderSummary> findRecentByUser(Long userId, int limit);
 }
\ No newline at end of file
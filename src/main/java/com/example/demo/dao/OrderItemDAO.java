@@ -2,7 +2,9 @@ package com.example.demo.dao;
 
 import com.example.demo.model.Order;
 import com.example.demo.model.OrderItem;
+import com.example.demo.model.ProductSales;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrderItemDAO {
@@ -16,4 +18,22 @@ public interface OrderItemDAO {
     OrderItem findById(Long id);
 
     List<OrderItem> findByOrder(Order order);
-}
\ No newline at end of file
+
+    /**
+     * 依商品加總明細ID大於 afterItemId 的售出數量；只算到第一筆訂單建立時間不早於 createdBefore 的明細之前
+     */
+    List<ProductSales> sumSalesSince(long afterItemId, LocalDateTime createdBefore);
+
+    /**
+     * 以唯讀游標依訂單ID順序逐筆讀出（訂單ID, 商品ID），同一張訂單的明細相鄰，回傳讀取筆數
+     */
+    long scrollBasketItems(int fetchSize, BasketItemConsumer consumer);
+
+    /**
+     * 接收訂單明細的（訂單ID, 商品ID），以基本型別傳遞避免大量裝箱
+     */
+    @FunctionalInterface
+    interface BasketItemConsumer {
+        void accept(long orderId, long productId);
+    }
+}
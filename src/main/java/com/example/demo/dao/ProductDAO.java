@@ -1,8 +1,18 @@
 package com.example.demo.dao;
 
+import com.example.demo.model.CatalogQuery;
+import com.example.demo.model.CatalogVersion;
+import com.example.demo.model.CategoryCount;
+import com.example.demo.model.PageResult;
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductExportRow;
+import com.example.demo.model.ProductSearchCriteria;
+import com.example.demo.model.ProductSearchDocument;
+import com.example.demo.model.ProductSummary;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ProductDAO {
 
@@ -12,10 +22,87 @@ public interface ProductDAO {
 
     Product findById(Long id);
 
+    /**
+     * 以 IN 查詢載入多個商品（每批最多 1000 個ID），依傳入的ID順序回傳
+     */
+    List<Product> findByIds(List<Long> ids);
+
     List<Product> findByCategory(String category);
 
     List<Product> findListedByCategory(String category);
 
+    /**
+     * 列表用的唯讀投影，依ID排序；封面圖片以子查詢在同一個查詢中決定。
+     * @param category 為 null 或空白時不限分類
+     */
+    List<ProductSummary> findSummaries(String category, boolean listedOnly);
+
+    /**
+     * 前台 API 用：只查詢 query 選取的欄位（投影，不載入實體），只含上架商品，
+     * 依游標之後的排序鍵取最多 limit + 1 筆（多一筆用來判斷是否還有下一頁）。
+     * 每一筆以欄位名稱 → 值的 Map 回傳，順序與 getSelectedColumns 相同。
+     */
+    List<Map<String, Object>> findCatalogPage(CatalogQuery query);
+
+    /**
+     * 依條件在資料庫端完成篩選、排序與分頁，只載入當頁商品。
+     */
+    PageResult<Product> findPage(ProductSearchCriteria criteria);
+
+    /**
+     * 將一組商品ID依排序欄位（同 findPage 的 sortBy）排序，只回傳ID；已刪除的商品不在結果中。
+     * 排序鍵以每批最多 1000 個ID的 IN 查詢讀取，ID 再多也不會產生無上限的 IN 清單。
+     */
+    List<Long> sortIds(List<Long> ids, String sortBy, boolean descending);
+
+    /**
+     * 搜尋索引用的投影：所有商品的ID、名稱、分類、描述，不載入實體也不進入 Session。
+     */
+    List<ProductSearchDocument> findSearchDocuments();
+
+    /**
+     * 以單一 GROUP BY 統計各分類、各上架狀態的商品數量。
+     */
+    List<CategoryCount> countByCategoryAndListed();
+
+    /**
+     * 只查詢商品目前的分類與上架狀態（不載入實體），查無時回傳 null。
+     */
+    CategoryCount findCategoryState(Long id);
+
+    /**
+     * 前台列表頁的內容版本：符合條件的商品及其圖片的筆數與最後異動時間（單一彙總查詢）。
+     */
+    CatalogVersion findListVersion(String category, boolean listedOnly);
+
+    /**
+     * 單一商品及其圖片的內容版本。
+     */
+    CatalogVersion findDetailVersion(Long id);
+
+    /**
+     * 以單一 UPDATE 將分類更名，回傳受影響的商品數量。
+     * 大量更新不經過 Session，Hibernate 會清除 Product 的二級快取區域。
+     */
+    int renameCategory(String oldCategory, String newCategory);
+
+    /**
+     * 刪除分類時以單一 UPDATE 將其商品移到另一個分類，回傳受影響的商品數量。
+     */
+    int reassignCategory(String category, String fallbackCategory);
+
+    /**
+     * 以 StatelessSession 逐筆捲動整個目錄（含圖片），每組完一個商品就交給 consumer，回傳匯出的商品數量。
+     * 不經過目前交易的 Session 與二級快取，記憶體用量與目錄大小無關。
+     */
+    long scrollExportRows(int fetchSize, Consumer<ProductExportRow> consumer);
+
+    /**
+     * 匯入用：以 JDBC 批次新增商品及其 images，並把產生的ID回填到商品上，須在交易中呼叫。
+     * 不經過 Session（IDENTITY 主鍵會讓 Hibernate 逐筆 INSERT），也不觸發 @PrePersist。
+     */
+    void insertBatch(List<Product> products);
+
     void save(Product product);
 
     void delete(Long id);
@@ -1,13 +1,40 @@
 package com.example.demo.dao;
 
+import com.example.demo.model.ProcessingState;
 import com.example.demo.model.ProductImage;
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductImageDAO {
     List<ProductImage> findByProductId(Long productId);
+
+    /**
+     * 以 IN 查詢（每批最多 1000 個商品ID）載入多個商品的圖片，依商品、顯示順序排序
+     */
+    List<ProductImage> findByProductIds(Collection<Long> productIds);
     void save(ProductImage productImage);
     void delete(Long id);
     void deleteByProductId(Long productId);
     ProductImage findById(Long id);
+
+    /**
+     * 更新指定圖片網址的所有圖片的處理狀態與衍生尺寸（單一 UPDATE），回傳受影響的筆數
+     */
+    int updateProcessingState(String imageUrl, ProcessingState state, String variantWidths);
+
+    /**
+     * 回填用：ID 大於 afterId、已處理完成但尚未產生衍生尺寸（或寬度仍是舊格式）的圖片，依 ID 排序，最多 limit 筆
+     */
+    List<ProductImage> findWithoutVariants(long afterId, int limit);
+
+    /**
+     * 引用指定圖片網址的圖片紀錄與商品（imageUrl）數量；為 0 時圖片檔可以刪除
+     */
+    long countReferences(String imageUrl);
+
+    /**
+     * 同一張圖片在其他紀錄已產生的衍生尺寸，沒有時為 null
+     */
+    String findVariantWidths(String imageUrl);
 }
 
@@ -0,0 +1,18 @@
+package com.example.demo.dao;
+
+import com.example.demo.model.ProductImportJob;
+
+public interface ProductImportJobDAO {
+
+    /**
+     * 匯入工作的檢查點，沒有時回傳 null
+     */
+    ProductImportJob findByName(String jobName);
+
+    /**
+     * 新增或更新檢查點；須與同一批的商品寫入在同一個交易中呼叫
+     */
+    void save(ProductImportJob job);
+
+    void delete(String jobName);
+}
@@ -0,0 +1,60 @@
+package com.example.demo.dao.impl;
+
+import com.example.demo.dao.ImageFileDAO;
+import com.example.demo.model.ImageFile;
+import org.hibernate.LockMode;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public class ImageFileDAOImpl implements ImageFileDAO {
+
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public ImageFileDAOImpl(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    private Session currentSession() {
+        return sessionFactory.getCurrentSession();
+    }
+
+    @Override
+    public ImageFile findByImageUrl(String imageUrl) {
+        return currentSession().get(ImageFile.class, imageUrl);
+    }
+
+    @Override
+    public ImageFile lock(String imageUrl) {
+        return currentSession().get(ImageFile.class, imageUrl, new LockOptions(LockMode.PESSIMISTIC_WRITE));
+    }
+
+    @Override
+    public void create(ImageFile imageFile) {
+        currentSession().save(imageFile);
+        currentSession().flush();
+    }
+
+    @Override
+    public void delete(ImageFile imageFile) {
+        currentSession().delete(imageFile);
+    }
+
+    @Override
+    public List<String> findReleasedBefore(LocalDateTime cutoff, String afterUrl, int limit) {
+        return currentSession().createQuery(
+                        "select f.imageUrl from ImageFile f where f.releasedAt <= :cutoff and f.imageUrl > :afterUrl "
+                                + "order by f.imageUrl", String.class)
+                .setParameter("cutoff", cutoff)
+                .setParameter("afterUrl", afterUrl)
+                .setMaxResults(limit)
+                .list();
+    }
+}
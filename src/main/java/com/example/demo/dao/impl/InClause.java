@@ -0,0 +1,27 @@
+package com.example.demo.dao.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DAO 共用的 IN 查詢分批：ID 清單再長也不會產生無上限的 IN 清單。
+ */
+final class InClause {
+
+    // 單一 IN 清單的上限（部分資料庫限制 1000 個，清單太長時解析與執行計畫也變差）
+    static final int LIMIT = 1000;
+
+    private InClause() {
+    }
+
+    /**
+     * 依序切成每批最多 LIMIT 個值（回傳原清單的 subList 檢視）
+     */
+    static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += LIMIT) {
+            chunks.add(values.subList(from, Math.min(from + LIMIT, values.size())));
+        }
+        return chunks;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.demo.dao.impl;
 
 import com.example.demo.dao.OrderDAO;
 import com.example.demo.model.Order;
+import com.example.demo.model.OrderSummary;
 import com.example.demo.model.User;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -72,6 +73,21 @@ public class OrderDAOImpl implements OrderDAO {
         return deduplicateById(results);
     }
 
+    @Override
+    public List<OrderSummary> findRecentByUser(Long userId, int limit) {
+        if (userId == null || limit <= 0) {
+            return List.of();
+        }
+        Query<OrderSummary> query = getCurrentSession()
+                .createQuery(
+                        "select new com.example.demo.model.OrderSummary(o.id, o.createdAt, o.status, o.totalPrice, o.paymentMethod) "
+                                + "from Order o where o.user.id = :userId order by o.createdAt desc, o.id desc",
+                        OrderSummary.class);
+        query.setParameter("userId", userId);
+        query.setMaxResults(limit);
+        return query.list();
+    }
+
     private List<Order> deduplicateById(List<Order> orders) {
         if (orders.isEmpty()) {
             return orders;
@@ -3,12 +3,17 @@ package com.example.demo.dao.impl;
 import com.example.demo.dao.OrderItemDAO;
 import com.example.demo.model.Order;
 import com.example.demo.model.OrderItem;
+import com.example.demo.model.ProductSales;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -52,4 +57,40 @@ public class OrderItemDAOImpl implements OrderItemDAO {
         query.setParameter("order", order);
         return query.list();
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<ProductSales> sumSalesSince(long afterItemId, LocalDateTime createdBefore) {
+        // 以明細主鍵做範圍條件，只掃描上次統計之後新增的明細；
+        // 停在第一筆尚未穩定（訂單建立時間不早於 createdBefore）的明細之前，讓水位之下不留缺口
+        Query<ProductSales> query = getCurrentSession().createQuery(
+                "select new com.example.demo.model.ProductSales(i.product.id, sum(i.quantity), max(i.id)) " +
+                        "from OrderItem i " +
+                        "where i.id > :afterItemId and i.id < coalesce(" +
+                        "(select min(u.id) from OrderItem u join u.order uo " +
+                        "where u.id > :afterItemId and uo.createdAt >= :createdBefore), :noLimit) " +
+                        "group by i.product.id", ProductSales.class);
+        query.setParameter("afterItemId", afterItemId);
+        query.setParameter("createdBefore", createdBefore);
+        query.setParameter("noLimit", Long.MAX_VALUE);
+        return query.list();
+    }
+
+    @Override
+    public long scrollBasketItems(int fetchSize, BasketItemConsumer consumer) {
+        // 只讀兩個外鍵欄位，不載入訂單與商品實體
+        String hql = "select i.order.id, i.product.id from OrderItem i order by i.order.id";
+        long count = 0;
+        try (StatelessSession session = sessionFactory.openStatelessSession();
+             ScrollableResults results = session.createQuery(hql)
+                     .setFetchSize(fetchSize)
+                     .setReadOnly(true)
+                     .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Object[] row = results.get();
+                consumer.accept(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,21 +1,90 @@
 package com.example.demo.dao.impl;
 
 import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.CatalogQuery;
+import com.example.demo.model.CatalogVersion;
+import com.example.demo.model.CategoryCount;
+import com.example.demo.model.PageResult;
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductExportRow;
+import com.example.demo.model.ProductImage;
+import com.example.demo.model.ProductSearchCriteria;
+import com.example.demo.model.ProductSearchDocument;
+import com.example.demo.model.ProductSummary;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Repository
 public class ProductDAOImpl implements ProductDAO {
 
+    // 允許排序的欄位，避免把使用者輸入直接拼進 HQL
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "p.id",
+            "name", "lower(p.name)",
+            "price", "p.price",
+            "stock", "p.stock",
+            "category", "lower(p.category)");
+
+    // 封面只考慮處理完成的圖片（processingState 為 null 的舊資料視為 READY，與 ProductImage.isReady 一致）
+    private static final String READY = "com.example.demo.model.ProcessingState.READY";
+
+    // 封面：標記為封面的圖片 → 排序最前的圖片 → 商品本身的 imageUrl（與 Product.getCoverImageUrl 一致）；
+    // 商品的 imageUrl 指向還沒處理完成的圖片時也不使用
+    private static final String COVER_IMAGE_EXPRESSION = "coalesce("
+            + "(select min(c.imageUrl) from ProductImage c where c.product = p and c.isCover = true and "
+            + ready("c") + "), "
+            + "(select min(f.imageUrl) from ProductImage f where f.product = p and " + ready("f")
+            + " and f.displayOrder = (select min(o.displayOrder) from ProductImage o where o.product = p and "
+            + ready("o") + ")), "
+            + "(select q.imageUrl from Product q where q = p and not exists ("
+            + "select n.id from ProductImage n where n.product = q and n.imageUrl = q.imageUrl and not "
+            + ready("n") + ")))";
+
+    // 封面圖片的衍生尺寸：封面是商品自己的 imageUrl（沒有對應的 ProductImage）時為 null
+    private static final String COVER_VARIANT_WIDTHS_EXPRESSION =
+            "(select min(v.variantWidths) from ProductImage v where v.product = p and " + ready("v")
+            + " and v.imageUrl = " + COVER_IMAGE_EXPRESSION + ")";
+
+    private static final String DESCRIPTION_EXCERPT_EXPRESSION =
+            "substring(p.description, 1, " + ProductSummary.DESCRIPTION_EXCERPT_LENGTH + ")";
+
+    // API 欄位 → HQL 運算式；沒有要求封面或描述時就不會產生對應的子查詢
+    private static final Map<String, String> CATALOG_COLUMNS = Map.of(
+            "id", "p.id",
+            "name", "p.name",
+            "price", "p.price",
+            "category", "p.category",
+            "stock", "p.stock",
+            "description", DESCRIPTION_EXCERPT_EXPRESSION,
+            "coverImageUrl", COVER_IMAGE_EXPRESSION);
+
     @Autowired
     private SessionFactory sessionFactory;
 
+    private static String ready(String alias) {
+        return "(" + alias + ".processingState is null or " + alias + ".processingState = " + READY + ")";
+    }
+
     private Session getCurrentSession() {
         return sessionFactory.getCurrentSession();
     }
@@ -38,6 +107,30 @@ public class ProductDAOImpl implements ProductDAO {
         return getCurrentSession().get(Product.class, id);
     }
 
+    @Override
+    public List<Product> findByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        for (List<Long> chunk : InClause.chunks(ids)) {
+            Query<Product> query = getCurrentSession()
+                    .createQuery("from Product where id in (:ids)", Product.class);
+            query.setParameterList("ids", chunk);
+            for (Product product : query.list()) {
+                byId.put(product.getId(), product);
+            }
+        }
+        List<Product> ordered = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+
     @Override
     public List<Product> findByCategory(String category) {
         Query<Product> query = getCurrentSession()
@@ -55,6 +148,338 @@ public class ProductDAOImpl implements ProductDAO {
         return query.list();
     }
 
+    @Override
+    public List<ProductSummary> findSummaries(String category, boolean listedOnly) {
+        boolean byCategory = category != null && !category.isBlank();
+        StringBuilder where = new StringBuilder(" where 1 = 1");
+        if (byCategory) {
+            where.append(" and p.category = :category");
+        }
+        if (listedOnly) {
+            where.append(" and p.listed = :listed");
+        }
+        Query<ProductSummary> query = getCurrentSession().createQuery(
+                "select new com.example.demo.model.ProductSummary("
+                        + "p.id, p.name, p.price, p.category, p.stock, p.listed, "
+                        + DESCRIPTION_EXCERPT_EXPRESSION + ", " + COVER_IMAGE_EXPRESSION + ", "
+                        + COVER_VARIANT_WIDTHS_EXPRESSION + ") "
+                        + "from Product p" + where + " order by p.id", ProductSummary.class);
+        if (byCategory) {
+            query.setParameter("category", category);
+        }
+        if (listedOnly) {
+            query.setParameter("listed", true);
+        }
+        return query.list();
+    }
+
+    @Override
+    public List<Map<String, Object>> findCatalogPage(CatalogQuery catalogQuery) {
+        List<String> columns = new ArrayList<>(catalogQuery.getSelectedColumns());
+        StringBuilder hql = new StringBuilder("select ");
+        for (int i = 0; i < columns.size(); i++) {
+            hql.append(i == 0 ? "" : ", ").append(CATALOG_COLUMNS.get(columns.get(i)));
+        }
+        hql.append(" from Product p where p.listed = :listed");
+        if (catalogQuery.getCategory() != null) {
+            hql.append(" and p.category = :category");
+        }
+        boolean hasCursor = catalogQuery.getAfterId() != null;
+        String order;
+        if (catalogQuery.isPriceSort()) {
+            String comparison = CatalogQuery.SORT_PRICE_DESC.equals(catalogQuery.getSort()) ? "<" : ">";
+            if (hasCursor) {
+                hql.append(" and (p.price ").append(comparison).append(" :afterPrice")
+                        .append(" or (p.price = :afterPrice and p.id > :afterId))");
+            }
+            order = " order by p.price" + ("<".equals(comparison) ? " desc" : "") + ", p.id";
+        } else {
+            if (hasCursor) {
+                hql.append(" and p.id > :afterId");
+            }
+            order = " order by p.id";
+        }
+        hql.append(order);
+
+        Query<?> query = getCurrentSession().createQuery(hql.toString());
+        query.setParameter("listed", true);
+        if (catalogQuery.getCategory() != null) {
+            query.setParameter("category", catalogQuery.getCategory());
+        }
+        if (hasCursor) {
+            query.setParameter("afterId", catalogQuery.getAfterId());
+            if (catalogQuery.isPriceSort()) {
+                query.setParameter("afterPrice", catalogQuery.getAfterPrice());
+            }
+        }
+        query.setMaxResults(catalogQuery.getLimit() + 1);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Object result : query.list()) {
+            // 只選一個欄位時 Hibernate 不會包成陣列
+            Object[] values = result instanceof Object[] ? (Object[]) result : new Object[]{result};
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                row.put(columns.get(i), values[i]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Override
+    public PageResult<Product> findPage(ProductSearchCriteria criteria) {
+        StringBuilder where = new StringBuilder(" where 1 = 1");
+        if (criteria.getCategory() != null) {
+            where.append(" and p.category = :category");
+        }
+        if (criteria.getSearch() != null) {
+            where.append(" and (lower(p.name) like :term escape '!'")
+                    .append(" or lower(p.description) like :term escape '!'")
+                    .append(" or lower(p.category) like :term escape '!')");
+        }
+
+        Query<Long> countQuery = getCurrentSession()
+                .createQuery("select count(p) from Product p" + where, Long.class);
+        bindCriteria(countQuery, criteria);
+        long total = countQuery.uniqueResult();
+
+        String sortColumn = SORT_COLUMNS.getOrDefault(criteria.getSortBy(), "p.id");
+        String direction = criteria.isDescending() ? " desc" : " asc";
+        String orderBy = " order by " + sortColumn + direction
+                + ("p.id".equals(sortColumn) ? "" : ", p.id" + direction);
+
+        Query<Product> query = getCurrentSession()
+                .createQuery("select p from Product p" + where + orderBy, Product.class);
+        bindCriteria(query, criteria);
+        query.setFirstResult(criteria.getOffset());
+        query.setMaxResults(criteria.getPageSize());
+        return new PageResult<>(query.list(), criteria.getPage(), criteria.getPageSize(), total);
+    }
+
+    @Override
+    public List<Long> sortIds(List<Long> ids, String sortBy, boolean descending) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sortColumn = SORT_COLUMNS.getOrDefault(sortBy, "p.id");
+        List<Object[]> keys = new ArrayList<>(ids.size());
+        for (List<Long> chunk : InClause.chunks(ids)) {
+            Query<Object[]> query = getCurrentSession().createQuery(
+                    "select p.id, " + sortColumn + " from Product p where p.id in (:ids)", Object[].class);
+            query.setParameterList("ids", chunk);
+            keys.addAll(query.list());
+        }
+        // 與 findPage 相同：依排序欄位，相同時依ID，同一個方向
+        Comparator<Object[]> order = Comparator.comparing(ProductDAOImpl::sortKey,
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        order = order.thenComparing(row -> (Long) row[0]);
+        keys.sort(descending ? order.reversed() : order);
+        List<Long> sorted = new ArrayList<>(keys.size());
+        for (Object[] row : keys) {
+            sorted.add((Long) row[0]);
+        }
+        return sorted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> sortKey(Object[] row) {
+        return (Comparable<Object>) row[1];
+    }
+
+    @Override
+    public List<ProductSearchDocument> findSearchDocuments() {
+        return getCurrentSession()
+                .createQuery("select new com.example.demo.model.ProductSearchDocument("
+                        + "p.id, p.name, p.category, p.description) from Product p", ProductSearchDocument.class)
+                .list();
+    }
+
+    @Override
+    public List<CategoryCount> countByCategoryAndListed() {
+        return getCurrentSession()
+                .createQuery("select new com.example.demo.model.CategoryCount(p.category, p.listed, count(p)) "
+                        + "from Product p group by p.category, p.listed", CategoryCount.class)
+                .list();
+    }
+
+    @Override
+    public CategoryCount findCategoryState(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Query<CategoryCount> query = getCurrentSession()
+                .createQuery("select new com.example.demo.model.CategoryCount(p.category, p.listed, count(p)) "
+                        + "from Product p where p.id = :id group by p.category, p.listed", CategoryCount.class);
+        query.setParameter("id", id);
+        return query.uniqueResult();
+    }
+
+    @Override
+    public CatalogVersion findListVersion(String category, boolean listedOnly) {
+        StringBuilder where = new StringBuilder(" where 1 = 1");
+        if (category != null && !category.isBlank()) {
+            where.append(" and p.category = :category");
+        }
+        if (listedOnly) {
+            where.append(" and p.listed = :listed");
+        }
+        Query<CatalogVersion> query = createVersionQuery(where.toString());
+        if (category != null && !category.isBlank()) {
+            query.setParameter("category", category);
+        }
+        if (listedOnly) {
+            query.setParameter("listed", true);
+        }
+        return query.uniqueResult();
+    }
+
+    @Override
+    public CatalogVersion findDetailVersion(Long id) {
+        Query<CatalogVersion> query = createVersionQuery(" where p.id = :id");
+        query.setParameter("id", id);
+        return query.uniqueResult();
+    }
+
+    @Override
+    public int renameCategory(String oldCategory, String newCategory) {
+        return moveCategory(oldCategory, newCategory);
+    }
+
+    @Override
+    public int reassignCategory(String category, String fallbackCategory) {
+        return moveCategory(category, fallbackCategory);
+    }
+
+    private int moveCategory(String from, String to) {
+        // 大量更新不會觸發 @PreUpdate，異動時間要一併更新，前台 ETag 才會改變
+        return getCurrentSession()
+                .createQuery("update Product p set p.category = :to, p.updatedAt = :now where p.category = :from")
+                .setParameter("to", to)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("from", from)
+                .executeUpdate();
+    }
+
+    @Override
+    public long scrollExportRows(int fetchSize, Consumer<ProductExportRow> consumer) {
+        // 商品與圖片以 left join 展開成多列，依商品ID排序後把連續的列組回同一個商品
+        String hql = "select p.id, p.name, p.description, p.price, p.category, p.stock, p.listed, "
+                + "p.imageUrl, p.updatedAt, i.imageUrl "
+                + "from Product p left join p.images i "
+                + "order by p.id, i.isCover desc, i.displayOrder, i.id";
+        long exported = 0;
+        try (StatelessSession session = sessionFactory.openStatelessSession();
+             ScrollableResults results = session.createQuery(hql)
+                     .setFetchSize(fetchSize)
+                     .setReadOnly(true)
+                     .scroll(ScrollMode.FORWARD_ONLY)) {
+            Object[] current = null;
+            List<String> imageUrls = new ArrayList<>();
+            while (results.next()) {
+                Object[] row = results.get();
+                if (current != null && !current[0].equals(row[0])) {
+                    consumer.accept(toExportRow(current, imageUrls));
+                    exported++;
+                    imageUrls.clear();
+                }
+                current = row;
+                if (row[9] != null) {
+                    imageUrls.add((String) row[9]);
+                }
+            }
+            if (current != null) {
+                consumer.accept(toExportRow(current, imageUrls));
+                exported++;
+            }
+        }
+        return exported;
+    }
+
+    @Override
+    public void insertBatch(List<Product> products) {
+        if (products == null || products.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        getCurrentSession().doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into products (name, description, price, image_url, category, stock, listed, updated_at) "
+                            + "values (?, ?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                for (Product product : products) {
+                    insert.setString(1, product.getName());
+                    insert.setString(2, product.getDescription());
+                    insert.setBigDecimal(3, product.getPrice());
+                    insert.setString(4, product.getImageUrl());
+                    insert.setString(5, product.getCategory());
+                    insert.setInt(6, product.getStock());
+                    insert.setBoolean(7, product.getListed());
+                    insert.setTimestamp(8, now);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    for (Product product : products) {
+                        if (!keys.next()) {
+                            throw new IllegalStateException("批次新增商品後取得的主鍵數量不足");
+                        }
+                        product.setId(keys.getLong(1));
+                        product.setUpdatedAt(now.toLocalDateTime());
+                    }
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into product_images (product_id, image_url, is_cover, display_order, processing_state, "
+                            + "variant_widths, updated_at) values (?, ?, ?, ?, ?, ?, ?)")) {
+                int rows = 0;
+                for (Product product : products) {
+                    for (ProductImage image : product.getImages()) {
+                        insert.setLong(1, product.getId());
+                        insert.setString(2, image.getImageUrl());
+                        insert.setBoolean(3, Boolean.TRUE.equals(image.getIsCover()));
+                        insert.setInt(4, image.getDisplayOrder());
+                        insert.setString(5, image.getProcessingState().name());
+                        insert.setString(6, image.getVariantWidths());
+                        insert.setTimestamp(7, now);
+                        insert.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows > 0) {
+                    insert.executeBatch();
+                }
+            }
+        });
+        // 直接以 JDBC 寫入，Hibernate 不知道資料表已變動，快取的查詢結果要清掉
+        sessionFactory.getCache().evictDefaultQueryRegion();
+    }
+
+    private ProductExportRow toExportRow(Object[] row, List<String> imageUrls) {
+        return new ProductExportRow((Long) row[0], (String) row[1], (String) row[2], (BigDecimal) row[3],
+                (String) row[4], (Integer) row[5], (Boolean) row[6], (String) row[7], (LocalDateTime) row[8],
+                imageUrls);
+    }
+
+    private Query<CatalogVersion> createVersionQuery(String where) {
+        return getCurrentSession().createQuery(
+                "select new com.example.demo.model.CatalogVersion("
+                        + "count(distinct p.id), max(p.updatedAt), count(i.id), max(i.updatedAt)) "
+                        + "from Product p left join p.images i" + where, CatalogVersion.class);
+    }
+
+    private void bindCriteria(Query<?> query, ProductSearchCriteria criteria) {
+        if (criteria.getCategory() != null) {
+            query.setParameter("category", criteria.getCategory());
+        }
+        if (criteria.getSearch() != null) {
+            query.setParameter("term", "%" + escapeLike(criteria.getSearch().toLowerCase()) + "%");
+        }
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
     @Override
     public void save(Product product) {
         getCurrentSession().saveOrUpdate(product);
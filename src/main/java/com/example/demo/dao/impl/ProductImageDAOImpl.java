@@ -1,6 +1,7 @@
 package com.example.demo.dao.impl;
 
 import com.example.demo.dao.ProductImageDAO;
+import com.example.demo.model.ProcessingState;
 import com.example.demo.model.ProductImage;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -8,11 +9,16 @@ import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public class ProductImageDAOImpl implements ProductImageDAO {
 
+    private static final String LEGACY_WIDTHS = "240,480";
+
     @Autowired
     private SessionFactory sessionFactory;
 
@@ -25,9 +31,27 @@ public class ProductImageDAOImpl implements ProductImageDAO {
         Query<ProductImage> query = getCurrentSession()
                 .createQuery("from ProductImage where product.id = :productId order by displayOrder asc, id asc", ProductImage.class);
         query.setParameter("productId", productId);
+        // 商品詳情頁的熱門查詢，結果交給查詢快取（product_images 異動時 Hibernate 會自動失效）
+        query.setCacheable(true);
         return query.list();
     }
 
+    @Override
+    public List<ProductImage> findByProductIds(Collection<Long> productIds) {
+        List<ProductImage> results = new ArrayList<>();
+        if (productIds == null || productIds.isEmpty()) {
+            return results;
+        }
+        for (List<Long> chunk : InClause.chunks(new ArrayList<>(productIds))) {
+            Query<ProductImage> query = getCurrentSession()
+                    .createQuery("from ProductImage where product.id in (:productIds) "
+                            + "order by product.id asc, displayOrder asc, id asc", ProductImage.class);
+            query.setParameterList("productIds", chunk);
+            results.addAll(query.list());
+        }
+        return results;
+    }
+
     @Override
     public void save(ProductImage productImage) {
         getCurrentSession().saveOrUpdate(productImage);
@@ -53,5 +77,53 @@ public class ProductImageDAOImpl implements ProductImageDAO {
     public ProductImage findById(Long id) {
         return getCurrentSession().get(ProductImage.class, id);
     }
-}
 
+    @Override
+    public int updateProcessingState(String imageUrl, ProcessingState state, String variantWidths) {
+        // 一併更新異動時間，讓明細頁的內容版本（ETag）改變
+        Query<?> query = getCurrentSession().createQuery(
+                "update ProductImage set processingState = :state, variantWidths = :variantWidths, updatedAt = :now "
+                        + "where imageUrl = :imageUrl");
+        query.setParameter("state", state);
+        query.setParameter("variantWidths", variantWidths);
+        query.setParameter("now", LocalDateTime.now());
+        query.setParameter("imageUrl", imageUrl);
+        return query.executeUpdate();
+    }
+
+    @Override
+    public List<ProductImage> findWithoutVariants(long afterId, int limit) {
+        // 舊資料的處理狀態為 null，視同已完成；
+        // "240,480" 是改記實際寬度前的固定值（沒有主圖寬度），一併重新處理（剛好 480 寬的圖片也是這個值，重算結果相同）
+        Query<ProductImage> query = getCurrentSession().createQuery(
+                "from ProductImage where id > :afterId and (variantWidths is null or variantWidths = :legacyWidths) "
+                        + "and (processingState is null or processingState = :ready) order by id", ProductImage.class);
+        query.setParameter("afterId", afterId);
+        query.setParameter("legacyWidths", LEGACY_WIDTHS);
+        query.setParameter("ready", ProcessingState.READY);
+        query.setMaxResults(limit);
+        return query.list();
+    }
+
+    @Override
+    public long countReferences(String imageUrl) {
+        // 查詢前 Hibernate 會先送出同一交易中待刪除的紀錄，剛刪除的引用不會被算入
+        Long images = getCurrentSession()
+                .createQuery("select count(i) from ProductImage i where i.imageUrl = :imageUrl", Long.class)
+                .setParameter("imageUrl", imageUrl)
+                .uniqueResult();
+        Long products = getCurrentSession()
+                .createQuery("select count(p) from Product p where p.imageUrl = :imageUrl", Long.class)
+                .setParameter("imageUrl", imageUrl)
+                .uniqueResult();
+        return (images == null ? 0 : images) + (products == null ? 0 : products);
+    }
+
+    @Override
+    public String findVariantWidths(String imageUrl) {
+        return getCurrentSession()
+                .createQuery("select min(variantWidths) from ProductImage where imageUrl = :imageUrl", String.class)
+                .setParameter("imageUrl", imageUrl)
+                .uniqueResult();
+    }
+}
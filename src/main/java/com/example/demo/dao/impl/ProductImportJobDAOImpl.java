@@ -0,0 +1,44 @@
+package com.example.demo.dao.impl;
+
+import com.example.demo.dao.ProductImportJobDAO;
+import com.example.demo.model.ProductImportJob;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public class ProductImportJobDAOImpl implements ProductImportJobDAO {
+
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public ProductImportJobDAOImpl(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    private Session currentSession() {
+        return sessionFactory.getCurrentSession();
+    }
+
+    @Override
+    public ProductImportJob findByName(String jobName) {
+        return currentSession().get(ProductImportJob.class, jobName);
+    }
+
+    @Override
+    public void save(ProductImportJob job) {
+        job.setUpdatedAt(LocalDateTime.now());
+        // 主鍵是工作名稱（不是產生的），以 merge 判斷新增或更新
+        currentSession().merge(job);
+    }
+
+    @Override
+    public void delete(String jobName) {
+        currentSession().createQuery("delete from ProductImportJob where jobName = :jobName")
+                .setParameter("jobName", jobName)
+                .executeUpdate();
+    }
+}
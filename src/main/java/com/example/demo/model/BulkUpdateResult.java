@@ -0,0 +1,75 @@
+package com.example.demo.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批次編輯的結果，依輸入順序記錄每一列的處理狀態。
+ */
+public class BulkUpdateResult {
+
+    public enum Status {
+        UPDATED,
+        UNCHANGED,
+        NOT_FOUND,
+        INVALID
+    }
+
+    private final List<Outcome> outcomes = new ArrayList<>();
+
+    public void add(Long productId, Status status, String message) {
+        outcomes.add(new Outcome(productId, status, message));
+    }
+
+    public List<Outcome> getOutcomes() {
+        return Collections.unmodifiableList(outcomes);
+    }
+
+    public int count(Status status) {
+        int count = 0;
+        for (Outcome outcome : outcomes) {
+            if (outcome.status == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 未更新的列（找不到商品或資料不合法）
+     */
+    public List<Outcome> getFailures() {
+        List<Outcome> failures = new ArrayList<>();
+        for (Outcome outcome : outcomes) {
+            if (outcome.status == Status.NOT_FOUND || outcome.status == Status.INVALID) {
+                failures.add(outcome);
+            }
+        }
+        return failures;
+    }
+
+    public static final class Outcome {
+        private final Long productId;
+        private final Status status;
+        private final String message;
+
+        private Outcome(Long productId, Status status, String message) {
+            this.productId = productId;
+            this.status = status;
+            this.message = message;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.model;
+
+/**
+ * 單一快取區域的命中統計，供後台觀察快取效果。
+ */
+public class CacheStats {
+
+    private final String name;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long size;
+
+    public CacheStats(String name, long hitCount, long missCount, long putCount, long size) {
+        this.name = name;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.size = size;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public double getHitRatio() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s hits=%d misses=%d puts=%d size=%d hitRatio=%.2f%%",
+                name, hitCount, missCount, putCount, size, getHitRatio() * 100);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /api/products 的一頁結果；nextCursor 為 null 表示已經沒有下一頁。
+ */
+public class CatalogPage {
+
+    private final List<Map<String, Object>> items;
+    private final String nextCursor;
+
+    public CatalogPage(List<Map<String, Object>> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Map<String, Object>> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.model;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * /api/products 的查詢條件：分類、排序、游標位置、筆數與要回傳的欄位。
+ * 以游標（上一頁最後一筆的排序鍵）取代 offset，翻到再後面的頁也只掃描需要的列。
+ */
+public class CatalogQuery {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+    public static final String SORT_ID = "id";
+    public static final String SORT_PRICE = "price";
+    public static final String SORT_PRICE_DESC = "price_desc";
+    public static final List<String> SORTS = List.of(SORT_ID, SORT_PRICE, SORT_PRICE_DESC);
+    // 可選的欄位，未指定 fields 時全部回傳
+    public static final List<String> FIELDS = List.of(
+            "id", "name", "price", "category", "stock", "description", "coverImageUrl");
+
+    private String category;
+    private String sort = SORT_ID;
+    private Long afterId;
+    private BigDecimal afterPrice;
+    private int limit = DEFAULT_LIMIT;
+    private Set<String> fields = new LinkedHashSet<>(FIELDS);
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category == null || category.isBlank() ? null : category.trim();
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public boolean isPriceSort() {
+        return SORT_PRICE.equals(sort) || SORT_PRICE_DESC.equals(sort);
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public BigDecimal getAfterPrice() {
+        return afterPrice;
+    }
+
+    /**
+     * 設定游標：回傳排序鍵在這一筆之後的商品；依ID排序時 afterPrice 為 null
+     */
+    public void setAfter(Long afterId, BigDecimal afterPrice) {
+        this.afterId = afterId;
+        this.afterPrice = afterPrice;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(Set<String> fields) {
+        this.fields = new LinkedHashSet<>(fields);
+    }
+
+    /**
+     * 實際要查詢的欄位：要求的欄位加上游標需要的排序鍵
+     */
+    public Set<String> getSelectedColumns() {
+        Set<String> columns = new LinkedHashSet<>(fields);
+        columns.add("id");
+        if (isPriceSort()) {
+            columns.add("price");
+        }
+        return columns;
+    }
+}
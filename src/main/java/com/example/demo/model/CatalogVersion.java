@@ -0,0 +1,54 @@
+package com.example.demo.model;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 前台頁面內容版本的查詢投影：商品與圖片的筆數及最後異動時間。
+ * 筆數可反映刪除，最後異動時間反映新增與修改，兩者合起來作為 ETag / Last-Modified。
+ */
+public class CatalogVersion {
+
+    private final long productCount;
+    private final LocalDateTime productsModified;
+    private final long imageCount;
+    private final LocalDateTime imagesModified;
+
+    public CatalogVersion(Long productCount, LocalDateTime productsModified,
+                          Long imageCount, LocalDateTime imagesModified) {
+        this.productCount = productCount == null ? 0 : productCount;
+        this.productsModified = productsModified;
+        this.imageCount = imageCount == null ? 0 : imageCount;
+        this.imagesModified = imagesModified;
+    }
+
+    public long getProductCount() {
+        return productCount;
+    }
+
+    public long getImageCount() {
+        return imageCount;
+    }
+
+    /**
+     * 商品與圖片中最晚的異動時間（毫秒），沒有資料或舊資料沒有異動時間時為 -1
+     */
+    public long getLastModified() {
+        return Math.max(toMillis(productsModified), toMillis(imagesModified));
+    }
+
+    /**
+     * 強 ETag；variant 為同一網址下會呈現不同內容的條件（分類、角色、語系）
+     */
+    public String toETag(String variant) {
+        String source = variant + '|' + productCount + '|' + imageCount + '|' + getLastModified();
+        return '"' + DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8)) + '"';
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? -1 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
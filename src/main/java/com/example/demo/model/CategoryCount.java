@@ -0,0 +1,29 @@
+package com.example.demo.model;
+
+/**
+ * 分類統計的查詢投影：某分類在某上架狀態下的商品數量。
+ */
+public class CategoryCount {
+
+    private final String category;
+    private final boolean listed;
+    private final long count;
+
+    public CategoryCount(String category, Boolean listed, Long count) {
+        this.category = category;
+        this.listed = listed == null || listed;
+        this.count = count == null ? 0 : count;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public boolean isListed() {
+        return listed;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
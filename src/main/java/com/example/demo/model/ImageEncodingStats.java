@@ -0,0 +1,56 @@
+package com.example.demo.model;
+
+/**
+ * 圖片重新編碼的統計快照：上傳的原始檔大小與實際存放（對外提供）的主圖大小。
+ */
+public class ImageEncodingStats {
+
+    private final long images;
+    private final long pngToJpeg;
+    private final long sourceBytes;
+    private final long encodedBytes;
+
+    public ImageEncodingStats(long images, long pngToJpeg, long sourceBytes, long encodedBytes) {
+        this.images = images;
+        this.pngToJpeg = pngToJpeg;
+        this.sourceBytes = sourceBytes;
+        this.encodedBytes = encodedBytes;
+    }
+
+    public long getImages() {
+        return images;
+    }
+
+    /**
+     * 由 PNG 改存為 JPEG 的圖片數
+     */
+    public long getPngToJpeg() {
+        return pngToJpeg;
+    }
+
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    public long getEncodedBytes() {
+        return encodedBytes;
+    }
+
+    /**
+     * 每次下載主圖省下的位元組總和（原始檔比主圖小時為負值）
+     */
+    public long getSavedBytes() {
+        return sourceBytes - encodedBytes;
+    }
+
+    public double getSavedRatio() {
+        return sourceBytes == 0 ? 0 : (double) getSavedBytes() / sourceBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("image-encoding images=%d pngToJpeg=%d source=%dKB encoded=%dKB saved=%dKB (%.1f%%)",
+                images, pngToJpeg, sourceBytes / 1024, encodedBytes / 1024, getSavedBytes() / 1024,
+                getSavedRatio() * 100);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 站內圖片檔（以內容雜湊命名的網址）的共用紀錄：每個網址一筆，多台伺服器共用同一個資料庫。
+ * 上傳取得網址與刪檔清理都先以 SELECT ... FOR UPDATE 鎖住這一筆，同一個內容的上傳與刪檔不會交錯。
+ */
+@Entity
+@Table(name = "image_files")
+public class ImageFile {
+
+    @Id
+    @Column(name = "image_url", length = 255)
+    private String imageUrl;
+
+    // 最後一次由上傳或匯入取得網址的時間：引用紀錄可能還沒寫入
+    @Column(name = "issued_at")
+    private LocalDateTime issuedAt;
+
+    // 最後一筆引用被刪除的時間；null 表示沒有等待清理
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+
+    public ImageFile() {
+    }
+
+    public ImageFile(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public LocalDateTime getIssuedAt() {
+        return issuedAt;
+    }
+
+    public void setIssuedAt(LocalDateTime issuedAt) {
+        this.issuedAt = issuedAt;
+    }
+
+    public LocalDateTime getReleasedAt() {
+        return releasedAt;
+    }
+
+    public void setReleasedAt(LocalDateTime releasedAt) {
+        this.releasedAt = releasedAt;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.model;
+
+/**
+ * 圖片處理佇列的統計快照：佇列深度、工作執行緒與處理延遲（從上傳到完成）。
+ */
+public class ImagePipelineStats {
+
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final int activeWorkers;
+    private final int workers;
+    private final long submitted;
+    private final long completed;
+    private final long failed;
+    private final long totalWaitMillis;
+    private final long totalLatencyMillis;
+    private final long maxLatencyMillis;
+
+    public ImagePipelineStats(int queueDepth, int queueCapacity, int activeWorkers, int workers,
+                              long submitted, long completed, long failed,
+                              long totalWaitMillis, long totalLatencyMillis, long maxLatencyMillis) {
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.activeWorkers = activeWorkers;
+        this.workers = workers;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.failed = failed;
+        this.totalWaitMillis = totalWaitMillis;
+        this.totalLatencyMillis = totalLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * 尚未完成（排隊中或處理中）的工作數
+     */
+    public long getInFlight() {
+        return Math.max(submitted - completed - failed, 0);
+    }
+
+    /**
+     * 平均排隊等待時間（毫秒）
+     */
+    public double getAverageWaitMillis() {
+        long finished = completed + failed;
+        return finished == 0 ? 0 : (double) totalWaitMillis / finished;
+    }
+
+    /**
+     * 平均處理延遲（毫秒），從送入佇列到處理結束
+     */
+    public double getAverageLatencyMillis() {
+        long finished = completed + failed;
+        return finished == 0 ? 0 : (double) totalLatencyMillis / finished;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("image-pipeline queue=%d/%d workers=%d/%d submitted=%d completed=%d failed=%d "
+                        + "avgWait=%.1fms avgLatency=%.1fms maxLatency=%dms",
+                queueDepth, queueCapacity, activeWorkers, workers, submitted, completed, failed,
+                getAverageWaitMillis(), getAverageLatencyMillis(), maxLatencyMillis);
+    }
+}
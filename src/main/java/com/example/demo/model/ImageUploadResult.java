@@ -0,0 +1,93 @@
+package com.example.demo.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多圖片上傳的結果，依上傳檔案的順序記錄每張圖片的網址或失敗原因；
+ * 各檔案同時處理，但順序不受完成先後影響，displayOrder 可直接依 getImageUrls() 的順序給。
+ */
+public class ImageUploadResult {
+
+    private final List<Outcome> outcomes = new ArrayList<>();
+
+    public void addUploaded(String filename, String imageUrl) {
+        outcomes.add(new Outcome(filename, imageUrl, null));
+    }
+
+    public void addFailed(String filename, String message) {
+        outcomes.add(new Outcome(filename, null, message));
+    }
+
+    public List<Outcome> getOutcomes() {
+        return Collections.unmodifiableList(outcomes);
+    }
+
+    /**
+     * 上傳成功的圖片網址，依檔案順序
+     */
+    public List<String> getImageUrls() {
+        List<String> imageUrls = new ArrayList<>();
+        for (Outcome outcome : outcomes) {
+            if (outcome.isUploaded()) {
+                imageUrls.add(outcome.imageUrl);
+            }
+        }
+        return imageUrls;
+    }
+
+    public List<Outcome> getFailures() {
+        List<Outcome> failures = new ArrayList<>();
+        for (Outcome outcome : outcomes) {
+            if (!outcome.isUploaded()) {
+                failures.add(outcome);
+            }
+        }
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !getFailures().isEmpty();
+    }
+
+    /**
+     * 失敗的檔案與原因，例如「a.jpg（圖片文件大小不能超過 5MB）、b.png（…）」
+     */
+    public String getFailureSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Outcome failure : getFailures()) {
+            summary.append(summary.length() == 0 ? "" : "、")
+                    .append(failure.filename).append('（').append(failure.message).append('）');
+        }
+        return summary.toString();
+    }
+
+    public static final class Outcome {
+        private final String filename;
+        private final String imageUrl;
+        private final String message;
+
+        private Outcome(String filename, String imageUrl, String message) {
+            this.filename = filename;
+            this.imageUrl = imageUrl;
+            this.message = message;
+        }
+
+        public boolean isUploaded() {
+            return imageUrl != null;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public String getImageUrl() {
+            return imageUrl;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 商品圖片的多尺寸衍生檔：主圖 product_1_x.jpg（最大 800px）旁另存 product_1_x_w240.jpg、product_1_x_w480.jpg。
+ * 縮圖不放大，只產生比主圖窄的衍生寬度（衍生檔的實際寬度就是檔名上的寬度）。
+ * ProductImage.variantWidths 記錄實際寫出的寬度（逗號分隔，由小到大），最後一個是主圖的實際寬度，
+ * 例如 "240,480,800"、"240,300"（300px 寬的圖片）、"200"；null 表示還沒有記錄。
+ * 頁面以此組出 srcset，讓列表與縮圖只下載需要的大小，瀏覽器也依真實寬度挑選。
+ */
+public final class ImageVariants {
+
+    // 主圖的最大寬高
+    public static final int FULL_MAX_SIZE = 800;
+
+    // 衍生檔寬度，由小到大；調整後舊圖片仍依各自記錄的寬度產生網址，可再以回填工作補齊
+    private static final int[] DERIVATIVE_WIDTHS = {240, 480};
+
+    private static final String RESOURCE_PREFIX = "/resources/";
+
+    private ImageVariants() {
+    }
+
+    public static int[] derivativeWidths() {
+        return DERIVATIVE_WIDTHS.clone();
+    }
+
+    /**
+     * 主圖寬度為 fullWidth 時會產生的衍生寬度（比主圖窄的才產生）
+     */
+    public static List<Integer> derivativeWidthsFor(int fullWidth) {
+        List<Integer> widths = new ArrayList<>();
+        for (int width : DERIVATIVE_WIDTHS) {
+            if (width < fullWidth) {
+                widths.add(width);
+            }
+        }
+        return widths;
+    }
+
+    /**
+     * 寫入 ProductImage.variantWidths 的格式：衍生檔寬度後接主圖寬度
+     */
+    public static String widths(List<Integer> derivativeWidths, int fullWidth) {
+        StringBuilder widths = new StringBuilder();
+        for (int width : derivativeWidths) {
+            widths.append(width).append(',');
+        }
+        return widths.append(fullWidth).toString();
+    }
+
+    /**
+     * 指定寬度的衍生檔網址（或檔名）：在副檔名前加上 _w{寬度}
+     */
+    public static String variantUrl(String imageUrl, int width) {
+        int slash = imageUrl.lastIndexOf('/');
+        int dot = imageUrl.lastIndexOf('.');
+        String suffix = "_w" + width;
+        return dot > slash ? imageUrl.substring(0, dot) + suffix + imageUrl.substring(dot) : imageUrl + suffix;
+    }
+
+    /**
+     * 衍生檔與主圖組成的 srcset，每個網址標上實際寬度；沒有衍生檔時回傳 null（Thymeleaf 不會輸出該屬性）。
+     * 站內圖片（/resources/ 開頭）加上 contextPath，與頁面上的 src 一致。
+     */
+    public static String srcset(String imageUrl, String variantWidths, String contextPath) {
+        if (imageUrl == null || imageUrl.isEmpty() || variantWidths == null || variantWidths.isEmpty()) {
+            return null;
+        }
+        List<Integer> widths = new ArrayList<>();
+        for (String value : variantWidths.split(",")) {
+            try {
+                int width = Integer.parseInt(value.trim());
+                if (width > 0) {
+                    widths.add(width);
+                }
+            } catch (NumberFormatException e) {
+                // 略過無法解析的值
+            }
+        }
+        if (widths.size() < 2) {
+            return null;
+        }
+        String prefix = imageUrl.startsWith(RESOURCE_PREFIX) && contextPath != null ? contextPath : "";
+        int fullWidth = widths.get(widths.size() - 1);
+        StringBuilder srcset = new StringBuilder();
+        for (int width : widths.subList(0, widths.size() - 1)) {
+            if (width < fullWidth) {
+                srcset.append(prefix).append(variantUrl(imageUrl, width)).append(' ').append(width).append("w, ");
+            }
+        }
+        if (srcset.length() == 0) {
+            return null;
+        }
+        return srcset.append(prefix).append(imageUrl).append(' ').append(fullWidth).append('w').toString();
+    }
+}
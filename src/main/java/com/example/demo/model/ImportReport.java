@@ -0,0 +1,143 @@
+package com.example.demo.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品匯入的進度與結果。匯入在背景執行緒進行，後台頁面隨時讀取，計數器皆可並行讀寫。
+ * 新增、拒絕與圖片數量為累計值（續傳時從檢查點接續），每秒列數只計算本次執行。
+ */
+public class ImportReport {
+
+    public static final int MAX_MESSAGES = 100;
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final String jobName;
+    private final long resumedFromRecord;
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final AtomicLong rowsProcessed = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong imagesStored = new AtomicLong();
+    private final AtomicLong imageFailures = new AtomicLong();
+    private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+    private volatile State state = State.RUNNING;
+    private volatile String failureMessage;
+    private volatile long finishedAtMillis;
+
+    public ImportReport(String jobName, long resumedFromRecord, long inserted, long rejected, long imagesStored) {
+        this.jobName = jobName;
+        this.resumedFromRecord = resumedFromRecord;
+        this.inserted.set(inserted);
+        this.rejected.set(rejected);
+        this.imagesStored.set(imagesStored);
+    }
+
+    public void rowsProcessed(long count) {
+        rowsProcessed.addAndGet(count);
+    }
+
+    public void inserted(long count) {
+        inserted.addAndGet(count);
+    }
+
+    public void imagesStored(long count) {
+        imagesStored.addAndGet(count);
+    }
+
+    public void rejected(long recordNumber, String reason) {
+        rejected.incrementAndGet();
+        addMessage("第 " + recordNumber + " 筆：" + reason);
+    }
+
+    public void imageFailed(long recordNumber, String reason) {
+        imageFailures.incrementAndGet();
+        addMessage("第 " + recordNumber + " 筆圖片未匯入：" + reason);
+    }
+
+    public void completed() {
+        finishedAtMillis = System.currentTimeMillis();
+        state = State.COMPLETED;
+    }
+
+    public void failed(String message) {
+        finishedAtMillis = System.currentTimeMillis();
+        failureMessage = message;
+        state = State.FAILED;
+    }
+
+    private void addMessage(String message) {
+        synchronized (messages) {
+            if (messages.size() < MAX_MESSAGES) {
+                messages.add(message);
+            }
+        }
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * 續傳時檢查點記錄的最後一筆記錄編號，0 表示從頭開始
+     */
+    public long getResumedFromRecord() {
+        return resumedFromRecord;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed.get();
+    }
+
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getImagesStored() {
+        return imagesStored.get();
+    }
+
+    public long getImageFailures() {
+        return imageFailures.get();
+    }
+
+    public List<String> getMessages() {
+        synchronized (messages) {
+            return new ArrayList<>(messages);
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    public long getElapsedMillis() {
+        long end = finishedAtMillis == 0 ? System.currentTimeMillis() : finishedAtMillis;
+        return end - startedAtMillis;
+    }
+
+    /**
+     * 本次執行每秒處理的列數（含被拒絕的列）
+     */
+    public double getRowsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed <= 0 ? 0 : rowsProcessed.get() * 1000.0 / elapsed;
+    }
+}
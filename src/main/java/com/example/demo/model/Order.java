@@ -10,7 +10,10 @@ import java.util.Collections;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // 使用者的最近訂單：依建立時間倒序取前幾筆
+        @Index(name = "idx_orders_user_created", columnList = "user_id, created_at, id")
+})
 public class Order {
 
     @Id
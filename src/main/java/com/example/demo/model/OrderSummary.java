@@ -0,0 +1,45 @@
+package com.example.demo.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 首頁「最近訂單」的唯讀查詢投影：只含訂單本身的欄位，不載入使用者與訂單明細。
+ */
+public class OrderSummary {
+
+    private final Long id;
+    private final LocalDateTime createdAt;
+    private final OrderStatus status;
+    private final BigDecimal totalPrice;
+    private final PaymentMethod paymentMethod;
+
+    public OrderSummary(Long id, LocalDateTime createdAt, OrderStatus status, BigDecimal totalPrice,
+                        PaymentMethod paymentMethod) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.status = status;
+        this.totalPrice = totalPrice == null ? BigDecimal.ZERO : totalPrice;
+        this.paymentMethod = paymentMethod;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    public PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 單頁查詢結果，附帶總筆數以計算頁數。
+ */
+public class PageResult<T> {
+
+    private final List<T> content;
+    private final int page;
+    private final int pageSize;
+    private final long totalElements;
+
+    public PageResult(List<T> content, int page, int pageSize, long totalElements) {
+        this.content = content == null ? Collections.emptyList() : content;
+        this.page = page;
+        this.pageSize = pageSize;
+        this.totalElements = totalElements;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public int getTotalPages() {
+        if (pageSize <= 0) {
+            return 0;
+        }
+        return (int) ((totalElements + pageSize - 1) / pageSize);
+    }
+}
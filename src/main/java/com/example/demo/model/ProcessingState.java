@@ -0,0 +1,22 @@
+package com.example.demo.model;
+
+/**
+ * 商品圖片的背景處理狀態：上傳後先保存原始檔（PENDING），縮圖完成後為 READY，處理失敗時為 FAILED。
+ * 對外的圖片網址在 READY 之前沒有內容，原始檔不會對外提供。
+ */
+public enum ProcessingState {
+
+    PENDING("處理中"),
+    READY("完成"),
+    FAILED("處理失敗");
+
+    private final String displayName;
+
+    ProcessingState(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
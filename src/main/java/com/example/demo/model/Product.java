@@ -1,12 +1,24 @@
 package com.example.demo.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // /api/products 的游標分頁：依分類或全部商品，以價格 + ID 為排序鍵
+        @Index(name = "idx_products_category_price", columnList = "category, price, id"),
+        @Index(name = "idx_products_price", columnList = "price, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Product {
 
     @Id
@@ -34,9 +46,20 @@ public class Product {
     @Column(nullable = false)
     private Boolean listed = true;
 
+    // 最後異動時間，作為前台頁面 ETag / Last-Modified 的依據
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<ProductImage> images = new ArrayList<>();
 
+    @PrePersist
+    @PreUpdate
+    public void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -101,6 +124,14 @@ public class Product {
         this.listed = listed == null ? true : listed;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public List<ProductImage> getImages() {
         return images;
     }
@@ -110,16 +141,35 @@ public class Product {
     }
 
     /**
-     * 獲取封面圖片URL，如果沒有封面則返回第一張圖片，如果沒有圖片則返回imageUrl
+     * 獲取封面圖片URL，如果沒有封面則返回第一張圖片，如果沒有圖片則返回imageUrl。
+     * 只考慮處理完成（READY）的圖片；imageUrl 指向還沒處理完成的圖片時也不使用，返回null
      */
     public String getCoverImageUrl() {
-        if (images != null && !images.isEmpty()) {
-            ProductImage coverImage = images.stream()
-                    .filter(img -> img.getIsCover() != null && img.getIsCover())
-                    .findFirst()
-                    .orElse(images.get(0));
+        ProductImage coverImage = getCoverImage();
+        if (coverImage != null) {
             return coverImage.getImageUrl();
         }
-        return imageUrl;
+        boolean unprocessed = images != null && images.stream()
+                .anyMatch(img -> !img.isReady() && Objects.equals(img.getImageUrl(), imageUrl));
+        return unprocessed ? null : imageUrl;
+    }
+
+    /**
+     * 封面圖片的衍生尺寸（見 ImageVariants），封面不是 ProductImage 時為 null
+     */
+    public String getCoverImageVariantWidths() {
+        ProductImage coverImage = getCoverImage();
+        return coverImage != null ? coverImage.getVariantWidths() : null;
+    }
+
+    private ProductImage getCoverImage() {
+        if (images == null || images.isEmpty()) {
+            return null;
+        }
+        List<ProductImage> ready = images.stream().filter(ProductImage::isReady).collect(Collectors.toList());
+        return ready.stream()
+                .filter(img -> img.getIsCover() != null && img.getIsCover())
+                .findFirst()
+                .orElse(ready.isEmpty() ? null : ready.get(0));
     }
 }
\ No newline at end of file
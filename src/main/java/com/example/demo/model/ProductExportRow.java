@@ -0,0 +1,78 @@
+package com.example.demo.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 商品目錄匯出的一列：商品欄位加上所有圖片網址（封面優先，依顯示順序）。
+ * 匯出時逐筆產生、寫出後即丟棄，不會累積整個目錄。
+ */
+public class ProductExportRow {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final String category;
+    private final Integer stock;
+    private final Boolean listed;
+    private final String imageUrl;
+    private final LocalDateTime updatedAt;
+    private final List<String> imageUrls;
+
+    public ProductExportRow(Long id, String name, String description, BigDecimal price, String category,
+                            Integer stock, Boolean listed, String imageUrl, LocalDateTime updatedAt,
+                            List<String> imageUrls) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.category = category;
+        this.stock = stock;
+        this.listed = listed;
+        this.imageUrl = imageUrl;
+        this.updatedAt = updatedAt;
+        this.imageUrls = List.copyOf(imageUrls);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public Boolean getListed() {
+        return listed;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public List<String> getImageUrls() {
+        return imageUrls;
+    }
+}
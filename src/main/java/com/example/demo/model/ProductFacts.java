@@ -0,0 +1,70 @@
+package com.example.demo.model;
+
+import java.math.BigDecimal;
+
+/**
+ * 購物車與結帳流程需要的商品基本資料（名稱、價格、上架狀態、封面）。
+ * 只在後台編輯時變動，可以放在快取中；庫存不在此類別，必須在交易中讀取。
+ */
+public class ProductFacts {
+
+    private final Long id;
+    private final String name;
+    private final BigDecimal price;
+    private final boolean listed;
+    private final String coverImageUrl;
+    private final String coverImageVariantWidths;
+
+    public ProductFacts(Long id, String name, BigDecimal price, Boolean listed, String coverImageUrl) {
+        this(id, name, price, listed, coverImageUrl, null);
+    }
+
+    public ProductFacts(Long id, String name, BigDecimal price, Boolean listed, String coverImageUrl,
+                        String coverImageVariantWidths) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.listed = listed == null || listed;
+        this.coverImageUrl = coverImageUrl;
+        this.coverImageVariantWidths = coverImageVariantWidths;
+    }
+
+    /**
+     * 由受管理的商品建立；需在交易中呼叫，封面圖片會讀取 images 集合
+     */
+    public static ProductFacts of(Product product) {
+        return new ProductFacts(product.getId(), product.getName(), product.getPrice(), product.getListed(),
+                product.getCoverImageUrl(), product.getCoverImageVariantWidths());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public boolean isListed() {
+        return listed;
+    }
+
+    public String getCoverImageUrl() {
+        return coverImageUrl;
+    }
+
+    public String getCoverImageVariantWidths() {
+        return coverImageVariantWidths;
+    }
+
+    /**
+     * 封面圖片的 srcset，沒有衍生檔時為 null
+     */
+    public String getCoverSrcset(String contextPath) {
+        return ImageVariants.srcset(coverImageUrl, coverImageVariantWidths, contextPath);
+    }
+}
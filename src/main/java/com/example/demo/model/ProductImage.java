@@ -1,9 +1,18 @@
 package com.example.demo.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "product_images")
+@Table(name = "product_images", indexes = {
+        // 以內容雜湊命名的圖片檔由多筆紀錄共用，刪除前以網址計算引用數
+        @Index(name = "idx_product_images_url", columnList = "image_url")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ProductImage {
 
     @Id
@@ -23,6 +32,24 @@ public class ProductImage {
     @Column(name = "display_order", nullable = false)
     private Integer displayOrder = 0;
 
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // 舊資料沒有此欄位（null），視為已處理完成
+    @Enumerated(EnumType.STRING)
+    @Column(name = "processing_state", length = 16)
+    private ProcessingState processingState;
+
+    // 已產生的衍生尺寸寬度（見 ImageVariants），null 表示只有主圖
+    @Column(name = "variant_widths", length = 32)
+    private String variantWidths;
+
+    @PrePersist
+    @PreUpdate
+    public void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -55,6 +82,51 @@ public class ProductImage {
         this.isCover = isCover == null ? false : isCover;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public ProcessingState getProcessingState() {
+        return processingState == null ? ProcessingState.READY : processingState;
+    }
+
+    public void setProcessingState(ProcessingState processingState) {
+        this.processingState = processingState;
+    }
+
+    @Transient
+    public boolean isProcessing() {
+        return getProcessingState() == ProcessingState.PENDING;
+    }
+
+    /**
+     * 處理完成、對外網址已有內容；前台只顯示這些圖片
+     */
+    @Transient
+    public boolean isReady() {
+        return getProcessingState() == ProcessingState.READY;
+    }
+
+    public String getVariantWidths() {
+        return variantWidths;
+    }
+
+    public void setVariantWidths(String variantWidths) {
+        this.variantWidths = variantWidths;
+    }
+
+    /**
+     * 頁面用的 srcset，沒有衍生檔時為 null
+     */
+    @Transient
+    public String getSrcset(String contextPath) {
+        return ImageVariants.srcset(imageUrl, variantWidths, contextPath);
+    }
+
     public Integer getDisplayOrder() {
         return displayOrder;
     }
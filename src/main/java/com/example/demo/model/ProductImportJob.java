@@ -0,0 +1,98 @@
+package com.example.demo.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 大量匯入的檢查點：每個匯入工作（匯入目錄下的子目錄名稱）一筆，記錄最後一批已提交的 CSV 記錄編號與累計數量。
+ * 與該批商品在同一個交易中寫入，提交的商品與續傳位置不會不一致。
+ */
+@Entity
+@Table(name = "product_import_jobs")
+public class ProductImportJob {
+
+    @Id
+    @Column(name = "job_name", length = 64)
+    private String jobName;
+
+    @Column(name = "last_record", nullable = false)
+    private long lastRecord;
+
+    @Column(nullable = false)
+    private long inserted;
+
+    @Column(nullable = false)
+    private long rejected;
+
+    @Column(nullable = false)
+    private long images;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public ProductImportJob() {
+    }
+
+    public ProductImportJob(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public long getLastRecord() {
+        return lastRecord;
+    }
+
+    public void setLastRecord(long lastRecord) {
+        this.lastRecord = lastRecord;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getImages() {
+        return images;
+    }
+
+    public void setImages(long images) {
+        this.images = images;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
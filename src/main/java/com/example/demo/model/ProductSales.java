@@ -0,0 +1,29 @@
+package com.example.demo.model;
+
+/**
+ * 銷售統計的查詢投影：某商品在一段訂單明細範圍內的售出數量，以及該範圍內最大的明細ID。
+ */
+public class ProductSales {
+
+    private final Long productId;
+    private final long units;
+    private final long lastItemId;
+
+    public ProductSales(Long productId, Long units, Long lastItemId) {
+        this.productId = productId;
+        this.units = units == null ? 0 : units;
+        this.lastItemId = lastItemId == null ? 0 : lastItemId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public long getLastItemId() {
+        return lastItemId;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.model;
+
+/**
+ * 後台商品列表的查詢條件（分類、關鍵字、排序與分頁），交由 DAO 組成資料庫查詢。
+ */
+public class ProductSearchCriteria {
+
+    public static final int DEFAULT_PAGE_SIZE = 10;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final String SORT_RELEVANCE = "relevance";
+
+    private String category;
+    private String search;
+    private String sortBy = "id";
+    private boolean descending;
+    private int page = 1;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category == null || category.isBlank() ? null : category;
+    }
+
+    public String getSearch() {
+        return search;
+    }
+
+    public void setSearch(String search) {
+        this.search = search == null || search.isBlank() ? null : search.trim();
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public void setSortBy(String sortBy) {
+        this.sortBy = sortBy == null || sortBy.isBlank() ? "id" : sortBy.toLowerCase();
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public void setDescending(boolean descending) {
+        this.descending = descending;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = Math.max(page, 1);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            this.pageSize = DEFAULT_PAGE_SIZE;
+        } else {
+            this.pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+        }
+    }
+
+    public int getOffset() {
+        return (page - 1) * pageSize;
+    }
+}
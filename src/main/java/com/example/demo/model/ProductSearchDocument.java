@@ -0,0 +1,40 @@
+package com.example.demo.model;
+
+/**
+ * 搜尋索引用的查詢投影：只含會被索引的欄位，重建索引時不需要載入完整商品實體。
+ */
+public class ProductSearchDocument {
+
+    private final Long id;
+    private final String name;
+    private final String category;
+    private final String description;
+
+    public ProductSearchDocument(Long id, String name, String category, String description) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.description = description;
+    }
+
+    public static ProductSearchDocument of(Product product) {
+        return new ProductSearchDocument(product.getId(), product.getName(), product.getCategory(),
+                product.getDescription());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.model;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品列表用的唯讀查詢投影：只含列表會顯示的欄位，封面圖片在同一個查詢中決定。
+ * 不是受管理的實體，不會進入 Session 的髒值檢查。
+ */
+public class ProductSummary {
+
+    // 列表只顯示描述前 80 字，多取一字讓 #strings.abbreviate 判斷是否需要省略號
+    public static final int DESCRIPTION_EXCERPT_LENGTH = 81;
+
+    private final Long id;
+    private final String name;
+    private final BigDecimal price;
+    private final String category;
+    private final Integer stock;
+    private final Boolean listed;
+    private final String descriptionExcerpt;
+    private final String coverImageUrl;
+    private final String coverImageVariantWidths;
+
+    public ProductSummary(Long id, String name, BigDecimal price, String category, Integer stock,
+                          Boolean listed, String descriptionExcerpt, String coverImageUrl) {
+        this(id, name, price, category, stock, listed, descriptionExcerpt, coverImageUrl, null);
+    }
+
+    public ProductSummary(Long id, String name, BigDecimal price, String category, Integer stock,
+                          Boolean listed, String descriptionExcerpt, String coverImageUrl,
+                          String coverImageVariantWidths) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.category = category;
+        this.stock = stock == null ? 0 : stock;
+        this.listed = listed == null || listed;
+        this.descriptionExcerpt = descriptionExcerpt;
+        this.coverImageUrl = coverImageUrl;
+        this.coverImageVariantWidths = coverImageVariantWidths;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public Boolean getListed() {
+        return listed;
+    }
+
+    public String getDescriptionExcerpt() {
+        return descriptionExcerpt;
+    }
+
+    /**
+     * 封面圖片；沒有標記封面時取排序最前的圖片，沒有圖片時為商品的 imageUrl
+     */
+    public String getCoverImageUrl() {
+        return coverImageUrl;
+    }
+
+    public String getCoverImageVariantWidths() {
+        return coverImageVariantWidths;
+    }
+
+    /**
+     * 封面圖片的 srcset，沒有衍生檔時為 null
+     */
+    public String getCoverSrcset(String contextPath) {
+        return ImageVariants.srcset(coverImageUrl, coverImageVariantWidths, contextPath);
+    }
+}
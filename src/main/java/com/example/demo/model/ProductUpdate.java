@@ -0,0 +1,70 @@
+package com.example.demo.model;
+
+import java.math.BigDecimal;
+
+/**
+ * 批次編輯中的一列：欄位為 null 表示不修改該欄位。
+ */
+public class ProductUpdate {
+
+    private final Long productId;
+    private String name;
+    private String category;
+    private BigDecimal price;
+    private Integer stock;
+    private Boolean listed;
+
+    public ProductUpdate(Long productId) {
+        this.productId = productId;
+    }
+
+    public static ProductUpdate stock(Long productId, Integer stock) {
+        ProductUpdate update = new ProductUpdate(productId);
+        update.setStock(stock);
+        return update;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name == null ? null : name.trim();
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category == null ? null : category.trim();
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public Boolean getListed() {
+        return listed;
+    }
+
+    public void setListed(Boolean listed) {
+        this.listed = listed;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.model;
+
+/**
+ * 匯入後已存放的圖片：對外網址與實際寫出的寬度（ProductImage.variantWidths 的格式，見 ImageVariants）。
+ */
+public class StoredImage {
+
+    private final String imageUrl;
+    private final String variantWidths;
+
+    public StoredImage(String imageUrl, String variantWidths) {
+        this.imageUrl = imageUrl;
+        this.variantWidths = variantWidths;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    /**
+     * 相同內容的上傳還在背景處理時為 null，由處理完成時一併更新
+     */
+    public String getVariantWidths() {
+        return variantWidths;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CacheStats;
+
+import java.util.List;
+
+public interface CacheStatisticsService {
+
+    /**
+     * 取得目前各快取的命中/未命中統計
+     */
+    List<CacheStats> getCacheStats();
+}
@@ -2,6 +2,7 @@ package com.example.demo.service;
 
 import com.example.demo.model.Cart;
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductFacts;
 
 import java.math.BigDecimal;
 
@@ -9,6 +10,11 @@ public interface CartService {
 
     void addItem(Cart cart, Product product, int quantity);
 
+    /**
+     * 以快取的商品基本資料加入購物車，不需載入商品實體
+     */
+    void addItem(Cart cart, ProductFacts product, int quantity);
+
     void updateItemQuantity(Cart cart, Long productId, int quantity);
 
     void removeItem(Cart cart, Long productId);
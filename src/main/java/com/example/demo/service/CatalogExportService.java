@@ -0,0 +1,17 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+public interface CatalogExportService {
+
+    /**
+     * 將整個商品目錄以 CSV 串流寫出（第一列為欄位名稱），回傳匯出的商品數量
+     */
+    long exportCsv(Writer writer) throws IOException;
+
+    /**
+     * 將整個商品目錄以 JSON 陣列串流寫出，回傳匯出的商品數量
+     */
+    long exportJson(Writer writer) throws IOException;
+}
@@ -0,0 +1,154 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CategoryCount;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 記憶體中的分類索引：分類 → 上架/下架商品數量。
+ * 啟動時以一次 GROUP BY 建立，之後由商品寫入路徑增量維護；讀取只看不可變快照，不需鎖。
+ * 異動在交易提交後才套用，回滾的寫入不會影響索引。
+ */
+@Component
+public class CategoryIndex {
+
+    // [0] = 上架數量, [1] = 下架數量
+    private final Map<String, long[]> counts = new HashMap<>();
+    private boolean built;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyList(), false);
+
+    public boolean isInitialized() {
+        return snapshot.initialized;
+    }
+
+    /**
+     * 以資料庫統計結果整個重建索引
+     */
+    public synchronized void rebuild(List<CategoryCount> rows) {
+        counts.clear();
+        for (CategoryCount row : rows) {
+            adjust(row.getCategory(), row.isListed(), row.getCount());
+        }
+        built = true;
+        publish();
+    }
+
+    /**
+     * 所有分類（不分上下架），不分大小寫排序
+     */
+    public List<String> getCategories() {
+        return snapshot.categories;
+    }
+
+    /**
+     * 至少有一個上架商品的分類，給前台使用
+     */
+    public List<String> getListedCategories() {
+        Snapshot current = snapshot;
+        List<String> listed = new ArrayList<>();
+        for (String category : current.categories) {
+            if (current.counts.get(category)[0] > 0) {
+                listed.add(category);
+            }
+        }
+        return listed;
+    }
+
+    /**
+     * 各分類的商品總數（上架 + 下架）
+     */
+    public Map<String, Long> getCategoryCounts() {
+        Snapshot current = snapshot;
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (String category : current.categories) {
+            long[] value = current.counts.get(category);
+            totals.put(category, value[0] + value[1]);
+        }
+        return totals;
+    }
+
+    /**
+     * 商品新增或更新後呼叫；新商品的舊分類傳 null
+     */
+    public void productChanged(CategoryCount previous, String newCategory, Boolean newListed) {
+        TransactionCallbacks.afterCommit(() -> applyChange(previous, newCategory, newListed));
+    }
+
+    public void productRemoved(CategoryCount previous) {
+        if (previous == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> applyChange(previous, null, null));
+    }
+
+    /**
+     * 整個分類的商品改到另一個分類（分類更名或刪除分類時）
+     */
+    public void categoryMoved(String oldCategory, String newCategory) {
+        TransactionCallbacks.afterCommit(() -> applyMove(oldCategory, newCategory));
+    }
+
+    private synchronized void applyChange(CategoryCount previous, String newCategory, Boolean newListed) {
+        // 尚未建立時略過，之後的重建會直接讀到最新資料
+        if (!built) {
+            return;
+        }
+        if (previous != null) {
+            adjust(previous.getCategory(), previous.isListed(), -1);
+        }
+        if (newCategory != null) {
+            adjust(newCategory, newListed == null || newListed, 1);
+        }
+        publish();
+    }
+
+    private synchronized void applyMove(String oldCategory, String newCategory) {
+        if (!built) {
+            return;
+        }
+        long[] moved = counts.remove(oldCategory);
+        if (moved != null && newCategory != null) {
+            adjust(newCategory, true, moved[0]);
+            adjust(newCategory, false, moved[1]);
+        }
+        publish();
+    }
+
+    private void adjust(String category, boolean listed, long delta) {
+        if (category == null || category.isBlank() || delta == 0) {
+            return;
+        }
+        long[] value = counts.computeIfAbsent(category, key -> new long[2]);
+        value[listed ? 0 : 1] = Math.max(0, value[listed ? 0 : 1] + delta);
+        if (value[0] == 0 && value[1] == 0) {
+            counts.remove(category);
+        }
+    }
+
+    private void publish() {
+        Map<String, long[]> copy = new HashMap<>();
+        counts.forEach((category, value) -> copy.put(category, value.clone()));
+        List<String> categories = new ArrayList<>(copy.keySet());
+        categories.sort(String.CASE_INSENSITIVE_ORDER);
+        snapshot = new Snapshot(copy, Collections.unmodifiableList(categories), built);
+    }
+
+    private static final class Snapshot {
+        private final Map<String, long[]> counts;
+        private final List<String> categories;
+        private final boolean initialized;
+
+        private Snapshot(Map<String, long[]> counts, List<String> categories, boolean initialized) {
+            this.counts = counts;
+            this.categories = categories;
+            this.initialized = initialized;
+        }
+    }
+}
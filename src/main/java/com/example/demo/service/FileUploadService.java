@@ -1,23 +1,61 @@
 package com.example.demo.service;
 
+import com.example.demo.model.ImageEncodingStats;
+import com.example.demo.model.ImageUploadResult;
+import com.example.demo.model.StoredImage;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
 public interface FileUploadService {
+    /**
+     * 上傳商品圖片；檔案以內容雜湊命名，相同內容的圖片回傳同一個網址。
+     * 網址在背景處理完成（ProcessingState.READY）後才有內容，寫入後不再改變
+     */
     String uploadProductImage(MultipartFile file, Long productId) throws IOException;
+
+    /**
+     * 刪除圖片檔與衍生檔；檔案可能被多筆紀錄共用，只由 ImageFileSweeper 在寬限期過後、鎖住紀錄並確認沒有引用時呼叫
+     */
     void deleteProductImage(String imagePath) throws IOException;
     
     /**
-     * 上傳多張商品圖片
+     * 上傳多張商品圖片，各檔案在共用的上傳執行緒池同時處理；空檔案略過
      * @param files 圖片文件列表
      * @param productId 商品ID
-     * @return 圖片URL列表
-     * @throws IOException 上傳失敗時拋出
+     * @return 依檔案順序的上傳結果；單一檔案失敗不影響其他檔案
      */
-    List<String> uploadProductImages(List<MultipartFile> files, Long productId) throws IOException;
+    ImageUploadResult uploadProductImages(List<MultipartFile> files, Long productId);
     
+    /**
+     * 匯入用：讀取伺服器本機的圖片檔，以與上傳相同的方式縮圖並儲存，同時產生比主圖窄的衍生尺寸；
+     * 相同內容的上傳正在背景處理時，由背景處理寫入
+     * @param source 圖片檔路徑
+     * @return 圖片URL與實際寫出的寬度
+     * @throws IOException 檔案不存在、格式不支援或無法讀取時拋出
+     */
+    StoredImage importProductImage(Path source) throws IOException;
+
+    /**
+     * 回填用：為已存在的站內圖片產生衍生尺寸（有原始檔時由原始檔產生）
+     * @param imageUrl 圖片URL
+     * @return 實際寫出的寬度（衍生檔與主圖），寫入 ProductImage.variantWidths
+     * @throws IOException 不是站內圖片、找不到檔案或無法讀取時拋出
+     */
+    String generateVariants(String imageUrl) throws IOException;
+
+    /**
+     * 圖片是否存放在目前設定的圖片儲存（由這裡上傳的圖片）；外部網址回傳 false
+     */
+    boolean isManagedImage(String imageUrl);
+
+    /**
+     * 重新編碼主圖的統計：原始檔與實際存放的大小，見 /admin/image-stats
+     */
+    ImageEncodingStats getEncodingStats();
+
     /**
      * 驗證圖片文件
      * @param file 圖片文件
@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import com.example.demo.dao.ImageFileDAO;
+import com.example.demo.model.ImageFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 以資料庫的 image_files 紀錄（見 ImageFile）序列化同一個圖片網址的上傳與刪檔，多台伺服器共用同一個儲存位置時也成立。
+ * 上傳在鎖住紀錄時確認檔案是否存在並記下取得網址的時間；最後一筆引用刪除時只標記，
+ * 由 ImageFileSweeper 在寬限期過後鎖住同一筆紀錄、重新計算引用後才刪檔。
+ * 每個操作都在自己的交易中執行（REQUIRES_NEW），可在其他交易提交後的回呼中呼叫。
+ */
+@Component
+public class ImageFileRegistry {
+
+    private final ImageFileDAO imageFileDAO;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ImageFileRegistry(ImageFileDAO imageFileDAO, PlatformTransactionManager transactionManager) {
+        this(imageFileDAO, new TransactionTemplate(transactionManager));
+    }
+
+    public ImageFileRegistry(ImageFileDAO imageFileDAO, TransactionTemplate transactionTemplate) {
+        this.imageFileDAO = imageFileDAO;
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager(), transactionTemplate);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 鎖住網址的紀錄、記下取得網址的時間，在持有鎖時執行 action（確認檔案是否已存在、寫入檔案），
+     * 同一個網址的清理會等 action 完成、交易提交後才繼續
+     */
+    public <T> T issue(String imageUrl, ImageFileAction<T> action) throws IOException {
+        AtomicReference<T> result = new AtomicReference<>();
+        while (true) {
+            createIfAbsent(imageUrl);
+            Boolean locked;
+            try {
+                locked = transactionTemplate.execute(status -> {
+                    ImageFile imageFile = imageFileDAO.lock(imageUrl);
+                    if (imageFile == null) {
+                        // 清理在取得鎖之前刪除了檔案與紀錄：重新建立後再鎖一次
+                        return false;
+                    }
+                    imageFile.setIssuedAt(LocalDateTime.now());
+                    try {
+                        result.set(action.run());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (Boolean.TRUE.equals(locked)) {
+                return result.get();
+            }
+        }
+    }
+
+    /**
+     * 最後一筆引用已刪除：標記等待清理，寬限期過後由 ImageFileSweeper 確認仍沒有引用才刪檔
+     */
+    public void release(String imageUrl) {
+        createIfAbsent(imageUrl);
+        transactionTemplate.executeWithoutResult(status -> {
+            ImageFile imageFile = imageFileDAO.lock(imageUrl);
+            if (imageFile != null) {
+                imageFile.setReleasedAt(LocalDateTime.now());
+            }
+        });
+    }
+
+    /**
+     * 舊圖片與第一次上傳的內容還沒有紀錄；其他伺服器同時建立時沿用對方的紀錄
+     */
+    private void createIfAbsent(String imageUrl) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (imageFileDAO.findByImageUrl(imageUrl) == null) {
+                    imageFileDAO.create(new ImageFile(imageUrl));
+                }
+            });
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            // 違反唯一鍵：紀錄已由其他請求建立
+        }
+    }
+
+    /**
+     * 持有圖片紀錄的鎖時執行的工作
+     */
+    @FunctionalInterface
+    public interface ImageFileAction<T> {
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import com.example.demo.dao.ImageFileDAO;
+import com.example.demo.dao.ProductImageDAO;
+import com.example.demo.model.ImageFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 刪除已沒有引用的圖片檔：最後一筆引用刪除時只標記（ImageFileRegistry.release），寬限期過後才在這裡處理。
+ * 每張圖片在自己的交易中鎖住 image_files 的紀錄，重新計算引用；寬限期內有上傳取得同一個網址時留到下一輪，
+ * 仍有引用時取消標記。刪檔與上傳以同一筆紀錄序列化，多台伺服器同時清理也只會有一台刪除。
+ */
+@Component
+public class ImageFileSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageFileSweeper.class);
+    private static final int BATCH_SIZE = 100;
+
+    private final ImageFileDAO imageFileDAO;
+    private final ProductImageDAO productImageDAO;
+    private final FileUploadService fileUploadService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration gracePeriod;
+
+    @Autowired
+    public ImageFileSweeper(ImageFileDAO imageFileDAO, ProductImageDAO productImageDAO,
+                            FileUploadService fileUploadService, PlatformTransactionManager transactionManager,
+                            Environment environment) {
+        this(imageFileDAO, productImageDAO, fileUploadService, new TransactionTemplate(transactionManager),
+                Duration.ofMinutes(environment.getProperty("image.delete.grace-minutes", Long.class, 10L)));
+    }
+
+    public ImageFileSweeper(ImageFileDAO imageFileDAO, ProductImageDAO productImageDAO,
+                            FileUploadService fileUploadService, TransactionTemplate transactionTemplate,
+                            Duration gracePeriod) {
+        this.imageFileDAO = imageFileDAO;
+        this.productImageDAO = productImageDAO;
+        this.fileUploadService = fileUploadService;
+        this.transactionTemplate = transactionTemplate;
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * 處理所有超過寬限期的標記，回傳刪除的圖片數
+     */
+    public int sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+        int deleted = 0;
+        String afterUrl = "";
+        while (!Thread.currentThread().isInterrupted()) {
+            String from = afterUrl;
+            List<String> imageUrls = transactionTemplate.execute(status ->
+                    imageFileDAO.findReleasedBefore(cutoff, from, BATCH_SIZE));
+            if (imageUrls == null || imageUrls.isEmpty()) {
+                break;
+            }
+            for (String imageUrl : imageUrls) {
+                afterUrl = imageUrl;
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> sweep(imageUrl, cutoff)))) {
+                        deleted++;
+                    }
+                } catch (RuntimeException e) {
+                    // 標記保留，下一輪再試
+                    log.warn("Failed to delete image file {}: {}", imageUrl, e.getMessage());
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private boolean sweep(String imageUrl, LocalDateTime cutoff) {
+        ImageFile imageFile = imageFileDAO.lock(imageUrl);
+        if (imageFile == null || imageFile.getReleasedAt() == null || imageFile.getReleasedAt().isAfter(cutoff)) {
+            return false;
+        }
+        // 寬限期內有上傳取得這個網址，引用紀錄可能還沒寫入
+        if (imageFile.getIssuedAt() != null && imageFile.getIssuedAt().isAfter(cutoff)) {
+            return false;
+        }
+        if (productImageDAO.countReferences(imageUrl) > 0) {
+            imageFile.setReleasedAt(null);
+            return false;
+        }
+        try {
+            fileUploadService.deleteProductImage(imageUrl);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        imageFileDAO.delete(imageFile);
+        return true;
+    }
+}
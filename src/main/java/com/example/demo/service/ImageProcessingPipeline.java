@@ -0,0 +1,207 @@
+package com.example.demo.service;
+
+import com.example.demo.dao.ProductImageDAO;
+import com.example.demo.model.ImagePipelineStats;
+import com.example.demo.model.ProcessingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品圖片的背景處理佇列：上傳請求只保存原始檔並送入佇列，縮圖由固定數量的工作執行緒處理。
+ * 佇列有上限，滿了時由送件的請求自己處理（自然的背壓，不會無限堆積）。
+ * 處理完成後以圖片網址更新 ProductImage 的處理狀態與衍生尺寸；圖片紀錄可能在處理完成後才寫入，
+ * 因此最近完成的結果會保留一段時間，由 ProductImageService 在寫入後再對一次。
+ */
+@Component
+public class ImageProcessingPipeline implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageProcessingPipeline.class);
+    private static final int FINISHED_HISTORY = 1000;
+
+    private final ProductImageDAO productImageDAO;
+    private final TransactionTemplate transactionTemplate;
+    private final PageCache pageCache;
+    private final ProductFactsCache productFactsCache;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    private final Map<String, Boolean> pending = new ConcurrentHashMap<>();
+    private final Map<String, Result> finished = new LinkedHashMap<String, Result>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+            return size() > FINISHED_HISTORY;
+        }
+    };
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    @Autowired
+    public ImageProcessingPipeline(ProductImageDAO productImageDAO, PlatformTransactionManager transactionManager,
+                                   PageCache pageCache, ProductFactsCache productFactsCache,
+                                   Environment environment) {
+        this(productImageDAO, new TransactionTemplate(transactionManager), pageCache, productFactsCache,
+                environment.getProperty("image.processing.threads", Integer.class, 0),
+                environment.getProperty("image.processing.queue-capacity", Integer.class, 100));
+    }
+
+    public ImageProcessingPipeline(ProductImageDAO productImageDAO, TransactionTemplate transactionTemplate,
+                                   PageCache pageCache, ProductFactsCache productFactsCache,
+                                   int threads, int queueCapacity) {
+        this.productImageDAO = productImageDAO;
+        this.transactionTemplate = transactionTemplate;
+        this.pageCache = pageCache;
+        this.productFactsCache = productFactsCache;
+        int workers = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = Math.max(queueCapacity, 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 圖片處理工作（解碼、縮圖、寫檔），回傳產生的衍生尺寸（見 ImageVariants，沒有則為 null），丟出例外表示處理失敗
+     */
+    @FunctionalInterface
+    public interface ImageTask {
+        String process() throws IOException;
+    }
+
+    /**
+     * 送入佇列後立即返回；productId 用於處理完成後清除頁面快取。同一網址已在處理中時不重複送入
+     */
+    public void submit(Long productId, String imageUrl, ImageTask task) {
+        long enqueuedAt = System.currentTimeMillis();
+        if (pending.putIfAbsent(imageUrl, Boolean.TRUE) != null) {
+            return;
+        }
+        submitted.incrementAndGet();
+        executor.execute(() -> run(productId, imageUrl, task, enqueuedAt));
+    }
+
+    /**
+     * 圖片目前的處理狀態；不是經由佇列處理（或已太久以前完成）的圖片回傳 null
+     */
+    public ProcessingState getState(String imageUrl) {
+        if (imageUrl == null) {
+            return null;
+        }
+        if (pending.containsKey(imageUrl)) {
+            return ProcessingState.PENDING;
+        }
+        synchronized (finished) {
+            Result result = finished.get(imageUrl);
+            return result != null ? result.state : null;
+        }
+    }
+
+    /**
+     * 已處理完成的圖片產生的衍生尺寸；處理中、失敗或不是經由佇列處理的圖片回傳 null
+     */
+    public String getVariantWidths(String imageUrl) {
+        if (imageUrl == null) {
+            return null;
+        }
+        synchronized (finished) {
+            Result result = finished.get(imageUrl);
+            return result != null ? result.variantWidths : null;
+        }
+    }
+
+    /**
+     * 圖片紀錄寫入並提交後呼叫：若處理已在寫入前完成（當時更新不到紀錄），補寫一次狀態
+     */
+    public void reconcile(String imageUrl) {
+        Result result;
+        synchronized (finished) {
+            result = finished.get(imageUrl);
+        }
+        if (result != null) {
+            updateState(imageUrl, result);
+        }
+    }
+
+    public ImagePipelineStats getStats() {
+        return new ImagePipelineStats(executor.getQueue().size(), queueCapacity, executor.getActiveCount(),
+                executor.getMaximumPoolSize(), submitted.get(), completed.get(), failed.get(),
+                totalWaitMillis.get(), totalLatencyMillis.get(), maxLatencyMillis.get());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // 已在佇列中的工作讓它處理完；沒處理完的圖片原始檔已保存，重新上傳相同內容時再處理
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Image pipeline stopped with {} queued images.", executor.shutdownNow().size());
+        }
+    }
+
+    private void run(Long productId, String imageUrl, ImageTask task, long enqueuedAt) {
+        long startedAt = System.currentTimeMillis();
+        Result result;
+        try {
+            result = new Result(ProcessingState.READY, task.process());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image processing failed for {}: {}", imageUrl, e.getMessage());
+            result = new Result(ProcessingState.FAILED, null);
+        }
+        long finishedAt = System.currentTimeMillis();
+        totalWaitMillis.addAndGet(startedAt - enqueuedAt);
+        totalLatencyMillis.addAndGet(finishedAt - enqueuedAt);
+        maxLatencyMillis.accumulateAndGet(finishedAt - enqueuedAt, Math::max);
+        (result.state == ProcessingState.READY ? completed : failed).incrementAndGet();
+
+        // 先記錄完成結果再移除 pending，getState 不會看到「兩邊都沒有」的空窗
+        synchronized (finished) {
+            finished.put(imageUrl, result);
+        }
+        pending.remove(imageUrl);
+        updateState(imageUrl, result);
+        pageCache.productChanged(productId);
+        // 其他商品頁的相關商品區塊以 ProductFacts 顯示封面的 srcset
+        productFactsCache.invalidate(productId);
+    }
+
+    private void updateState(String imageUrl, Result result) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    productImageDAO.updateProcessingState(imageUrl, result.state, result.variantWidths));
+        } catch (RuntimeException e) {
+            log.warn("Failed to record processing state for {}: {}", imageUrl, e.getMessage());
+        }
+    }
+
+    private static final class Result {
+        private final ProcessingState state;
+        private final String variantWidths;
+
+        private Result(ProcessingState state, String variantWidths) {
+            this.state = state;
+            this.variantWidths = variantWidths;
+        }
+    }
+}
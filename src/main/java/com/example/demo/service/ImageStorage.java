@@ -0,0 +1,38 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+
+/**
+ * 商品圖片的儲存位置。圖片以 key（檔名，例如 3f2a…9c.jpg、3f2a…9c_w240.jpg）存取，每個檔案只寫一份；
+ * 多台應用伺服器設定同一個儲存位置（共用目錄或 S3 相容的 bucket）即可共用圖片。
+ * 由 image.storage.type 選擇實作（local / s3），見 AppConfig。
+ */
+public interface ImageStorage {
+
+    /**
+     * 寫入（或取代）圖片，完成前讀取的請求只會看到舊的內容
+     */
+    void write(String key, byte[] data, String contentType) throws IOException;
+
+    /**
+     * 讀取圖片內容；不存在時丟出 java.nio.file.NoSuchFileException
+     */
+    byte[] read(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * 刪除圖片；不存在時不做事
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * 對外的圖片網址；站內路徑不含 contextPath
+     */
+    String publicUrl(String key);
+
+    /**
+     * 由圖片網址取回 key；不是存放在這裡的圖片（外部網址等）回傳 null
+     */
+    String keyOf(String imageUrl);
+}
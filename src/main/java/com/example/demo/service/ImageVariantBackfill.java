@@ -0,0 +1,151 @@
+package com.example.demo.service;
+
+import com.example.demo.dao.ProductImageDAO;
+import com.example.demo.model.ProcessingState;
+import com.example.demo.model.ProductImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 為既有圖片補產生衍生尺寸：依 ID 分批找出還沒有衍生尺寸的圖片，在單一背景執行緒逐張處理。
+ * 不使用上傳的處理佇列，回填大量舊圖片時不會佔滿佇列而拖慢新上傳的圖片。
+ * 只挑 variantWidths 為 null（或仍是舊格式）的圖片，中斷後再次執行會從尚未完成的圖片繼續；失敗的圖片保持原狀，下次再試。
+ */
+@Component
+public class ImageVariantBackfill implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantBackfill.class);
+    private static final int BATCH_SIZE = 100;
+
+    private final ProductImageDAO productImageDAO;
+    private final FileUploadService fileUploadService;
+    private final TransactionTemplate transactionTemplate;
+    private final PageCache pageCache;
+    private final ProductFactsCache productFactsCache;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile Thread worker;
+
+    @Autowired
+    public ImageVariantBackfill(ProductImageDAO productImageDAO, FileUploadService fileUploadService,
+                                PlatformTransactionManager transactionManager, PageCache pageCache,
+                                ProductFactsCache productFactsCache) {
+        this(productImageDAO, fileUploadService, new TransactionTemplate(transactionManager), pageCache,
+                productFactsCache);
+    }
+
+    public ImageVariantBackfill(ProductImageDAO productImageDAO, FileUploadService fileUploadService,
+                                TransactionTemplate transactionTemplate, PageCache pageCache,
+                                ProductFactsCache productFactsCache) {
+        this.productImageDAO = productImageDAO;
+        this.fileUploadService = fileUploadService;
+        this.transactionTemplate = transactionTemplate;
+        this.pageCache = pageCache;
+        this.productFactsCache = productFactsCache;
+    }
+
+    /**
+     * 在背景開始回填；已在執行時回傳 false
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.warn("Image variant backfill stopped: {}", e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        }, "image-variant-backfill");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+        return true;
+    }
+
+    /**
+     * 在目前的執行緒回填所有尚未產生衍生尺寸的圖片，回傳這次成功處理的張數
+     */
+    public long backfill() {
+        processed.set(0);
+        skipped.set(0);
+        failed.set(0);
+        long afterId = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long from = afterId;
+            List<ProductImage> batch = transactionTemplate.execute(status ->
+                    productImageDAO.findWithoutVariants(from, BATCH_SIZE));
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            // 同一張圖片可能被多筆紀錄引用，更新以網址為單位
+            Set<String> done = new HashSet<>();
+            for (ProductImage image : batch) {
+                afterId = image.getId();
+                if (done.add(image.getImageUrl())) {
+                    backfill(image);
+                }
+            }
+        }
+        log.info("Image variant backfill finished: {}", getStatus());
+        return processed.get();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public String getStatus() {
+        return "image-backfill running=" + running.get() + " processed=" + processed.get()
+                + " skipped=" + skipped.get() + " failed=" + failed.get();
+    }
+
+    @Override
+    public void destroy() {
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void backfill(ProductImage image) {
+        String imageUrl = image.getImageUrl();
+        // 外部網址的圖片沒有檔案可處理
+        if (imageUrl == null || !fileUploadService.isManagedImage(imageUrl)) {
+            skipped.incrementAndGet();
+            return;
+        }
+        String variantWidths;
+        try {
+            variantWidths = fileUploadService.generateVariants(imageUrl);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to generate variants for {}: {}", imageUrl, e.getMessage());
+            failed.incrementAndGet();
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                productImageDAO.updateProcessingState(imageUrl, ProcessingState.READY, variantWidths));
+        Long productId = image.getProduct() != null ? image.getProduct().getId() : null;
+        pageCache.productChanged(productId);
+        productFactsCache.invalidate(productId);
+        processed.incrementAndGet();
+    }
+}
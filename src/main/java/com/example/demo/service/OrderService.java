@@ -5,6 +5,7 @@ import com.example.demo.model.DeliveryMethod;
 import com.example.demo.model.DeliveryPaymentMethod;
 import com.example.demo.model.Order;
 import com.example.demo.model.OrderStatus;
+import com.example.demo.model.OrderSummary;
 import com.example.demo.model.PaymentMethod;
 import com.example.demo.model.User;
 
@@ -24,6 +25,11 @@ public interface OrderService {
 
     List<Order> listOrdersByUser(User user);
 
+    /**
+     * 使用者最近的 limit 筆訂單摘要（新到舊），不載入訂單明細
+     */
+    List<OrderSummary> listRecentOrders(User user, int limit);
+
     List<Order> getAllOrders();
 
     Order updateStatus(Long orderId, OrderStatus newStatus);
@@ -0,0 +1,240 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 前台商品頁面的 HTML 快取：key 由 PageCacheFilter 組成（路徑、查詢字串、語系、角色類別）。
+ * 以位元組總量為上限做 LRU 淘汰；同一個 key 未命中時只讓第一個請求產生頁面，其他請求等待結果。
+ * 商品或圖片異動在交易提交後失效相關頁面：列表頁全部清除，明細頁只清除該商品。
+ */
+@Component
+public class PageCache {
+
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    // Controller 把明細頁上顯示的其他商品ID（推薦區塊）放在這個 request 屬性，這些商品異動時也要清除該頁
+    public static final String RELATED_PRODUCTS_ATTRIBUTE = PageCache.class.getName() + ".RELATED_PRODUCTS";
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, CachedPage> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, CompletableFuture<CachedPage>> inFlight = new ConcurrentHashMap<>();
+    // 每次失效都遞增；產生頁面期間若有失效，產生的結果就不放入快取
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong putCount = new AtomicLong();
+    private long totalBytes;
+
+    @Autowired
+    public PageCache(Environment environment) {
+        this(environment.getProperty("page.cache.max-bytes", Long.class, DEFAULT_MAX_BYTES));
+    }
+
+    public PageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public CachedPage get(String key) {
+        CachedPage page;
+        synchronized (this) {
+            page = entries.get(key);
+        }
+        if (page != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return page;
+    }
+
+    /**
+     * 登記正在產生的頁面；已有其他請求在產生同一個 key 時，回傳的 Flight 只能等待結果
+     */
+    public Flight startFlight(String key) {
+        CompletableFuture<CachedPage> future = new CompletableFuture<>();
+        CompletableFuture<CachedPage> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return new Flight(key, existing, false, 0);
+        }
+        return new Flight(key, future, true, generation.get());
+    }
+
+    /**
+     * 商品或其圖片異動（含庫存變動）後呼叫；不知道是哪個商品時傳 null，清除全部頁面
+     */
+    public void productChanged(Long productId) {
+        TransactionCallbacks.afterCommit(() -> evict(productId));
+    }
+
+    /**
+     * 只有列表頁的內容變動（如熱銷排行更新）時呼叫，保留商品明細頁
+     */
+    public void listChanged() {
+        TransactionCallbacks.afterCommit(this::evictLists);
+    }
+
+    public CacheStats getStats() {
+        synchronized (this) {
+            return new CacheStats("page-cache", hitCount.get(), missCount.get(), putCount.get(), entries.size());
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized void evict(Long productId) {
+        generation.incrementAndGet();
+        Iterator<CachedPage> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            CachedPage page = iterator.next();
+            // 列表頁含庫存與分類資訊，任何商品異動都要清除
+            if (productId == null || page.productId == null || productId.equals(page.productId)
+                    || page.relatedProductIds.contains(productId)) {
+                totalBytes -= page.body.length;
+                iterator.remove();
+            }
+        }
+    }
+
+    private synchronized void evictLists() {
+        generation.incrementAndGet();
+        Iterator<CachedPage> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            CachedPage page = iterator.next();
+            if (page.productId == null) {
+                totalBytes -= page.body.length;
+                iterator.remove();
+            }
+        }
+    }
+
+    private synchronized void put(String key, CachedPage page, long startedAt) {
+        if (generation.get() != startedAt || page.body.length > maxBytes) {
+            return;
+        }
+        CachedPage previous = entries.put(key, page);
+        if (previous != null) {
+            totalBytes -= previous.body.length;
+        }
+        totalBytes += page.body.length;
+        putCount.incrementAndGet();
+
+        Iterator<CachedPage> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().body.length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * 一次頁面產生：leader 負責產生並呼叫 complete，其他請求呼叫 await 取得同一份結果
+     */
+    public final class Flight {
+        private final String key;
+        private final CompletableFuture<CachedPage> future;
+        private final boolean leader;
+        private final long startedAt;
+
+        private Flight(String key, CompletableFuture<CachedPage> future, boolean leader, long startedAt) {
+            this.key = key;
+            this.future = future;
+            this.leader = leader;
+            this.startedAt = startedAt;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * 產生完成後呼叫；page 為 null 表示此次結果不可快取，等待中的請求需自行產生
+         */
+        public void complete(CachedPage page) {
+            try {
+                if (page != null) {
+                    put(key, page, startedAt);
+                }
+            } finally {
+                inFlight.remove(key, future);
+                future.complete(page);
+            }
+        }
+
+        /**
+         * 等待 leader 的結果，逾時、中斷或結果不可快取時回傳 null
+         */
+        public CachedPage await(long timeoutMillis) {
+            try {
+                return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | TimeoutException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 已產生的頁面；productId 不為 null 表示商品明細頁，headers 為命中時要一併送出的回應標頭（ETag 等），
+     * relatedProductIds 為頁面上另外顯示的商品
+     */
+    public static final class CachedPage {
+        private final byte[] body;
+        private final String contentType;
+        private final Long productId;
+        private final Map<String, String> headers;
+        private final Set<Long> relatedProductIds;
+
+        public CachedPage(byte[] body, String contentType, Long productId) {
+            this(body, contentType, productId, Map.of());
+        }
+
+        public CachedPage(byte[] body, String contentType, Long productId, Map<String, String> headers) {
+            this(body, contentType, productId, headers, Set.of());
+        }
+
+        public CachedPage(byte[] body, String contentType, Long productId, Map<String, String> headers,
+                          Set<Long> relatedProductIds) {
+            this.body = body;
+            this.contentType = contentType;
+            this.productId = productId;
+            this.headers = Map.copyOf(headers);
+            this.relatedProductIds = Set.copyOf(relatedProductIds);
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public Set<Long> getRelatedProductIds() {
+            return relatedProductIds;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import com.example.demo.model.CacheStats;
+import com.example.demo.model.ProductFacts;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 商品基本資料（ProductFacts）的讀取快取：購物車、結帳頁反覆查詢同一批商品時不必每次載入實體。
+ * 筆數有上限（LRU），每筆在 TTL 到期後重新載入；後台修改商品或圖片時在交易提交後移除該筆。
+ * 查無商品不快取，新建立的商品可以立即查到。
+ */
+@Component
+public class ProductFactsCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    // 每次失效都遞增；載入期間若有失效，載入的結果就不放入快取
+    private long generation;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong putCount = new AtomicLong();
+
+    @Autowired
+    public ProductFactsCache(Environment environment) {
+        this(environment.getProperty("product.facts.cache.max-entries", Integer.class, DEFAULT_MAX_ENTRIES),
+                environment.getProperty("product.facts.cache.ttl-seconds", Long.class, DEFAULT_TTL_SECONDS) * 1000,
+                System::currentTimeMillis);
+    }
+
+    public ProductFactsCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 取得快取資料，未命中或已過期時以 loader 載入（loader 回傳 null 表示查無商品）
+     */
+    public ProductFacts get(Long productId, Function<Long, ProductFacts> loader) {
+        if (productId == null) {
+            return null;
+        }
+        long startedAt;
+        synchronized (this) {
+            Entry entry = entries.get(productId);
+            if (entry != null && entry.expiresAt > clock.getAsLong()) {
+                hitCount.incrementAndGet();
+                return entry.facts;
+            }
+            startedAt = generation;
+        }
+        missCount.incrementAndGet();
+
+        ProductFacts facts = loader.apply(productId);
+        if (facts != null) {
+            put(productId, facts, startedAt);
+        }
+        return facts;
+    }
+
+    /**
+     * 商品或其圖片異動後呼叫，交易提交後才移除；傳 null 時清除全部
+     */
+    public void invalidate(Long productId) {
+        TransactionCallbacks.afterCommit(() -> evict(productId));
+    }
+
+    public CacheStats getStats() {
+        synchronized (this) {
+            return new CacheStats("product-facts", hitCount.get(), missCount.get(), putCount.get(), entries.size());
+        }
+    }
+
+    private synchronized void evict(Long productId) {
+        generation++;
+        if (productId == null) {
+            entries.clear();
+        } else {
+            entries.remove(productId);
+        }
+    }
+
+    private synchronized void put(Long productId, ProductFacts facts, long startedAt) {
+        if (generation != startedAt) {
+            return;
+        }
+        entries.put(productId, new Entry(facts, clock.getAsLong() + ttlMillis));
+        putCount.incrementAndGet();
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private static final class Entry {
+        private final ProductFacts facts;
+        private final long expiresAt;
+
+        private Entry(ProductFacts facts, long expiresAt) {
+            this.facts = facts;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
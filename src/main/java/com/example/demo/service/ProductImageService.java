@@ -1,13 +1,26 @@
 package com.example.demo.service;
 
 import com.example.demo.model.ProductImage;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductImageService {
     List<ProductImage> getImagesByProductId(Long productId);
+
+    /**
+     * 批次載入多個商品的圖片，回傳 商品ID → 圖片列表（已依顯示順序排序）
+     */
+    Map<Long, List<ProductImage>> getImagesByProductIds(Collection<Long> productIds);
     void saveProductImage(ProductImage productImage);
     void deleteProductImage(Long id);
     void deleteAllImagesByProductId(Long productId);
     ProductImage getProductImageById(Long id);
+
+    /**
+     * 圖片檔以內容命名、可被多筆紀錄共用：不再有任何引用的站內圖片在交易提交後標記等待清理，
+     * 寬限期過後由 ImageFileSweeper 重新確認沒有引用才刪除檔案
+     */
+    void releaseImageFiles(Collection<String> imageUrls);
 }
 
@@ -0,0 +1,25 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ImportReport;
+
+import java.util.List;
+
+public interface ProductImportService {
+
+    /**
+     * 匯入目錄下可用的匯入工作（含 products.csv 的子目錄名稱）
+     */
+    List<String> getAvailableJobs();
+
+    /**
+     * 在背景開始匯入；有檢查點時從上次提交的位置續傳，restart 為 true 時捨棄檢查點從頭匯入
+     * @throws IllegalStateException 已有匯入正在執行
+     * @throws IllegalArgumentException 工作名稱無效或找不到 products.csv
+     */
+    ImportReport startImport(String jobName, boolean restart);
+
+    /**
+     * 目前或最近一次匯入的進度，尚未匯入過時回傳 null
+     */
+    ImportReport getLastReport();
+}
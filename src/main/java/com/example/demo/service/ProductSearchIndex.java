@@ -0,0 +1,267 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductSearchDocument;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 後台商品搜尋用的記憶體反向索引：詞 → (商品ID → 加權詞頻)。
+ * 名稱、分類、描述分別給予不同權重，查詢時每個詞都必須命中，依 TF-IDF 分數排序。
+ * 與 CategoryIndex 相同，寫入在交易提交後才套用；重建期間提交的異動先排隊，換上新索引後再依序重播。
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+    // 重建期間（讀取資料到換上新索引之間）提交的異動；沒有重建時為 null
+    private List<Runnable> pendingChanges;
+    private volatile boolean initialized;
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * 以 loader 讀到的商品重建索引。讀取期間不持有鎖，搜尋仍使用舊索引；
+     * 讀取開始後才提交的異動可能不在讀到的資料中，換上新索引後依提交順序重播（重播已包含的異動結果不變）。
+     */
+    public void rebuild(Supplier<? extends Collection<ProductSearchDocument>> loader) {
+        synchronized (rebuildLock) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Collection<ProductSearchDocument> loaded = null;
+            try {
+                loaded = loader.get();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (loaded != null) {
+                        postings.clear();
+                        documents.clear();
+                        for (ProductSearchDocument document : loaded) {
+                            addDocument(document);
+                        }
+                        for (Runnable change : pendingChanges) {
+                            change.run();
+                        }
+                        initialized = true;
+                    }
+                    pendingChanges = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * 商品新增或更新後呼叫（索引尚未建立也沒有在重建時略過，之後的重建會讀到最新資料）
+     */
+    public void productChanged(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        ProductSearchDocument snapshot = ProductSearchDocument.of(product);
+        TransactionCallbacks.afterCommit(() -> apply(() -> {
+            removeDocument(snapshot.getId());
+            addDocument(snapshot);
+        }));
+    }
+
+    public void productRemoved(Long id) {
+        if (id == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> apply(() -> removeDocument(id)));
+    }
+
+    /**
+     * 整個分類的商品改到另一個分類：只替換分類詞的權重，不需重新載入商品
+     */
+    public void categoryMoved(String oldCategory, String newCategory) {
+        if (oldCategory == null || newCategory == null || oldCategory.equals(newCategory)) {
+            return;
+        }
+        List<String> oldTokens = SearchTokenizer.tokenizeForIndex(oldCategory);
+        List<String> newTokens = SearchTokenizer.tokenizeForIndex(newCategory);
+        TransactionCallbacks.afterCommit(() -> apply(() -> {
+            for (Map.Entry<Long, IndexedProduct> entry : documents.entrySet()) {
+                if (oldCategory.equals(entry.getValue().category)) {
+                    entry.setValue(moveCategory(entry.getKey(), entry.getValue(), oldTokens, newCategory, newTokens));
+                }
+            }
+        }));
+    }
+
+    /**
+     * 已建立的索引立即套用；重建中的異動另外排隊，等新索引換上後重播
+     */
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            if (initialized) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜尋並依相關度排序，回傳商品ID；category 不為 null 時只保留該分類的商品
+     */
+    public List<Long> search(String query, String category) {
+        List<SearchTokenizer.QueryTerm> terms = SearchTokenizer.tokenizeQuery(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (SearchTokenizer.QueryTerm term : terms) {
+                Map<Long, Double> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // 所有查詢詞都必須命中
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            List<Long> ranked = new ArrayList<>(scores.size());
+            for (Long id : scores.keySet()) {
+                IndexedProduct document = documents.get(id);
+                if (category == null || (document != null && category.equals(document.category))) {
+                    ranked.add(id);
+                }
+            }
+            Map<Long, Double> finalScores = scores;
+            ranked.sort(Comparator.comparing((Long id) -> finalScores.get(id)).reversed()
+                    .thenComparing(Comparator.naturalOrder()));
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> scoreTerm(SearchTokenizer.QueryTerm term) {
+        Map<Long, Double> termScores = new HashMap<>();
+        Map<String, Map<Long, Integer>> matches = term.isPrefix()
+                ? postings.subMap(term.getText(), true, term.getText() + Character.MAX_VALUE, false)
+                : singleTerm(term.getText());
+        int totalDocuments = Math.max(documents.size(), 1);
+        for (Map<Long, Integer> posting : matches.values()) {
+            double idf = Math.log(1.0 + (double) totalDocuments / posting.size());
+            for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                // 前綴展開出多個詞時，取最高分的那個
+                termScores.merge(entry.getKey(), entry.getValue() * idf, Math::max);
+            }
+        }
+        return termScores;
+    }
+
+    private Map<String, Map<Long, Integer>> singleTerm(String text) {
+        Map<Long, Integer> posting = postings.get(text);
+        return posting == null ? Map.of() : Map.of(text, posting);
+    }
+
+    private void addDocument(ProductSearchDocument document) {
+        Map<String, Integer> weights = new HashMap<>();
+        collect(weights, document.getName(), NAME_WEIGHT);
+        collect(weights, document.getCategory(), CATEGORY_WEIGHT);
+        collect(weights, document.getDescription(), DESCRIPTION_WEIGHT);
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(document.getId(), entry.getValue());
+        }
+        documents.put(document.getId(), new IndexedProduct(document.getCategory(), Set.copyOf(weights.keySet())));
+    }
+
+    private void removeDocument(Long id) {
+        IndexedProduct previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String token : previous.tokens) {
+            Map<Long, Integer> posting = postings.get(token);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private IndexedProduct moveCategory(Long id, IndexedProduct document, List<String> oldTokens,
+                                        String newCategory, List<String> newTokens) {
+        Set<String> tokens = new HashSet<>(document.tokens);
+        for (String token : oldTokens) {
+            Map<Long, Integer> posting = postings.get(token);
+            if (posting == null) {
+                continue;
+            }
+            Integer weight = posting.computeIfPresent(id, (key, value) -> value > CATEGORY_WEIGHT ? value - CATEGORY_WEIGHT : null);
+            if (weight == null) {
+                tokens.remove(token);
+            }
+            if (posting.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+        for (String token : newTokens) {
+            postings.computeIfAbsent(token, key -> new HashMap<>()).merge(id, CATEGORY_WEIGHT, Integer::sum);
+            tokens.add(token);
+        }
+        return new IndexedProduct(newCategory, Set.copyOf(tokens));
+    }
+
+    private void collect(Map<String, Integer> weights, String text, int weight) {
+        for (String token : SearchTokenizer.tokenizeForIndex(text)) {
+            weights.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private static final class IndexedProduct {
+        private final String category;
+        private final Set<String> tokens;
+
+        private IndexedProduct(String category, Set<String> tokens) {
+            this.category = category;
+            this.tokens = tokens;
+        }
+    }
+}
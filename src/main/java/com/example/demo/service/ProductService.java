@@ -1,21 +1,112 @@
 package com.example.demo.service;
 
+import com.example.demo.model.BulkUpdateResult;
+import com.example.demo.model.CatalogPage;
+import com.example.demo.model.CatalogQuery;
+import com.example.demo.model.CatalogVersion;
+import com.example.demo.model.PageResult;
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductFacts;
+import com.example.demo.model.ProductSearchCriteria;
+import com.example.demo.model.ProductSummary;
+import com.example.demo.model.ProductUpdate;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
 
+    String SORT_DEFAULT = "id";
+    String SORT_BESTSELLING = "bestselling";
+
     List<Product> getAllProducts();
 
     List<Product> getListedProducts();
 
     Product getProductById(Long id);
 
+    /**
+     * 商品基本資料（名稱、價格、上架狀態、封面），由快取提供；不含庫存，查無時回傳 null
+     */
+    ProductFacts getProductFacts(Long id);
+
     List<Product> getProductsByCategory(String category);
 
     List<Product> getListedProductsByCategory(String category);
 
+    /**
+     * 列表頁用的唯讀商品摘要（含封面圖片），不載入完整商品實體
+     * @param includeUnlisted 是否包含下架商品
+     */
+    List<ProductSummary> getProductSummaries(String category, boolean includeUnlisted);
+
+    /**
+     * 同 getProductSummaries，sort 為 SORT_BESTSELLING 時依熱銷排行（累計售出數量）排序，其他值依ID排序
+     */
+    List<ProductSummary> getProductSummaries(String category, boolean includeUnlisted, String sort);
+
+    /**
+     * 熱銷排行到了刷新時間就併入新訂單，回傳排行版本（用於列表頁 ETag）
+     */
+    long refreshSalesRanking();
+
+    /**
+     * 前台 JSON API 的一頁上架商品（只查詢要求的欄位），以游標分頁
+     * @param cursor 上一頁回傳的 nextCursor，第一頁傳 null
+     * @throws IllegalArgumentException 游標無效或與排序方式不符
+     */
+    CatalogPage getCatalogPage(CatalogQuery query, String cursor);
+
+    /**
+     * 後台商品查詢；有關鍵字時先由記憶體搜尋索引找出符合的商品，再由資料庫取當頁資料
+     */
+    PageResult<Product> searchProducts(ProductSearchCriteria criteria);
+
+    Map<String, Long> getCategoryCounts();
+
+    /**
+     * 取得分類清單（由分類索引提供，不掃描商品）
+     * @param includeUnlisted 是否包含只有下架商品的分類
+     */
+    List<String> getCategories(boolean includeUnlisted);
+
+    /**
+     * 以資料庫統計重建分類索引
+     */
+    void refreshCategoryIndex();
+
+    /**
+     * 以目前所有商品的ID、名稱、分類、描述（投影查詢）重建搜尋索引
+     */
+    void refreshSearchIndex();
+
+    /**
+     * 前台商品列表的內容版本，用於條件式 GET（ETag / Last-Modified）
+     * @param includeUnlisted 是否包含下架商品（管理者看到的列表）
+     */
+    CatalogVersion getListVersion(String category, boolean includeUnlisted);
+
+    /**
+     * 商品明細頁的內容版本（商品本身與其圖片）
+     */
+    CatalogVersion getDetailVersion(Long id);
+
+    /**
+     * 分類更名（單一 UPDATE），回傳受影響的商品數量
+     */
+    int renameCategory(String oldCategory, String newCategory);
+
+    /**
+     * 刪除分類：其商品全部移到 fallbackCategory（單一 UPDATE），回傳受影響的商品數量
+     */
+    int reassignCategory(String category, String fallbackCategory);
+
+    /**
+     * 批次編輯：以分批的 IN 查詢（每批最多 1000 個ID）載入所有商品，套用變更後在提交時以 JDBC 批次送出，
+     * 依輸入順序回報每一列的結果；不合法的列不會套用任何欄位
+     */
+    BulkUpdateResult bulkUpdateProducts(List<ProductUpdate> updates);
+
     void saveProduct(Product product);
 
     void deleteProduct(Long id);
@@ -0,0 +1,216 @@
+package com.example.demo.service;
+
+import com.example.demo.dao.OrderItemDAO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 由訂單明細的共同購買次數建立 RecommendationModel。
+ * 依訂單ID順序餵入（訂單ID, 商品ID），每張訂單整理成去重後的購物籃；
+ * 建立時先做「商品 → 購物籃」反向索引，再把商品分段交給多個執行緒各自計數並挑出前 K 名。
+ * 單一 builder 不是執行緒安全的，只供一次重建使用。
+ */
+public final class RecommendationBuilder implements OrderItemDAO.BasketItemConsumer {
+
+    private final int topK;
+    private final int maxBasketSize;
+
+    // 購物籃 b 的商品為 basketItems[basketOffsets[b] .. basketOffsets[b + 1])
+    private long[] basketItems = new long[1024];
+    private int[] basketOffsets = new int[256];
+    private int itemCount;
+    private int basketCount;
+
+    private long currentOrderId = Long.MIN_VALUE;
+    private long[] current = new long[16];
+    private int currentSize;
+
+    /**
+     * @param maxBasketSize 商品數超過此值的訂單（多半是批發或測試訂單）不列入，避免組合數爆增
+     */
+    public RecommendationBuilder(int topK, int maxBasketSize) {
+        this.topK = Math.max(topK, 1);
+        this.maxBasketSize = Math.max(maxBasketSize, 2);
+    }
+
+    @Override
+    public void accept(long orderId, long productId) {
+        if (orderId != currentOrderId) {
+            finishBasket();
+            currentOrderId = orderId;
+        }
+        if (currentSize == current.length) {
+            current = Arrays.copyOf(current, currentSize * 2);
+        }
+        current[currentSize++] = productId;
+    }
+
+    public int getBasketCount() {
+        finishBasket();
+        return basketCount;
+    }
+
+    /**
+     * 以 threads 個執行緒建立模型
+     */
+    public RecommendationModel build(int threads) throws InterruptedException {
+        finishBasket();
+
+        // 出現在購物籃中的商品，排序後的位置即為密集索引
+        long[] productIds = Arrays.copyOf(basketItems, itemCount);
+        Arrays.sort(productIds);
+        int distinct = 0;
+        for (int i = 0; i < productIds.length; i++) {
+            if (distinct == 0 || productIds[distinct - 1] != productIds[i]) {
+                productIds[distinct++] = productIds[i];
+            }
+        }
+        int productCount = distinct;
+        productIds = Arrays.copyOf(productIds, productCount);
+
+        int[] baskets = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            baskets[i] = Arrays.binarySearch(productIds, basketItems[i]);
+        }
+        basketItems = null;
+        int[] offsets = Arrays.copyOf(basketOffsets, basketCount + 1);
+
+        // 反向索引：商品 p 出現在 productBaskets[productOffsets[p] .. productOffsets[p + 1]) 這些購物籃
+        int[] productOffsets = new int[productCount + 1];
+        for (int i = 0; i < itemCount; i++) {
+            productOffsets[baskets[i] + 1]++;
+        }
+        for (int p = 0; p < productCount; p++) {
+            productOffsets[p + 1] += productOffsets[p];
+        }
+        int[] productBaskets = new int[itemCount];
+        int[] fill = Arrays.copyOf(productOffsets, productCount);
+        for (int b = 0; b < basketCount; b++) {
+            for (int i = offsets[b]; i < offsets[b + 1]; i++) {
+                productBaskets[fill[baskets[i]]++] = b;
+            }
+        }
+
+        // 每個商品固定保留 topK 個位置，-1 表示空位
+        int[] topRelated = new int[productCount * topK];
+        Arrays.fill(topRelated, -1);
+        int workers = Math.max(1, Math.min(threads, productCount));
+        int rangeSize = Math.max(1, (productCount + workers * 4 - 1) / (workers * 4));
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int from = 0; from < productCount; from += rangeSize) {
+                int start = from;
+                int end = Math.min(from + rangeSize, productCount);
+                tasks.add(pool.submit(() -> rankRange(start, end, baskets, offsets, productBaskets, productOffsets,
+                        productCount, topRelated)));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to build recommendations", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return compact(productIds, topRelated);
+    }
+
+    private void rankRange(int from, int to, int[] baskets, int[] basketOffsets, int[] productBaskets,
+                           int[] productOffsets, int productCount, int[] topRelated) {
+        // 每個工作各自的計數陣列，不共用可變狀態
+        int[] counts = new int[productCount];
+        int[] touched = new int[productCount];
+        int[] bestCounts = new int[topK];
+        for (int p = from; p < to; p++) {
+            int touchedCount = 0;
+            for (int i = productOffsets[p]; i < productOffsets[p + 1]; i++) {
+                int basket = productBaskets[i];
+                for (int j = basketOffsets[basket]; j < basketOffsets[basket + 1]; j++) {
+                    int other = baskets[j];
+                    if (other != p && counts[other]++ == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+
+            int base = p * topK;
+            int kept = 0;
+            for (int t = 0; t < touchedCount; t++) {
+                int candidate = touched[t];
+                int count = counts[candidate];
+                counts[candidate] = 0;
+                // 依次數由高到低插入，次數相同時商品ID小的在前（索引順序即ID順序）
+                int position = kept;
+                while (position > 0 && (bestCounts[position - 1] < count
+                        || (bestCounts[position - 1] == count && topRelated[base + position - 1] > candidate))) {
+                    position--;
+                }
+                if (position >= topK) {
+                    continue;
+                }
+                int last = Math.min(kept, topK - 1);
+                for (int k = last; k > position; k--) {
+                    bestCounts[k] = bestCounts[k - 1];
+                    topRelated[base + k] = topRelated[base + k - 1];
+                }
+                bestCounts[position] = count;
+                topRelated[base + position] = candidate;
+                kept = Math.min(kept + 1, topK);
+            }
+        }
+    }
+
+    private RecommendationModel compact(long[] productIds, int[] topRelated) {
+        int productCount = productIds.length;
+        int[] offsets = new int[productCount + 1];
+        int size = 0;
+        for (int p = 0; p < productCount; p++) {
+            offsets[p] = size;
+            for (int k = 0; k < topK && topRelated[p * topK + k] >= 0; k++) {
+                topRelated[size++] = topRelated[p * topK + k];
+            }
+        }
+        offsets[productCount] = size;
+        return new RecommendationModel(productIds, offsets, Arrays.copyOf(topRelated, size), System.currentTimeMillis());
+    }
+
+    private void finishBasket() {
+        if (currentSize == 0) {
+            return;
+        }
+        Arrays.sort(current, 0, currentSize);
+        int size = 0;
+        for (int i = 0; i < currentSize; i++) {
+            if (size == 0 || current[size - 1] != current[i]) {
+                current[size++] = current[i];
+            }
+        }
+        currentSize = 0;
+        // 單一商品的訂單沒有共同購買關係
+        if (size < 2 || size > maxBasketSize) {
+            return;
+        }
+        if (itemCount + size > basketItems.length) {
+            basketItems = Arrays.copyOf(basketItems, Math.max(basketItems.length * 2, itemCount + size));
+        }
+        if (basketCount + 2 > basketOffsets.length) {
+            basketOffsets = Arrays.copyOf(basketOffsets, basketOffsets.length * 2);
+        }
+        System.arraycopy(current, 0, basketItems, itemCount, size);
+        itemCount += size;
+        basketCount++;
+        basketOffsets[basketCount] = itemCount;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+
+/**
+ * 「買了這個商品的顧客也買了」的不可變模型，全部以基本型別陣列保存：
+ * 商品ID → 密集索引使用開放定址雜湊表，每個商品的相關商品（依共同購買次數排序）連續存放在 related 中。
+ * 十萬個商品、每個保留 10 個相關商品時約 8 MB，查詢為 O(1)。
+ */
+public final class RecommendationModel {
+
+    public static final RecommendationModel EMPTY = new RecommendationModel(new long[0], new int[]{0}, new int[0], 0);
+
+    private static final long EMPTY_SLOT = Long.MIN_VALUE;
+
+    private final long[] productIds;
+    // 商品 i 的相關商品為 related[offsets[i] .. offsets[i + 1])，內容是 productIds 的索引
+    private final int[] offsets;
+    private final int[] related;
+    private final long[] slotKeys;
+    private final int[] slotIndexes;
+    private final int mask;
+    private final long builtAt;
+
+    RecommendationModel(long[] productIds, int[] offsets, int[] related, long builtAt) {
+        this.productIds = productIds;
+        this.offsets = offsets;
+        this.related = related;
+        this.builtAt = builtAt;
+
+        int capacity = Integer.highestOneBit(Math.max(productIds.length, 1) * 2 - 1) << 1;
+        this.slotKeys = new long[capacity];
+        this.slotIndexes = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(slotKeys, EMPTY_SLOT);
+        for (int i = 0; i < productIds.length; i++) {
+            int slot = slot(productIds[i]);
+            while (slotKeys[slot] != EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = productIds[i];
+            slotIndexes[slot] = i;
+        }
+    }
+
+    /**
+     * 相關商品ID（最相關的在前），最多 limit 個；沒有資料時回傳空陣列
+     */
+    public long[] getRelated(long productId, int limit) {
+        int index = indexOf(productId);
+        if (index < 0 || limit <= 0) {
+            return new long[0];
+        }
+        int from = offsets[index];
+        int length = Math.min(offsets[index + 1] - from, limit);
+        long[] ids = new long[length];
+        for (int i = 0; i < length; i++) {
+            ids[i] = productIds[related[from + i]];
+        }
+        return ids;
+    }
+
+    /**
+     * 有相關商品資料的商品數量
+     */
+    public int size() {
+        return productIds.length;
+    }
+
+    /**
+     * 建立完成的時間（毫秒），作為模型版本
+     */
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 相關商品的內容與另一個模型完全相同（不比較建立時間）
+     */
+    public boolean hasSameRelations(RecommendationModel other) {
+        return other != null && Arrays.equals(productIds, other.productIds) && Arrays.equals(offsets, other.offsets)
+                && Arrays.equals(related, other.related);
+    }
+
+    private int indexOf(long productId) {
+        int slot = slot(productId);
+        while (slotKeys[slot] != EMPTY_SLOT) {
+            if (slotKeys[slot] == productId) {
+                return slotIndexes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(long productId) {
+        long hash = productId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ProductFacts;
+
+import java.util.List;
+
+public interface RecommendationService {
+
+    /**
+     * 「買了這個商品的顧客也買了」：依共同購買次數排序的上架商品，最多 limit 個
+     */
+    List<ProductFacts> getRelatedProducts(Long productId, int limit);
+
+    /**
+     * 目前模型的版本（建立時間），尚未建立時為 0
+     */
+    long getModelVersion();
+
+    /**
+     * 從全部訂單明細重新建立模型，完成後整個替換目前的模型，回傳有相關商品資料的商品數量
+     */
+    int rebuild();
+}
@@ -0,0 +1,169 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ProductSales;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 熱銷排行：商品ID → 累計售出數量，以依商品ID排序的基本型別陣列保存，查詢時二分搜尋。
+ * 每次刷新只加總上次水位（最大訂單明細ID）之後的明細，成本與新訂單數量成正比，不重掃歷史訂單。
+ * 讀取只看不可變快照，不需鎖；由 SalesRankingScheduler 定期刷新（列表頁的請求也可能觸發），
+ * 同一時間只有一個呼叫者負責刷新，其他呼叫者沿用舊快照。
+ */
+@Component
+public class SalesRanking {
+
+    public static final long DEFAULT_REFRESH_SECONDS = 300;
+    public static final long DEFAULT_SETTLE_SECONDS = 60;
+
+    private final long refreshIntervalMillis;
+    private final long settleMillis;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Snapshot snapshot = new Snapshot(new long[0], new long[0], 0, 0);
+    // 0 表示尚未建立
+    private volatile long lastRefreshedAt;
+
+    @Autowired
+    public SalesRanking(Environment environment) {
+        this(environment.getProperty("sales.ranking.refresh-seconds", Long.class, DEFAULT_REFRESH_SECONDS),
+                environment.getProperty("sales.ranking.settle-seconds", Long.class, DEFAULT_SETTLE_SECONDS));
+    }
+
+    public SalesRanking(long refreshSeconds, long settleSeconds) {
+        this.refreshIntervalMillis = Math.max(refreshSeconds, 0) * 1000;
+        this.settleMillis = Math.max(settleSeconds, 0) * 1000;
+    }
+
+    /**
+     * 距上次刷新已超過間隔（或尚未建立）時，讓一個呼叫者取得刷新權；取得後必須呼叫 finishRefresh
+     */
+    public boolean tryStartRefresh(long nowMillis) {
+        if (lastRefreshedAt != 0 && nowMillis - lastRefreshedAt < refreshIntervalMillis) {
+            return false;
+        }
+        return refreshing.compareAndSet(false, true);
+    }
+
+    /**
+     * 刷新間隔（毫秒），SalesRankingScheduler 以此定期刷新
+     */
+    public long getRefreshIntervalMillis() {
+        return refreshIntervalMillis;
+    }
+
+    /**
+     * 新訂單的交易可能晚於 ID 較大的明細提交：只統計建立時間早於這個時間點的訂單，留給尚未提交的交易緩衝
+     */
+    public long settledBefore(long nowMillis) {
+        return nowMillis - settleMillis;
+    }
+
+    /**
+     * 目前已統計到的最大訂單明細ID
+     */
+    public long getWatermark() {
+        return snapshot.watermark;
+    }
+
+    /**
+     * 排行內容的版本，每次有新銷售併入時遞增，用於 ETag 與頁面快取失效
+     */
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    /**
+     * 併入新一批銷售統計並結束刷新，回傳排行是否有變動；delta 為 null 表示刷新失敗，保留原快照
+     */
+    public boolean finishRefresh(Collection<ProductSales> delta, long nowMillis) {
+        try {
+            if (delta == null) {
+                return false;
+            }
+            lastRefreshedAt = nowMillis;
+            if (delta.isEmpty()) {
+                return false;
+            }
+            snapshot = snapshot.merge(delta);
+            return true;
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * 商品累計售出數量，沒有銷售紀錄時為 0
+     */
+    public long getUnitsSold(Long productId) {
+        if (productId == null) {
+            return 0;
+        }
+        Snapshot current = snapshot;
+        int index = Arrays.binarySearch(current.productIds, productId);
+        return index >= 0 ? current.units[index] : 0;
+    }
+
+    private static final class Snapshot {
+        private final long[] productIds;
+        private final long[] units;
+        private final long watermark;
+        private final long version;
+
+        private Snapshot(long[] productIds, long[] units, long watermark, long version) {
+            this.productIds = productIds;
+            this.units = units;
+            this.watermark = watermark;
+            this.version = version;
+        }
+
+        /**
+         * 與依商品ID排序的增量做一次合併，產生新的快照
+         */
+        private Snapshot merge(Collection<ProductSales> delta) {
+            long[] deltaIds = new long[delta.size()];
+            long[] deltaUnits = new long[delta.size()];
+            long newWatermark = watermark;
+            int count = 0;
+            ProductSales[] sorted = delta.stream()
+                    .filter(sales -> sales.getProductId() != null)
+                    .sorted(Comparator.comparing(ProductSales::getProductId))
+                    .toArray(ProductSales[]::new);
+            for (ProductSales sales : sorted) {
+                newWatermark = Math.max(newWatermark, sales.getLastItemId());
+                if (count > 0 && deltaIds[count - 1] == sales.getProductId()) {
+                    deltaUnits[count - 1] += sales.getUnits();
+                } else {
+                    deltaIds[count] = sales.getProductId();
+                    deltaUnits[count] = sales.getUnits();
+                    count++;
+                }
+            }
+
+            long[] mergedIds = new long[productIds.length + count];
+            long[] mergedUnits = new long[mergedIds.length];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+            while (i < productIds.length || j < count) {
+                if (j == count || (i < productIds.length && productIds[i] < deltaIds[j])) {
+                    mergedIds[size] = productIds[i];
+                    mergedUnits[size++] = units[i++];
+                } else if (i == productIds.length || deltaIds[j] < productIds[i]) {
+                    mergedIds[size] = deltaIds[j];
+                    mergedUnits[size++] = deltaUnits[j++];
+                } else {
+                    mergedIds[size] = productIds[i];
+                    mergedUnits[size++] = units[i++] + deltaUnits[j++];
+                }
+            }
+            return new Snapshot(Arrays.copyOf(mergedIds, size), Arrays.copyOf(mergedUnits, size),
+                    newWatermark, version + 1);
+        }
+    }
+}
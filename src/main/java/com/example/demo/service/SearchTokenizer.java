@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 商品搜尋用的斷詞器。
+ * 拉丁文字與數字依單字切分；中日韓文字沒有空白分隔，改以單字 + 相鄰兩字（bigram）建立索引。
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 建立索引用：CJK 同時輸出單字與 bigram，讓單字查詢也能命中
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (Run run : split(text)) {
+            if (!run.cjk) {
+                tokens.add(run.text);
+                continue;
+            }
+            int[] codePoints = run.text.codePoints().toArray();
+            for (int i = 0; i < codePoints.length; i++) {
+                tokens.add(new String(codePoints, i, 1));
+                if (i + 1 < codePoints.length) {
+                    tokens.add(new String(codePoints, i, 2));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 查詢用：CJK 只有一個字時查單字，否則拆成 bigram；拉丁單字在索引端做前綴比對
+     */
+    public static List<QueryTerm> tokenizeQuery(String text) {
+        List<QueryTerm> terms = new ArrayList<>();
+        for (Run run : split(text)) {
+            if (!run.cjk) {
+                terms.add(new QueryTerm(run.text, true));
+                continue;
+            }
+            int[] codePoints = run.text.codePoints().toArray();
+            if (codePoints.length == 1) {
+                terms.add(new QueryTerm(run.text, false));
+                continue;
+            }
+            for (int i = 0; i + 1 < codePoints.length; i++) {
+                terms.add(new QueryTerm(new String(codePoints, i, 2), false));
+            }
+        }
+        return terms;
+    }
+
+    private static List<Run> split(String text) {
+        List<Run> runs = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return runs;
+        }
+        // NFKC 會把全形英數轉成半形，再統一小寫
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder current = new StringBuilder();
+        boolean currentCjk = false;
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            boolean cjk = isCjk(codePoint);
+            boolean wordChar = cjk || Character.isLetterOrDigit(codePoint);
+            if (!wordChar || (current.length() > 0 && cjk != currentCjk)) {
+                flush(runs, current, currentCjk);
+            }
+            if (wordChar) {
+                current.appendCodePoint(codePoint);
+                currentCjk = cjk;
+            }
+        }
+        flush(runs, current, currentCjk);
+        return runs;
+    }
+
+    private static void flush(List<Run> runs, StringBuilder current, boolean cjk) {
+        if (current.length() > 0) {
+            runs.add(new Run(current.toString(), cjk));
+            current.setLength(0);
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static final class Run {
+        private final String text;
+        private final boolean cjk;
+
+        private Run(String text, boolean cjk) {
+            this.text = text;
+            this.cjk = cjk;
+        }
+    }
+
+    /**
+     * 查詢詞；prefix 為 true 時比對所有以此開頭的索引詞
+     */
+    public static final class QueryTerm {
+        private final String text;
+        private final boolean prefix;
+
+        public QueryTerm(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isPrefix() {
+            return prefix;
+        }
+    }
+}
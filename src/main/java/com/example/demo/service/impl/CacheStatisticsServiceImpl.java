@@ -0,0 +1,56 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.CacheStats;
+import com.example.demo.service.CacheStatisticsService;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductFactsCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class CacheStatisticsServiceImpl implements CacheStatisticsService {
+
+    private final SessionFactory sessionFactory;
+    private final PageCache pageCache;
+    private final ProductFactsCache productFactsCache;
+
+    @Autowired
+    public CacheStatisticsServiceImpl(SessionFactory sessionFactory, PageCache pageCache,
+                                      ProductFactsCache productFactsCache) {
+        this.sessionFactory = sessionFactory;
+        this.pageCache = pageCache;
+        this.productFactsCache = productFactsCache;
+    }
+
+    @Override
+    public List<CacheStats> getCacheStats() {
+        List<CacheStats> stats = new ArrayList<>();
+        stats.add(pageCache.getStats());
+        stats.add(productFactsCache.getStats());
+        Statistics statistics = sessionFactory.getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return stats;
+        }
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        for (String regionName : regionNames) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                // JCache 不提供筆數時會回傳 Long.MIN_VALUE，統一以 -1 表示未知
+                long size = Math.max(region.getElementCountInMemory(), -1);
+                stats.add(new CacheStats("hibernate:" + regionName, region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), size));
+            }
+        }
+        stats.add(new CacheStats("hibernate:query-cache", statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount(), -1));
+        return stats;
+    }
+}
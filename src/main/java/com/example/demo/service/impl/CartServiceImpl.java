@@ -3,6 +3,7 @@ package com.example.demo.service.impl;
 import com.example.demo.model.Cart;
 import com.example.demo.model.CartItem;
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductFacts;
 import com.example.demo.service.CartService;
 import org.springframework.stereotype.Service;
 
@@ -20,15 +21,29 @@ public class CartServiceImpl implements CartService {
         if (product == null) {
             throw new IllegalArgumentException("Product must not be null");
         }
+        addItem(cart, product.getId(), product.getName(), product.getPrice(), quantity);
+    }
 
+    @Override
+    public void addItem(Cart cart, ProductFacts product, int quantity) {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart must not be null");
+        }
+        if (product == null) {
+            throw new IllegalArgumentException("Product must not be null");
+        }
+        addItem(cart, product.getId(), product.getName(), product.getPrice(), quantity);
+    }
+
+    private void addItem(Cart cart, Long productId, String name, BigDecimal price, int quantity) {
         int safeQuantity = quantity <= 0 ? 1 : quantity;
         Map<Long, CartItem> items = cart.getItems();
-        CartItem existingItem = items.get(product.getId());
+        CartItem existingItem = items.get(productId);
         if (existingItem != null) {
             existingItem.increaseQuantity(safeQuantity);
         } else {
-            CartItem cartItem = new CartItem(product.getId(), product.getName(), product.getPrice(), safeQuantity);
-            items.put(product.getId(), cartItem);
+            CartItem cartItem = new CartItem(productId, name, price, safeQuantity);
+            items.put(productId, cartItem);
         }
         cart.recalculateTotalPrice();
     }
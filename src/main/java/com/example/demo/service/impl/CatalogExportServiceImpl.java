@@ -0,0 +1,171 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.ProductExportRow;
+import com.example.demo.service.CatalogExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 商品目錄匯出：DAO 逐筆捲動，這裡逐筆格式化後直接寫到輸出串流，並定期 flush 讓下載持續進行。
+ * 不使用 Spring 交易，StatelessSession 自行取得連線，匯出期間不佔用 Session 快取。
+ */
+@Service
+public class CatalogExportServiceImpl implements CatalogExportService {
+
+    static final String[] CSV_COLUMNS = {
+            "id", "name", "category", "price", "stock", "listed", "description", "image_url", "updated_at", "images"};
+    // 圖片網址在 CSV 中以此分隔，放在同一欄
+    static final String CSV_IMAGE_SEPARATOR = "|";
+    private static final int FLUSH_EVERY_ROWS = 200;
+
+    private final ProductDAO productDAO;
+    private final int fetchSize;
+
+    @Autowired
+    public CatalogExportServiceImpl(ProductDAO productDAO, Environment environment) {
+        this(productDAO, environment.getProperty("catalog.export.fetch-size", Integer.class, 500));
+    }
+
+    public CatalogExportServiceImpl(ProductDAO productDAO, int fetchSize) {
+        this.productDAO = productDAO;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public long exportCsv(Writer writer) throws IOException {
+        writer.write(String.join(",", CSV_COLUMNS));
+        writer.write("\r\n");
+        long count = scroll(writer, row -> {
+            StringBuilder line = new StringBuilder(256);
+            line.append(row.getId()).append(',');
+            appendCsv(line, row.getName()).append(',');
+            appendCsv(line, row.getCategory()).append(',');
+            line.append(row.getPrice() == null ? "" : row.getPrice().toPlainString()).append(',');
+            line.append(row.getStock() == null ? "" : row.getStock()).append(',');
+            line.append(row.getListed() == null ? "" : row.getListed()).append(',');
+            appendCsv(line, row.getDescription()).append(',');
+            appendCsv(line, row.getImageUrl()).append(',');
+            line.append(row.getUpdatedAt() == null ? "" : row.getUpdatedAt()).append(',');
+            appendCsv(line, String.join(CSV_IMAGE_SEPARATOR, row.getImageUrls()));
+            line.append("\r\n");
+            return line;
+        });
+        writer.flush();
+        return count;
+    }
+
+    @Override
+    public long exportJson(Writer writer) throws IOException {
+        writer.write('[');
+        boolean[] first = {true};
+        long count = scroll(writer, row -> {
+            StringBuilder json = new StringBuilder(256);
+            json.append(first[0] ? "\n" : ",\n");
+            first[0] = false;
+            json.append("{\"id\":").append(row.getId());
+            json.append(",\"name\":");
+            appendJson(json, row.getName());
+            json.append(",\"category\":");
+            appendJson(json, row.getCategory());
+            json.append(",\"price\":").append(row.getPrice() == null ? "null" : row.getPrice().toPlainString());
+            json.append(",\"stock\":").append(row.getStock());
+            json.append(",\"listed\":").append(row.getListed());
+            json.append(",\"description\":");
+            appendJson(json, row.getDescription());
+            json.append(",\"imageUrl\":");
+            appendJson(json, row.getImageUrl());
+            json.append(",\"updatedAt\":");
+            appendJson(json, row.getUpdatedAt() == null ? null : row.getUpdatedAt().toString());
+            json.append(",\"images\":[");
+            List<String> images = row.getImageUrls();
+            for (int i = 0; i < images.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                appendJson(json, images.get(i));
+            }
+            json.append("]}");
+            return json;
+        });
+        writer.write(count == 0 ? "]" : "\n]");
+        writer.flush();
+        return count;
+    }
+
+    private long scroll(Writer writer, RowFormatter formatter) throws IOException {
+        long[] written = {0};
+        Consumer<ProductExportRow> consumer = row -> {
+            try {
+                writer.append(formatter.format(row));
+                if (++written[0] % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                // 用戶端中斷下載時停止捲動，例外在外層還原
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            return productDAO.scrollExportRows(fetchSize, consumer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private StringBuilder appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private void appendJson(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private interface RowFormatter {
+        CharSequence format(ProductExportRow row);
+    }
+}
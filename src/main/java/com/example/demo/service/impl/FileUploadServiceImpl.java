@@ -1,21 +1,50 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.model.ImageEncodingStats;
+import com.example.demo.model.ImageUploadResult;
+import com.example.demo.model.ImageVariants;
+import com.example.demo.model.ProcessingState;
+import com.example.demo.model.StoredImage;
 import com.example.demo.service.FileUploadService;
+import com.example.demo.service.ImageFileRegistry;
+import com.example.demo.service.ImageProcessingPipeline;
+import com.example.demo.service.ImageStorage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletContext;
 import org.slf4j.Logger;
@@ -26,14 +55,24 @@ public class FileUploadServiceImpl implements FileUploadService {
 
     private static final Logger log = LoggerFactory.getLogger(FileUploadServiceImpl.class);
     
-    // 專案目錄的資源路徑（開發環境）
-    private static final String PROJECT_UPLOAD_DIR = "src/main/webapp/resources/images/products/";
-    // Web 資源路徑（用於瀏覽器訪問）
-    private static final String RESOURCE_PATH = "/resources/images/products/";
-    
     @Autowired(required = false)
     private ServletContext servletContext;
 
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ImageProcessingPipeline imageProcessingPipeline;
+
+    @Autowired
+    private ImageStorage imageStorage;
+
+    @Autowired
+    private ExecutorService imageUploadExecutor;
+
+    @Autowired
+    private ImageFileRegistry imageFileRegistry;
+
     
     // 允許的圖片類型
     private static final List<String> ALLOWED_CONTENT_TYPES = Arrays.asList(
@@ -48,257 +87,387 @@ public class FileUploadServiceImpl implements FileUploadService {
     // 最大檔案大小：5MB
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
     
-    // 縮圖最大寬度
-    private static final int THUMBNAIL_MAX_WIDTH = 800;
+    // 主圖最大寬度
+    private static final int THUMBNAIL_MAX_WIDTH = ImageVariants.FULL_MAX_SIZE;
     
-    // 縮圖最大高度
-    private static final int THUMBNAIL_MAX_HEIGHT = 800;
+    // 主圖最大高度
+    private static final int THUMBNAIL_MAX_HEIGHT = ImageVariants.FULL_MAX_SIZE;
+
+    // 圖片的最大像素數（寬 x 高）：5MB 的壓縮檔仍可能宣告極大的尺寸，解碼前以標頭擋下
+    private static final long MAX_PIXELS = 40_000_000L;
+
+    // 重新編碼的主圖：張數、PNG 改存 JPEG 的張數、原始檔與輸出的位元組數
+    private final AtomicLong encodedImages = new AtomicLong();
+    private final AtomicLong convertedImages = new AtomicLong();
+    private final AtomicLong encodingSourceBytes = new AtomicLong();
+    private final AtomicLong encodingOutputBytes = new AtomicLong();
 
     @Override
     public String uploadProductImage(MultipartFile file, Long productId) throws IOException {
-        log.info("========== 開始上傳圖片 ==========");
-        log.info("Product ID: {}", productId);
-        
         if (file == null || file.isEmpty()) {
             log.warn("檔案為空或 null，跳過上傳");
             return null;
         }
+        log.info("上傳商品圖片: productId={}, 檔名={}, 大小={} bytes, 類型={}",
+                productId, file.getOriginalFilename(), file.getSize(), file.getContentType());
 
-        log.info("原始檔案名稱: {}", file.getOriginalFilename());
-        log.info("檔案大小: {} bytes", file.getSize());
-        log.info("檔案類型: {}", file.getContentType());
-
-        // 驗證圖片
+        // 驗證圖片（只檢查格式標頭，不解碼）
         String validationError = validateImageFile(file);
         if (validationError != null) {
             log.error("圖片驗證失敗: {}", validationError);
             throw new IOException(validationError);
         }
-        log.info("✓ 圖片驗證通過");
 
-        // 生成唯一文件名
-        String originalFilename = file.getOriginalFilename();
-        String extension = getFileExtension(originalFilename);
-        String filename = "product_" + productId + "_" + UUID.randomUUID().toString() + extension;
-        log.info("生成的檔案名稱: {}", filename);
+        // 以內容雜湊命名：相同的圖片重複上傳時沿用既有的檔案
+        String sourceExtension = getFileExtension(file.getOriginalFilename()).toLowerCase();
+        byte[] bytes = file.getBytes();
+        String extension = outputExtension(sourceExtension, bytes);
+        String filename = contentFilename(bytes, extension);
+        String imageUrl = imageUrl(filename);
+        // 鎖住這個網址的紀錄：確認檔案存在到送出處理之間，清理不會刪掉同一個檔案
+        return imageFileRegistry.issue(imageUrl, () -> {
+            if (isStored(imageUrl, filename)) {
+                log.info("相同內容的圖片已存在或處理中，直接引用: {}", imageUrl);
+                return imageUrl;
+            }
 
-        // 處理圖片（壓縮和縮圖）
-        BufferedImage image = null;
-        try {
-            image = ImageIO.read(file.getInputStream());
-            if (image == null) {
-                throw new IOException("無法讀取圖片文件");
+            // 只保存原始檔（不對外）；對外的網址在背景處理寫入重新編碼、不含中繼資料的主圖後才有內容，
+            // 之後不再改寫。原始檔的 EXIF / GPS 不會經由網址外流，PNG 改存 JPEG 的網址也不會先放 PNG 內容
+            Path original = originalsDirectory().resolve(filename);
+            Files.createDirectories(original.getParent());
+            LocalImageStorage.writeAtomically(original, bytes);
+
+            imageProcessingPipeline.submit(productId, imageUrl,
+                    () -> processOriginal(original, sourceExtension, extension, filename));
+            log.info("圖片已保存原始檔並送入處理佇列: {}", imageUrl);
+            return imageUrl;
+        });
+    }
+
+    @Override
+    public StoredImage importProductImage(Path source) throws IOException {
+        if (source == null || !Files.isRegularFile(source)) {
+            throw new IOException("找不到圖片檔案: " + source);
+        }
+        String sourceExtension = getFileExtension(source.getFileName().toString()).toLowerCase();
+        if (!ALLOWED_EXTENSIONS.contains(sourceExtension)) {
+            throw new IOException("不支援的檔案擴展名: " + source.getFileName());
+        }
+        if (Files.size(source) > MAX_FILE_SIZE) {
+            throw new IOException("圖片文件大小不能超過 5MB: " + source.getFileName());
+        }
+        byte[] bytes = Files.readAllBytes(source);
+        String extension = outputExtension(sourceExtension, bytes);
+        String filename = contentFilename(bytes, extension);
+        String imageUrl = imageUrl(filename);
+        return imageFileRegistry.issue(imageUrl, () -> {
+            // 相同內容的上傳還在處理中時交給背景處理寫入，不重複寫同一個網址；寬度由處理完成時更新
+            if (imageProcessingPipeline.getState(imageUrl) == ProcessingState.PENDING) {
+                return new StoredImage(imageUrl, null);
             }
-            log.info("✓ 圖片讀取成功，尺寸: {}x{}", image.getWidth(), image.getHeight());
-        } catch (Exception e) {
-            log.error("✗ 讀取圖片失敗: {}", e.getMessage(), e);
-            throw new IOException("無法讀取圖片文件: " + e.getMessage(), e);
+            if (isStored(imageUrl, filename)) {
+                return new StoredImage(imageUrl, storedWidths(filename));
+            }
+            BufferedImage image = decodeImage(new ByteArrayInputStream(bytes), source.getFileName().toString());
+            BufferedImage processedImage = resizeImage(image, THUMBNAIL_MAX_WIDTH, THUMBNAIL_MAX_HEIGHT);
+            int encodedBytes = writeImage(processedImage, extension, filename);
+            recordEncoding(sourceExtension, extension, bytes.length, encodedBytes);
+            return new StoredImage(imageUrl, writeVariants(processedImage, extension, filename));
+        });
+    }
+
+    @Override
+    public String generateVariants(String imageUrl) throws IOException {
+        String filename = imageStorage.keyOf(imageUrl);
+        if (filename == null) {
+            throw new IOException("不是站內上傳的圖片: " + imageUrl);
         }
-        
-        BufferedImage processedImage = resizeImage(image);
-        log.info("✓ 圖片處理完成");
-        
-        // 獲取圖片格式
-        String formatName = extension.substring(1).toLowerCase();
-        if (formatName.equals("jpg")) {
-            formatName = "jpeg";
+        // 有保存原始檔時由原始檔產生，畫質較好；舊圖片只有縮過的主圖
+        Path original = originalsDirectory().resolve(filename);
+        BufferedImage image;
+        if (Files.isRegularFile(original)) {
+            image = decodeImage(original.toFile(), filename);
+        } else {
+            image = decodeImage(new ByteArrayInputStream(imageStorage.read(filename)), filename);
         }
-        log.info("圖片格式: {}", formatName);
-        
-        // 保存文件到專案目錄（確保開發環境能看到）
-        // 從 ServletContext 獲取專案根目錄
-        Path projectPath = null;
-        
-        if (servletContext != null) {
+        return writeVariants(resizeImage(image, THUMBNAIL_MAX_WIDTH, THUMBNAIL_MAX_HEIGHT),
+                getFileExtension(filename), filename);
+    }
+
+    @Override
+    public boolean isManagedImage(String imageUrl) {
+        return imageStorage.keyOf(imageUrl) != null;
+    }
+
+    /**
+     * 背景工作：由原始檔解碼、縮圖，寫入對外的圖片檔並產生衍生尺寸
+     */
+    private String processOriginal(Path original, String sourceExtension, String extension, String filename)
+            throws IOException {
+        // 網址以一年 immutable 快取提供，寫入後不再改寫：排隊期間相同內容已由匯入寫入時直接完成
+        if (imageStorage.exists(filename)) {
+            log.info("相同內容的圖片已寫入，略過處理: {}", filename);
+            return storedWidths(filename);
+        }
+        BufferedImage image = decodeImage(original.toFile(), filename);
+        BufferedImage processedImage = resizeImage(image, THUMBNAIL_MAX_WIDTH, THUMBNAIL_MAX_HEIGHT);
+        int encodedBytes = writeImage(processedImage, extension, filename);
+        long sourceBytes = Files.size(original);
+        recordEncoding(sourceExtension, extension, sourceBytes, encodedBytes);
+        String variantWidths = writeVariants(processedImage, extension, filename);
+        log.info("✓ 圖片處理完成: {}（解碼 {}x{} → {}x{}，{} → {} bytes，衍生尺寸 {}）", filename,
+                image.getWidth(), image.getHeight(), processedImage.getWidth(), processedImage.getHeight(),
+                sourceBytes, encodedBytes, variantWidths);
+        return variantWidths;
+    }
+
+    /**
+     * 解碼圖片，只解碼一次並在解碼時抽樣：先由標頭讀出尺寸，再以 ImageReadParam 的來源抽樣
+     * 直接解出約為主圖兩倍大小的影像（6000x4000 的照片不再先展開成約 96MB 的 BufferedImage），
+     * 剩下的縮小交給 resizeImage 平滑處理。source 為 File 或 InputStream。
+     */
+    private BufferedImage decodeImage(Object source, String name) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("無法讀取圖片文件: " + name);
+            }
+            ImageReader reader = readers.next();
             try {
-                String webappRealPath = servletContext.getRealPath("/");
-                if (webappRealPath != null && !webappRealPath.isBlank()) {
-                    // webappRealPath 通常是: .../target/yingshop/ 或 .../wtpwebapps/yingshop/
-                    // 或者在 Eclipse 中: .../tmp0/wtpwebapps/yingshop/
-                    Path webappPath = Paths.get(webappRealPath).normalize();
-                    log.info("Webapp 實際路徑: {}", webappPath);
-                    
-                    // 從 webapp 路徑向上查找專案根目錄
-                    // 例如: .../target/yingshop/ -> .../target/ -> .../ (專案根)
-                    // 或者: .../wtpwebapps/yingshop/ -> .../tmp0/wtpwebapps/ -> .../tmp0/ -> ...
-                    Path current = webappPath.getParent();
-                    int maxDepth = 15; // 最多向上查找15層
-                    
-                    while (current != null && maxDepth-- > 0) {
-                        // 檢查是否存在 src/main/webapp 目錄
-                        Path srcMainWebapp = current.resolve("src/main/webapp");
-                        if (Files.exists(srcMainWebapp) && Files.isDirectory(srcMainWebapp)) {
-                            projectPath = current.resolve(PROJECT_UPLOAD_DIR).normalize();
-                            log.info("找到專案根目錄: {}", current);
-                            break;
-                        }
-                        current = current.getParent();
-                    }
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new IOException("圖片尺寸過大（" + width + "x" + height + "）: " + name);
                 }
-            } catch (Exception e) {
-                log.warn("無法從 ServletContext 獲取專案路徑: {}", e.getMessage());
-            }
-        }
-        
-        // 如果找不到，嘗試使用已知的專案路徑
-        if (projectPath == null || !Files.exists(projectPath.getParent())) {
-            // 嘗試常見的專案路徑
-            String[] possiblePaths = {
-                "D:\\Ying\\workspace\\yingshop",
-                System.getProperty("project.root"),
-                System.getProperty("catalina.base") + "\\..\\..\\workspace\\yingshop"
-            };
-            
-            for (String basePath : possiblePaths) {
-                if (basePath != null && !basePath.isEmpty()) {
-                    try {
-                        Path testPath = Paths.get(basePath, PROJECT_UPLOAD_DIR).normalize();
-                        Path parent = testPath.getParent();
-                        if (parent != null && Files.exists(parent)) {
-                            projectPath = testPath;
-                            log.info("使用備用專案路徑: {}", basePath);
-                            break;
-                        }
-                    } catch (Exception e) {
-                        // 忽略無效路徑
-                    }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (2 * THUMBNAIL_MAX_WIDTH));
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
                 }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
             }
         }
-        
-        // 如果還是找不到，記錄錯誤但繼續使用部署路徑
-        if (projectPath == null || !Files.exists(projectPath.getParent())) {
-            log.warn("無法確定專案根目錄，將僅使用部署路徑");
-            // 使用部署路徑作為專案路徑（至少能保存檔案）
-            if (servletContext != null) {
-                String deployRealPath = servletContext.getRealPath(RESOURCE_PATH);
-                if (deployRealPath != null && !deployRealPath.isBlank()) {
-                    projectPath = Paths.get(deployRealPath).normalize();
-                }
-            }
+    }
+
+    /**
+     * 由主圖產生比主圖窄的衍生寬度（不放大，也不另存與主圖相同的檔案），回傳實際寫出的寬度（含主圖）
+     */
+    private String writeVariants(BufferedImage fullImage, String extension, String filename) throws IOException {
+        List<Integer> widths = ImageVariants.derivativeWidthsFor(fullImage.getWidth());
+        for (int width : widths) {
+            writeImage(resizeImage(fullImage, width, Integer.MAX_VALUE), extension,
+                    ImageVariants.variantUrl(filename, width));
         }
-        
-        log.info("最終使用的專案路徑: {}", projectPath != null ? projectPath.toAbsolutePath() : "null");
-        
-        try {
-            if (!Files.exists(projectPath)) {
-                Files.createDirectories(projectPath);
-                log.info("✓ 已建立專案目錄: {}", projectPath.toAbsolutePath());
-            } else {
-                log.info("✓ 專案目錄已存在: {}", projectPath.toAbsolutePath());
-            }
-            
-            Path projectFilePath = projectPath.resolve(filename);
-            log.info("完整檔案路徑: {}", projectFilePath.toAbsolutePath());
-            
-            // 寫入檔案
-            boolean writeSuccess = ImageIO.write(processedImage, formatName, projectFilePath.toFile());
-            if (!writeSuccess) {
-                log.error("✗ ImageIO.write 返回 false，寫入可能失敗");
+        return ImageVariants.widths(widths, fullImage.getWidth());
+    }
+
+    /**
+     * 已寫入的圖片的寬度：由主圖標頭讀出寬度，衍生檔依 writeVariants 相同的規則產生
+     */
+    private String storedWidths(String filename) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(
+                new ByteArrayInputStream(imageStorage.read(filename)))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("無法讀取圖片文件: " + filename);
             }
-            
-            // 強制同步到磁碟
-            System.out.flush();
-            System.err.flush();
-            
-            // 等待一小段時間確保檔案系統更新
+            ImageReader reader = readers.next();
             try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.warn("等待過程中被中斷");
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                return ImageVariants.widths(ImageVariants.derivativeWidthsFor(width), width);
+            } finally {
+                reader.dispose();
             }
-            
-            // 驗證檔案是否真的寫入成功
-            if (Files.exists(projectFilePath)) {
-                long fileSize = Files.size(projectFilePath);
-                log.info("✓✓✓ 圖片已成功儲存到專案目錄: {}", projectFilePath.toAbsolutePath());
-                log.info("  - 檔案大小: {} bytes", fileSize);
-                log.info("  - 檔案可讀: {}", Files.isReadable(projectFilePath));
-                System.out.println("【檔案上傳成功】路徑: " + projectFilePath.toAbsolutePath());
-            } else {
-                log.error("✗✗✗ 圖片儲存失敗！檔案不存在: {}", projectFilePath.toAbsolutePath());
-                System.err.println("【檔案上傳失敗】路徑不存在: " + projectFilePath.toAbsolutePath());
-                throw new IOException("檔案寫入失敗，檔案不存在: " + projectFilePath.toAbsolutePath());
+        }
+    }
+
+    /**
+     * 內容定址的檔名：上傳內容的 SHA-256（前 128 位元）加副檔名。
+     * 縮圖的處理是固定的，相同的輸入會得到相同的輸出，因此以輸入內容決定名稱，不必等背景處理完成。
+     */
+    private String contentFilename(byte[] bytes, String extension) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", digest[i]));
             }
-        } catch (Exception e) {
-            log.error("✗✗✗ 儲存檔案時發生異常: {}", e.getMessage(), e);
-            System.err.println("【檔案上傳異常】: " + e.getMessage());
-            e.printStackTrace();
-            throw new IOException("儲存檔案時發生錯誤: " + e.getMessage(), e);
+            return hex + extension;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
+    }
 
-        // 同時保存到部署路徑（如果存在且不同）
-        log.info("========== 檢查部署路徑 ==========");
-        if (servletContext != null) {
-            try {
-                String deployRealPath = servletContext.getRealPath(RESOURCE_PATH);
-                log.info("ServletContext 部署路徑: {}", deployRealPath);
-                
-                if (deployRealPath != null && !deployRealPath.isBlank()) {
-                    Path deployPath = Paths.get(deployRealPath).normalize();
-                    Path absoluteProjectPath = projectPath.toAbsolutePath().normalize();
-                    
-                    log.info("部署路徑 (絕對): {}", deployPath.toAbsolutePath());
-                    log.info("專案路徑 (絕對): {}", absoluteProjectPath);
-                    
-                    // 如果部署路徑和專案路徑不同，才保存到部署路徑
-                    if (!deployPath.equals(absoluteProjectPath)) {
-                        log.info("路徑不同，將同時儲存到部署路徑");
-                        if (!Files.exists(deployPath)) {
-                            Files.createDirectories(deployPath);
-                            log.info("✓ 已建立部署目錄: {}", deployPath.toAbsolutePath());
-                        }
-                        Path deployFilePath = deployPath.resolve(filename);
-                        ImageIO.write(processedImage, formatName, deployFilePath.toFile());
-                        log.info("圖片已同時儲存到部署目錄: {}", deployFilePath.toAbsolutePath());
-                        
-                        // 驗證部署路徑的檔案
-                        if (Files.exists(deployFilePath)) {
-                            log.info("✓ 部署路徑檔案已確認存在: {}", deployFilePath.toAbsolutePath());
-                        } else {
-                            log.warn("⚠ 部署路徑檔案驗證失敗");
-                        }
-                    } else {
-                        log.info("部署路徑與專案路徑相同，跳過重複儲存");
-                    }
-                } else {
-                    log.warn("無法取得部署路徑（servletContext.getRealPath 返回 null）");
+    /**
+     * 相同內容的圖片檔已存在或正在處理（處理失敗的不算，重新處理一次）
+     */
+    private boolean isStored(String imageUrl, String filename) throws IOException {
+        ProcessingState state = imageProcessingPipeline.getState(imageUrl);
+        return state == ProcessingState.PENDING
+                || (state != ProcessingState.FAILED && imageStorage.exists(filename));
+    }
+
+    /**
+     * 原始檔保存目錄（不在網站根目錄下，不對外提供）
+     */
+    private Path originalsDirectory() {
+        return Paths.get(environment.getProperty("image.originals.dir",
+                Paths.get(System.getProperty("user.home"), "yingshop", "originals").toString()));
+    }
+
+    /**
+     * 編碼後寫入圖片儲存（只寫一份），回傳寫入的位元組數
+     */
+    private int writeImage(BufferedImage image, String extension, String filename) throws IOException {
+        byte[] encoded = encodeImage(image, formatName(extension));
+        imageStorage.write(filename, encoded, contentType(extension));
+        return encoded.length;
+    }
+
+    /**
+     * 編碼輸出的圖片：JPEG 依 image.encoding.jpeg-quality 的品質編碼，image.encoding.progressive 開啟時輸出漸進式 JPEG。
+     * 只寫入像素，不帶原始檔的中繼資料（EXIF、GPS 位置、縮圖、註解等）。
+     */
+    private byte[] encodeImage(BufferedImage image, String formatName) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        if (!writers.hasNext()) {
+            throw new IOException("不支援的圖片輸出格式: " + formatName);
+        }
+        boolean jpeg = "jpeg".equals(formatName);
+        // JPEG 沒有透明度，透明的部分以白色填滿
+        BufferedImage output = jpeg ? withoutAlpha(image) : image;
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (jpeg) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(environment.getProperty("image.encoding.jpeg-quality", Float.class, 0.82f));
+                if (environment.getProperty("image.encoding.progressive", Boolean.class, true)) {
+                    param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
                 }
-            } catch (Exception e) {
-                log.warn("無法儲存到部署目錄: {}", e.getMessage(), e);
-                e.printStackTrace();
             }
-        } else {
-            log.warn("ServletContext 為 null，跳過部署路徑儲存");
+            writer.write(null, new IIOImage(output, null, null), param);
+        } finally {
+            writer.dispose();
         }
+        return out.toByteArray();
+    }
 
-        log.info("========== 圖片上傳完成 ==========");
-        String contextPath = (servletContext != null) ? servletContext.getContextPath() : "";
-        String imageUrl = contextPath + RESOURCE_PATH + filename;
-        log.info("返回的圖片 URL: {}", imageUrl);
-        
-        // 回傳含 contextPath 的可訪問 URL（例如 /yingshop/resources/...）
-        return imageUrl;
+    private BufferedImage withoutAlpha(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage opaque = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = opaque.createGraphics();
+        g.drawImage(image, 0, 0, Color.WHITE, null);
+        g.dispose();
+        return opaque;
+    }
+
+    /**
+     * 輸出的副檔名：image.encoding.png-to-jpeg 開啟時，沒有透明度的全彩 PNG（多半是照片）改存 JPEG。
+     * 只讀標頭判斷；調色盤 PNG（圖示、線條圖）與有透明度的 PNG 維持 PNG
+     */
+    private String outputExtension(String extension, byte[] bytes) throws IOException {
+        if (!".png".equals(extension) || !environment.getProperty("image.encoding.png-to-jpeg", Boolean.class, true)) {
+            return extension;
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return extension;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageTypeSpecifier type = reader.getRawImageType(0);
+                ColorModel colorModel = type != null ? type.getColorModel() : null;
+                boolean photo = colorModel != null && !colorModel.hasAlpha() && !(colorModel instanceof IndexColorModel);
+                return photo ? ".jpg" : extension;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void recordEncoding(String sourceExtension, String extension, long sourceBytes, long encodedBytes) {
+        encodedImages.incrementAndGet();
+        if (!formatName(sourceExtension).equals(formatName(extension))) {
+            convertedImages.incrementAndGet();
+        }
+        encodingSourceBytes.addAndGet(sourceBytes);
+        encodingOutputBytes.addAndGet(encodedBytes);
     }
 
     @Override
-    public List<String> uploadProductImages(List<MultipartFile> files, Long productId) throws IOException {
-        List<String> imageUrls = new ArrayList<>();
+    public ImageEncodingStats getEncodingStats() {
+        return new ImageEncodingStats(encodedImages.get(), convertedImages.get(), encodingSourceBytes.get(),
+                encodingOutputBytes.get());
+    }
+
+    private String formatName(String extension) {
+        String formatName = extension.substring(1).toLowerCase();
+        return formatName.equals("jpg") ? "jpeg" : formatName;
+    }
+
+    private String contentType(String extension) {
+        return "image/" + formatName(extension);
+    }
+
+    private String imageUrl(String filename) {
+        // 站內路徑回傳含 contextPath 的可訪問 URL（例如 /yingshop/resources/...）；物件儲存回傳完整網址
+        String url = imageStorage.publicUrl(filename);
+        if (url.startsWith("/") && servletContext != null) {
+            return servletContext.getContextPath() + url;
+        }
+        return url;
+    }
+
+    @Override
+    public ImageUploadResult uploadProductImages(List<MultipartFile> files, Long productId) {
+        ImageUploadResult result = new ImageUploadResult();
         if (files == null || files.isEmpty()) {
-            return imageUrls;
+            return result;
         }
-        
+        List<MultipartFile> validFiles = new ArrayList<>();
         for (MultipartFile file : files) {
             if (file != null && !file.isEmpty()) {
-                String imageUrl = uploadProductImage(file, productId);
-                if (imageUrl != null) {
-                    imageUrls.add(imageUrl);
-                }
+                validFiles.add(file);
             }
         }
-        
-        return imageUrls;
+
+        // 各檔案同時處理（單一檔案直接在目前的執行緒處理），結果依檔案順序收集
+        List<Future<String>> uploads = new ArrayList<>();
+        for (MultipartFile file : validFiles) {
+            Callable<String> upload = () -> uploadProductImage(file, productId);
+            uploads.add(validFiles.size() > 1 ? imageUploadExecutor.submit(upload) : completed(upload));
+        }
+        for (int i = 0; i < validFiles.size(); i++) {
+            String filename = validFiles.get(i).getOriginalFilename();
+            try {
+                result.addUploaded(filename, uploads.get(i).get());
+            } catch (ExecutionException e) {
+                log.warn("圖片上傳失敗: {} - {}", filename, e.getCause().getMessage());
+                result.addFailed(filename, e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                uploads.get(i).cancel(true);
+                result.addFailed(filename, "上傳已中斷");
+            }
+        }
+        return result;
+    }
+
+    private static Future<String> completed(Callable<String> upload) {
+        FutureTask<String> task = new FutureTask<>(upload);
+        task.run();
+        return task;
     }
 
     @Override
@@ -329,12 +498,21 @@ public class FileUploadServiceImpl implements FileUploadService {
             return "不支援的檔案擴展名，僅支援 .jpg、.jpeg、.png、.gif、.webp";
         }
         
-        // 嘗試讀取圖片以驗證是否為有效圖片
-        try {
-            BufferedImage image = ImageIO.read(file.getInputStream());
-            if (image == null) {
+        // 以格式標頭確認是可讀取的圖片並讀出尺寸（不解碼像素，解碼在背景處理時進行）
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.getInputStream())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
                 return "無法讀取圖片，請確認文件是否為有效的圖片格式";
             }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    return "圖片尺寸過大，寬高相乘不能超過 4000 萬像素";
+                }
+            } finally {
+                reader.dispose();
+            }
         } catch (IOException e) {
             return "無法讀取圖片文件：" + e.getMessage();
         }
@@ -348,67 +526,17 @@ public class FileUploadServiceImpl implements FileUploadService {
             return;
         }
 
-        // 如果路径是相对路径（/resources/images/products/...），转换为文件系统路径
-        if (imagePath.startsWith(RESOURCE_PATH)) {
-            String filename = imagePath.substring(RESOURCE_PATH.length());
-            
-            // 嘗試刪除部署路徑的檔案
-            if (servletContext != null) {
-                try {
-                    String deployRealPath = servletContext.getRealPath(RESOURCE_PATH);
-                    if (deployRealPath != null && !deployRealPath.isBlank()) {
-                        Path deployPath = Paths.get(deployRealPath, filename);
-                        if (Files.exists(deployPath)) {
-                            Files.delete(deployPath);
-                            log.info("已刪除部署路徑檔案: {}", deployPath);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.debug("無法刪除部署路徑檔案: {}", e.getMessage());
-                }
-            }
-            
-            // 同時嘗試刪除專案路徑的檔案
-            try {
-                Path projectPath = Paths.get(System.getProperty("user.dir"), PROJECT_UPLOAD_DIR, filename).normalize();
-                if (Files.exists(projectPath)) {
-                    Files.delete(projectPath);
-                    log.info("已刪除專案路徑檔案: {}", projectPath.toAbsolutePath());
-                }
-            } catch (Exception e) {
-                log.debug("無法刪除專案路徑檔案: {}", e.getMessage());
-            }
-        } else if (imagePath.startsWith("/")) {
-            // 处理绝对路径的情况
-            String filename = imagePath.substring(imagePath.lastIndexOf("/") + 1);
-            
-            // 嘗試刪除部署路徑的檔案
-            if (servletContext != null) {
-                try {
-                    String deployRealPath = servletContext.getRealPath(RESOURCE_PATH);
-                    if (deployRealPath != null && !deployRealPath.isBlank()) {
-                        Path deployPath = Paths.get(deployRealPath, filename);
-                        if (Files.exists(deployPath)) {
-                            Files.delete(deployPath);
-                            log.info("已刪除部署路徑檔案: {}", deployPath);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.debug("無法刪除部署路徑檔案: {}", e.getMessage());
-                }
-            }
-            
-            // 同時嘗試刪除專案路徑的檔案
-            try {
-                Path projectPath = Paths.get(System.getProperty("user.dir"), PROJECT_UPLOAD_DIR, filename).normalize();
-                if (Files.exists(projectPath)) {
-                    Files.delete(projectPath);
-                    log.info("已刪除專案路徑檔案: {}", projectPath.toAbsolutePath());
-                }
-            } catch (Exception e) {
-                log.debug("無法刪除專案路徑檔案: {}", e.getMessage());
-            }
+        // 外部網址的圖片不是由這裡儲存的，不處理
+        String filename = imageStorage.keyOf(imagePath);
+        if (filename == null) {
+            return;
+        }
+        imageStorage.delete(filename);
+        // 衍生尺寸的檔案與原始檔一併刪除
+        for (int width : ImageVariants.derivativeWidths()) {
+            imageStorage.delete(ImageVariants.variantUrl(filename, width));
         }
+        Files.deleteIfExists(originalsDirectory().resolve(filename));
     }
     
     /**
@@ -422,27 +550,30 @@ public class FileUploadServiceImpl implements FileUploadService {
     }
     
     /**
-     * 調整圖片大小（壓縮和縮圖）
+     * 調整圖片大小（壓縮和縮圖），等比例縮到不超過 maxWidth x maxHeight
      */
-    private BufferedImage resizeImage(BufferedImage originalImage) {
+    private BufferedImage resizeImage(BufferedImage originalImage, int maxWidth, int maxHeight) {
         int originalWidth = originalImage.getWidth();
         int originalHeight = originalImage.getHeight();
         
         // 如果圖片已經小於最大尺寸，直接返回
-        if (originalWidth <= THUMBNAIL_MAX_WIDTH && originalHeight <= THUMBNAIL_MAX_HEIGHT) {
+        if (originalWidth <= maxWidth && originalHeight <= maxHeight) {
             return originalImage;
         }
         
         // 計算縮放比例
-        double widthRatio = (double) THUMBNAIL_MAX_WIDTH / originalWidth;
-        double heightRatio = (double) THUMBNAIL_MAX_HEIGHT / originalHeight;
+        double widthRatio = (double) maxWidth / originalWidth;
+        double heightRatio = (double) maxHeight / originalHeight;
         double ratio = Math.min(widthRatio, heightRatio);
         
-        int newWidth = (int) (originalWidth * ratio);
-        int newHeight = (int) (originalHeight * ratio);
+        // 受限的那一邊直接用上限值，衍生檔的實際寬度才會與檔名上的寬度一致（不受浮點誤差影響）
+        int newWidth = widthRatio <= heightRatio ? maxWidth : Math.max((int) (originalWidth * ratio), 1);
+        int newHeight = widthRatio <= heightRatio ? Math.max((int) (originalHeight * ratio), 1) : maxHeight;
         
         // 創建縮放後的圖片
-        BufferedImage resizedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
+        // 有透明度的圖片（PNG、GIF）保留透明度
+        int imageType = originalImage.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage resizedImage = new BufferedImage(newWidth, newHeight, imageType);
         Graphics2D g = resizedImage.createGraphics();
         
         // 設置高品質渲染
@@ -0,0 +1,116 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.service.ImageStorage;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * 存放在本機（或掛載的共用）目錄的圖片，網址為 /resources/images/products/{key}，由 WebMvcConfig 對應到這個目錄。
+ * readOnlyDirectories 是舊版放在網站目錄內的圖片，只供讀取（產生衍生尺寸），不寫入也不刪除。
+ */
+public class LocalImageStorage implements ImageStorage {
+
+    public static final String URL_PREFIX = "/resources/images/products/";
+
+    private final Path directory;
+    private final List<Path> readOnlyDirectories;
+
+    public LocalImageStorage(Path directory, List<Path> readOnlyDirectories) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.readOnlyDirectories = List.copyOf(readOnlyDirectories);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void write(String key, byte[] data, String contentType) throws IOException {
+        Files.createDirectories(directory);
+        writeAtomically(resolve(directory, key), data);
+    }
+
+    @Override
+    public byte[] read(String key) throws IOException {
+        Path file = find(key);
+        if (file == null) {
+            throw new NoSuchFileException(key);
+        }
+        return Files.readAllBytes(file);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return find(key) != null;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(directory, key));
+    }
+
+    @Override
+    public String publicUrl(String key) {
+        return URL_PREFIX + key;
+    }
+
+    @Override
+    public String keyOf(String imageUrl) {
+        // 舊資料的網址可能含 contextPath（/yingshop/resources/...）
+        int index = imageUrl != null ? imageUrl.indexOf(URL_PREFIX) : -1;
+        if (index < 0) {
+            return null;
+        }
+        String key = imageUrl.substring(index + URL_PREFIX.length());
+        return isValidKey(key) ? key : null;
+    }
+
+    /**
+     * 先寫到同目錄的暫存檔再搬移取代，讀取中的請求不會看到寫到一半的檔案
+     */
+    static void writeAtomically(Path file, byte[] data) throws IOException {
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, data);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path find(String key) throws IOException {
+        Path file = resolve(directory, key);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        for (Path readOnly : readOnlyDirectories) {
+            Path candidate = resolve(readOnly, key);
+            if (Files.isRegularFile(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static Path resolve(Path base, String key) throws IOException {
+        if (!isValidKey(key)) {
+            throw new IOException("無效的圖片名稱: " + key);
+        }
+        return base.resolve(key);
+    }
+
+    private static boolean isValidKey(String key) {
+        return key != null && !key.isEmpty() && !key.startsWith(".")
+                && key.indexOf('/') < 0 && key.indexOf('\\') < 0;
+    }
+}
@@ -5,6 +5,7 @@ import com.example.demo.dao.ProductDAO;
 import com.example.demo.model.*;
 import com.example.demo.service.AddressService;
 import com.example.demo.service.OrderService;
+import com.example.demo.service.PageCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,12 +22,15 @@ public class OrderServiceImpl implements OrderService {
     private final OrderDAO orderDAO;
     private final ProductDAO productDAO;
     private final AddressService addressService;
+    private final PageCache pageCache;
 
     @Autowired
-    public OrderServiceImpl(OrderDAO orderDAO, ProductDAO productDAO, AddressService addressService) {
+    public OrderServiceImpl(OrderDAO orderDAO, ProductDAO productDAO, AddressService addressService,
+                            PageCache pageCache) {
         this.orderDAO = orderDAO;
         this.productDAO = productDAO;
         this.addressService = addressService;
+        this.pageCache = pageCache;
     }
 
     @Override
@@ -259,6 +263,15 @@ public class OrderServiceImpl implements OrderService {
         return orderDAO.findByUser(user);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderSummary> listRecentOrders(User user, int limit) {
+        if (user == null) {
+            return List.of();
+        }
+        return orderDAO.findRecentByUser(user.getId(), limit);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Order> getAllOrders() {
@@ -357,6 +370,8 @@ public class OrderServiceImpl implements OrderService {
                 int newStock = currentStock - cartItem.getQuantity();
                 product.setStock(Math.max(0, newStock));
                 productDAO.save(product);
+                // 商品列表會顯示庫存狀態
+                pageCache.productChanged(product.getId());
             }
         }
     }
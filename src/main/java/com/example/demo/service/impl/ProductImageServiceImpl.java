@@ -1,39 +1,132 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.dao.ProductImageDAO;
+import com.example.demo.model.ProcessingState;
 import com.example.demo.model.ProductImage;
+import com.example.demo.service.FileUploadService;
+import com.example.demo.service.ImageFileRegistry;
+import com.example.demo.service.ImageProcessingPipeline;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductFactsCache;
 import com.example.demo.service.ProductImageService;
+import com.example.demo.service.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ProductImageServiceImpl implements ProductImageService {
 
+    private static final Logger log = LoggerFactory.getLogger(ProductImageServiceImpl.class);
+
     @Autowired
     private ProductImageDAO productImageDAO;
 
+    @Autowired
+    private PageCache pageCache;
+
+    @Autowired
+    private ProductFactsCache productFactsCache;
+
+    @Autowired
+    private ImageProcessingPipeline imageProcessingPipeline;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Autowired
+    private ImageFileRegistry imageFileRegistry;
+
     @Override
     public List<ProductImage> getImagesByProductId(Long productId) {
         return productImageDAO.findByProductId(productId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<ProductImage>> getImagesByProductIds(Collection<Long> productIds) {
+        Map<Long, List<ProductImage>> imagesByProduct = new HashMap<>();
+        for (ProductImage image : productImageDAO.findByProductIds(productIds)) {
+            Long productId = image.getProduct().getId();
+            imagesByProduct.computeIfAbsent(productId, key -> new ArrayList<>()).add(image);
+        }
+        return imagesByProduct;
+    }
+
     @Override
     public void saveProductImage(ProductImage productImage) {
+        String imageUrl = productImage.getImageUrl();
+        // 編輯時既有紀錄也可能換成新上傳的圖片，因此不限新紀錄
+        ProcessingState state = imageProcessingPipeline.getState(imageUrl);
+        if (state != null) {
+            // 新上傳的圖片還在背景處理（或剛處理完）
+            productImage.setProcessingState(state);
+            productImage.setVariantWidths(imageProcessingPipeline.getVariantWidths(imageUrl));
+        } else if (productImage.getVariantWidths() == null && imageUrl != null) {
+            // 重複上傳相同內容時沿用既有的檔案，衍生尺寸與其他引用同一檔案的紀錄相同
+            productImage.setVariantWidths(productImageDAO.findVariantWidths(imageUrl));
+        }
         productImageDAO.save(productImage);
+        if (state == ProcessingState.PENDING) {
+            // 處理可能在提交前完成，當時的狀態更新找不到這筆紀錄
+            TransactionCallbacks.afterCommit(() -> imageProcessingPipeline.reconcile(imageUrl));
+        }
+        Long productId = productImage.getProduct() != null ? productImage.getProduct().getId() : null;
+        pageCache.productChanged(productId);
+        // 封面圖片可能改變
+        productFactsCache.invalidate(productId);
     }
 
     @Override
     public void deleteProductImage(Long id) {
+        ProductImage image = productImageDAO.findById(id);
         productImageDAO.delete(id);
+        Long productId = image != null && image.getProduct() != null ? image.getProduct().getId() : null;
+        pageCache.productChanged(productId);
+        productFactsCache.invalidate(productId);
+        if (image != null) {
+            releaseImageFiles(List.of(image.getImageUrl()));
+        }
     }
 
     @Override
     public void deleteAllImagesByProductId(Long productId) {
+        List<String> imageUrls = productImageDAO.findByProductId(productId).stream()
+                .map(ProductImage::getImageUrl)
+                .collect(Collectors.toList());
         productImageDAO.deleteByProductId(productId);
+        pageCache.productChanged(productId);
+        productFactsCache.invalidate(productId);
+        releaseImageFiles(imageUrls);
+    }
+
+    @Override
+    public void releaseImageFiles(Collection<String> imageUrls) {
+        for (String imageUrl : new LinkedHashSet<>(imageUrls)) {
+            if (imageUrl == null || !fileUploadService.isManagedImage(imageUrl)
+                    || productImageDAO.countReferences(imageUrl) > 0) {
+                continue;
+            }
+            // 交易回滾時紀錄仍在，提交後才標記；相同內容的上傳可能剛取得網址，不在這裡直接刪檔
+            TransactionCallbacks.afterCommit(() -> {
+                try {
+                    imageFileRegistry.release(imageUrl);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to mark image file {} for deletion: {}", imageUrl, e.getMessage());
+                }
+            });
+        }
     }
 
     @Override
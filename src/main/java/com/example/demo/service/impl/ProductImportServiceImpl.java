@@ -0,0 +1,493 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.dao.ProductImportJobDAO;
+import com.example.demo.model.ImportReport;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductImage;
+import com.example.demo.model.ProductImportJob;
+import com.example.demo.model.StoredImage;
+import com.example.demo.service.CategoryIndex;
+import com.example.demo.service.CsvRecordReader;
+import com.example.demo.service.FileUploadService;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductImageService;
+import com.example.demo.service.ProductImportService;
+import com.example.demo.service.ProductSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * 大量商品匯入。每個匯入工作是匯入目錄下的一個子目錄：products.csv 加上放圖片的 images/。
+ * <p>
+ * 流程：CSV 逐筆解析並驗證，每 batchSize 筆為一批；一批的圖片交給有界的縮圖執行緒池並行處理，
+ * 同時讀下一批，再把上一批以 JDBC 批次寫入（一批一個交易）。檢查點（ProductImportJob）與同一批商品在同一個交易中寫入，
+ * 中途失敗或程序中斷時重新執行會從最後提交的位置續傳，不會重複新增。
+ */
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    static final String CSV_FILE = "products.csv";
+    static final String IMAGE_DIR = "images";
+    private static final Pattern JOB_NAME = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final int NAME_MAX_LENGTH = 255;
+    private static final int DESCRIPTION_MAX_LENGTH = 2000;
+
+    private final ProductDAO productDAO;
+    private final ProductImportJobDAO productImportJobDAO;
+    private final FileUploadService fileUploadService;
+    private final ProductImageService productImageService;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryIndex categoryIndex;
+    private final ProductSearchIndex productSearchIndex;
+    private final PageCache pageCache;
+    private final Path baseDir;
+    private final int batchSize;
+    private final int imageThreads;
+    private final AtomicReference<ImportReport> lastReport = new AtomicReference<>();
+
+    @Autowired
+    public ProductImportServiceImpl(ProductDAO productDAO, ProductImportJobDAO productImportJobDAO,
+                                    FileUploadService fileUploadService, ProductImageService productImageService,
+                                    PlatformTransactionManager transactionManager, CategoryIndex categoryIndex,
+                                    ProductSearchIndex productSearchIndex, PageCache pageCache,
+                                    Environment environment) {
+        this(productDAO, productImportJobDAO, fileUploadService, productImageService, transactionManager, categoryIndex, productSearchIndex, pageCache,
+                Paths.get(environment.getProperty("product.import.base-dir",
+                        System.getProperty("user.home") + "/yingshop/imports")),
+                environment.getProperty("product.import.batch-size", Integer.class, 500),
+                environment.getProperty("product.import.image-threads", Integer.class, 0));
+    }
+
+    public ProductImportServiceImpl(ProductDAO productDAO, ProductImportJobDAO productImportJobDAO,
+                                    FileUploadService fileUploadService, ProductImageService productImageService,
+                                    PlatformTransactionManager transactionManager, CategoryIndex categoryIndex,
+                                    ProductSearchIndex productSearchIndex, PageCache pageCache,
+                                    Path baseDir, int batchSize, int imageThreads) {
+        this.productDAO = productDAO;
+        this.productImportJobDAO = productImportJobDAO;
+        this.fileUploadService = fileUploadService;
+        this.productImageService = productImageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.categoryIndex = categoryIndex;
+        this.productSearchIndex = productSearchIndex;
+        this.pageCache = pageCache;
+        this.baseDir = baseDir.toAbsolutePath().normalize();
+        this.batchSize = Math.max(batchSize, 1);
+        // 0 表示依 CPU 數量決定
+        this.imageThreads = imageThreads > 0 ? imageThreads : Math.max(Runtime.getRuntime().availableProcessors() - 1, 1);
+    }
+
+    @Override
+    public List<String> getAvailableJobs() {
+        List<String> jobs = new ArrayList<>();
+        if (!Files.isDirectory(baseDir)) {
+            return jobs;
+        }
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(baseDir, Files::isDirectory)) {
+            for (Path directory : directories) {
+                if (Files.isRegularFile(directory.resolve(CSV_FILE))) {
+                    jobs.add(directory.getFileName().toString());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("無法讀取匯入目錄 {}: {}", baseDir, e.getMessage());
+        }
+        jobs.sort(String.CASE_INSENSITIVE_ORDER);
+        return jobs;
+    }
+
+    @Override
+    public synchronized ImportReport startImport(String jobName, boolean restart) {
+        ImportReport current = lastReport.get();
+        if (current != null && current.isRunning()) {
+            throw new IllegalStateException("匯入工作「" + current.getJobName() + "」仍在執行中");
+        }
+        Path jobDir = resolveJob(jobName);
+        if (restart) {
+            transactionTemplate.executeWithoutResult(status -> productImportJobDAO.delete(jobName));
+        }
+        ImportReport report = newReport(loadJob(jobName));
+        lastReport.set(report);
+        Thread worker = new Thread(() -> run(jobDir, report), "product-import-" + jobName);
+        worker.setDaemon(true);
+        worker.start();
+        return report;
+    }
+
+    @Override
+    public ImportReport getLastReport() {
+        return lastReport.get();
+    }
+
+    /**
+     * 在目前執行緒同步執行匯入，回傳結果
+     */
+    public ImportReport runImport(String jobName) {
+        Path jobDir = resolveJob(jobName);
+        ImportReport report = newReport(loadJob(jobName));
+        lastReport.set(report);
+        run(jobDir, report);
+        return report;
+    }
+
+    private ImportReport newReport(ProductImportJob job) {
+        return new ImportReport(job.getJobName(), job.getLastRecord(), job.getInserted(), job.getRejected(),
+                job.getImages());
+    }
+
+    /**
+     * 匯入工作的檢查點，沒有時為從頭開始的新檢查點
+     */
+    private ProductImportJob loadJob(String jobName) {
+        ProductImportJob job = transactionTemplate.execute(status -> productImportJobDAO.findByName(jobName));
+        return job != null ? job : new ProductImportJob(jobName);
+    }
+
+    private Path resolveJob(String jobName) {
+        if (jobName == null || !JOB_NAME.matcher(jobName).matches()) {
+            throw new IllegalArgumentException("匯入工作名稱無效");
+        }
+        Path jobDir = baseDir.resolve(jobName).normalize();
+        if (!jobDir.startsWith(baseDir) || !Files.isRegularFile(jobDir.resolve(CSV_FILE))) {
+            throw new IllegalArgumentException("找不到匯入檔案：" + jobName + "/" + CSV_FILE);
+        }
+        return jobDir;
+    }
+
+    private void run(Path jobDir, ImportReport report) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 佇列有上限，縮圖跟不上時由讀 CSV 的執行緒自己做，避免整個檔案的圖片工作堆在記憶體
+        ThreadPoolExecutor imagePool = new ThreadPoolExecutor(imageThreads, imageThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(imageThreads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "product-import-image-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        Chunk pending = null;
+        try (Reader file = Files.newBufferedReader(jobDir.resolve(CSV_FILE), StandardCharsets.UTF_8);
+             CsvRecordReader csv = new CsvRecordReader(file)) {
+            ProductImportJob job = loadJob(report.getJobName());
+            if (job.isCompleted()) {
+                log.info("匯入 {} 已完成，略過（需重新匯入請捨棄檢查點）", report.getJobName());
+                report.completed();
+                return;
+            }
+            Map<String, Integer> columns = readHeader(csv);
+            Path imageDir = jobDir.resolve(IMAGE_DIR).normalize();
+            long resumeAfter = job.getLastRecord();
+            // pending 是圖片已送出、還沒交給 commit 的那一批；commit 失敗時由 commit 自己刪除該批的圖片，
+            // 這裡（外層 catch）只需刪除 pending，每一批只會刪除一次
+            while (true) {
+                Chunk next = readChunk(csv, columns, imageDir, resumeAfter, report);
+                submitImages(next, imagePool);
+                Chunk committing = pending;
+                pending = next;
+                if (committing != null) {
+                    commit(committing, job, report);
+                }
+                if (next.endOfFile) {
+                    pending = null;
+                    commit(next, job, report);
+                    break;
+                }
+            }
+            job.setCompleted(true);
+            transactionTemplate.executeWithoutResult(status -> productImportJobDAO.save(job));
+            report.completed();
+            log.info("匯入 {} 完成：新增 {} 筆、拒絕 {} 筆，{} 列/秒", report.getJobName(),
+                    report.getInserted(), report.getRejected(), String.format("%.1f", report.getRowsPerSecond()));
+        } catch (Exception e) {
+            log.error("匯入 {} 失敗: {}", report.getJobName(), e.getMessage(), e);
+            if (pending != null) {
+                discardImages(pending);
+            }
+            report.failed(e.getMessage());
+        } finally {
+            imagePool.shutdownNow();
+        }
+    }
+
+    private Map<String, Integer> readHeader(CsvRecordReader csv) throws IOException {
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IOException("CSV 檔案是空的");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : new String[]{"name", "price", "category"}) {
+            if (!columns.containsKey(required)) {
+                throw new IOException("CSV 缺少必要欄位：" + required);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 讀取下一批（最多 batchSize 筆有效列）；檢查點之前的記錄只略過，不再驗證
+     */
+    private Chunk readChunk(CsvRecordReader csv, Map<String, Integer> columns, Path imageDir,
+                           long resumeAfter, ImportReport report) throws IOException {
+        Chunk chunk = new Chunk();
+        while (chunk.rows.size() < batchSize) {
+            List<String> record = csv.next();
+            if (record == null) {
+                chunk.endOfFile = true;
+                break;
+            }
+            long recordNumber = csv.getRecordNumber();
+            chunk.lastRecord = recordNumber;
+            if (recordNumber <= resumeAfter) {
+                continue;
+            }
+            report.rowsProcessed(1);
+            ImportRow row = new ImportRow(recordNumber);
+            String error = parse(record, columns, imageDir, row);
+            if (error != null) {
+                report.rejected(recordNumber, error);
+                chunk.rejected++;
+            } else {
+                chunk.rows.add(row);
+            }
+        }
+        if (chunk.lastRecord == 0) {
+            chunk.lastRecord = csv.getRecordNumber();
+        }
+        return chunk;
+    }
+
+    private String parse(List<String> record, Map<String, Integer> columns, Path imageDir, ImportRow row) {
+        Product product = row.product;
+        String name = field(record, columns, "name");
+        if (name == null) {
+            return "名稱不能為空";
+        }
+        if (name.length() > NAME_MAX_LENGTH) {
+            return "名稱超過 " + NAME_MAX_LENGTH + " 個字元";
+        }
+        product.setName(name);
+        String category = field(record, columns, "category");
+        if (category == null) {
+            return "分類不能為空";
+        }
+        product.setCategory(category);
+        try {
+            BigDecimal price = new BigDecimal(field(record, columns, "price"));
+            if (price.signum() < 0) {
+                return "價格不能為負數";
+            }
+            product.setPrice(price);
+        } catch (NullPointerException | NumberFormatException e) {
+            return "價格格式錯誤";
+        }
+        String stock = field(record, columns, "stock");
+        try {
+            product.setStock(stock == null ? 0 : Integer.parseInt(stock));
+        } catch (NumberFormatException e) {
+            return "庫存格式錯誤";
+        }
+        if (product.getStock() < 0) {
+            return "庫存不能為負數";
+        }
+        String listed = field(record, columns, "listed");
+        if (listed != null) {
+            switch (listed.toLowerCase(Locale.ROOT)) {
+                case "true": case "1": case "yes": case "y":
+                    product.setListed(true);
+                    break;
+                case "false": case "0": case "no": case "n":
+                    product.setListed(false);
+                    break;
+                default:
+                    return "上架狀態格式錯誤";
+            }
+        }
+        String description = field(record, columns, "description");
+        if (description != null && description.length() > DESCRIPTION_MAX_LENGTH) {
+            return "描述超過 " + DESCRIPTION_MAX_LENGTH + " 個字元";
+        }
+        product.setDescription(description);
+        String images = field(record, columns, "images");
+        if (images != null) {
+            for (String entry : images.split("\\|")) {
+                String filename = entry.trim();
+                if (filename.isEmpty()) {
+                    continue;
+                }
+                Path image = imageDir.resolve(filename).normalize();
+                if (!image.startsWith(imageDir) || !Files.isRegularFile(image)) {
+                    return "找不到圖片 " + filename;
+                }
+                row.imageFiles.add(image);
+            }
+        }
+        return null;
+    }
+
+    private String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private void submitImages(Chunk chunk, ThreadPoolExecutor imagePool) {
+        for (ImportRow row : chunk.rows) {
+            for (Path image : row.imageFiles) {
+                row.storedImages.add(imagePool.submit(() -> fileUploadService.importProductImage(image)));
+            }
+        }
+    }
+
+    /**
+     * 等待這一批的圖片完成後，在一個交易中批次寫入，並在同一個交易中更新檢查點；
+     * 失敗時（包括等待圖片時被中斷）刪除這一批已存好的圖片後再拋出
+     */
+    private void commit(Chunk chunk, ProductImportJob job, ImportReport report) throws InterruptedException {
+        List<Product> products = new ArrayList<>(chunk.rows.size());
+        int images = 0;
+        try {
+            for (ImportRow row : chunk.rows) {
+                images += attachImages(row, report);
+                products.add(row.product);
+            }
+
+            // 拒絕數只累計已提交的批次，預先讀取的下一批在續傳時會重新驗證
+            job.setLastRecord(chunk.lastRecord);
+            job.setInserted(report.getInserted() + products.size());
+            job.setImages(report.getImagesStored() + images);
+            job.setRejected(job.getRejected() + chunk.rejected);
+            // 商品與續傳位置一起提交或一起回滾：提交後才中斷也不會在續傳時重複新增這一批
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!products.isEmpty()) {
+                    productDAO.insertBatch(products);
+                    for (Product product : products) {
+                        categoryIndex.productChanged(null, product.getCategory(), product.getListed());
+                        productSearchIndex.productChanged(product);
+                    }
+                }
+                productImportJobDAO.save(job);
+            });
+        } catch (InterruptedException | RuntimeException e) {
+            discardImages(chunk);
+            throw e;
+        }
+        if (!products.isEmpty()) {
+            pageCache.productChanged(null);
+        }
+        report.inserted(products.size());
+        report.imagesStored(images);
+        log.info("匯入 {}：已處理到第 {} 筆，新增 {} 筆，{} 列/秒", report.getJobName(), chunk.lastRecord,
+                report.getInserted(), String.format("%.1f", report.getRowsPerSecond()));
+    }
+
+    /**
+     * 等待一列的圖片並加到商品上，回傳成功的張數；失敗的圖片記在報告中，不影響商品本身
+     */
+    private int attachImages(ImportRow row, ImportReport report) throws InterruptedException {
+        Product product = row.product;
+        int images = 0;
+        for (int i = 0; i < row.storedImages.size(); i++) {
+            try {
+                StoredImage stored = row.storedImages.get(i).get();
+                String url = stored.getImageUrl();
+                ProductImage image = new ProductImage();
+                image.setProduct(product);
+                image.setImageUrl(url);
+                image.setVariantWidths(stored.getVariantWidths());
+                image.setIsCover(product.getImages().isEmpty());
+                image.setDisplayOrder(product.getImages().size());
+                if (product.getImages().isEmpty()) {
+                    product.setImageUrl(url);
+                }
+                product.getImages().add(image);
+                images++;
+            } catch (ExecutionException e) {
+                report.imageFailed(row.recordNumber,
+                        row.imageFiles.get(i).getFileName() + " " + e.getCause().getMessage());
+            }
+        }
+        return images;
+    }
+
+    /**
+     * 這一批沒有寫入資料庫時，刪除已經存好的圖片檔；與既有圖片內容相同的檔案仍被引用，會保留。
+     * 處理中的圖片取消後仍可能寫入檔案，所以等它們完成再一起刪除；執行緒被中斷時才改為直接取消。
+     */
+    private void discardImages(Chunk chunk) {
+        List<String> imageUrls = new ArrayList<>();
+        for (ImportRow row : chunk.rows) {
+            for (Future<StoredImage> future : row.storedImages) {
+                if (Thread.currentThread().isInterrupted()) {
+                    future.cancel(true);
+                    continue;
+                }
+                try {
+                    imageUrls.add(future.get().getImageUrl());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.cancel(true);
+                } catch (ExecutionException | CancellationException e) {
+                    // 沒有存好的圖片不需要刪除
+                }
+            }
+        }
+        try {
+            productImageService.releaseImageFiles(imageUrls);
+        } catch (RuntimeException e) {
+            log.debug("無法刪除未使用的匯入圖片: {}", e.getMessage());
+        }
+    }
+
+    private static final class Chunk {
+        private final List<ImportRow> rows = new ArrayList<>();
+        private long lastRecord;
+        private int rejected;
+        private boolean endOfFile;
+    }
+
+    private static final class ImportRow {
+        private final long recordNumber;
+        private final Product product = new Product();
+        private final List<Path> imageFiles = new ArrayList<>();
+        private final List<Future<StoredImage>> storedImages = new ArrayList<>();
+
+        private ImportRow(long recordNumber) {
+            this.recordNumber = recordNumber;
+        }
+    }
+}
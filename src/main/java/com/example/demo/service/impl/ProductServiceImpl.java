@@ -1,13 +1,46 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.dao.OrderItemDAO;
 import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.BulkUpdateResult;
+import com.example.demo.model.CatalogPage;
+import com.example.demo.model.CatalogQuery;
+import com.example.demo.model.CatalogVersion;
+import com.example.demo.model.CategoryCount;
+import com.example.demo.model.PageResult;
 import com.example.demo.model.Product;
+import com.example.demo.model.ProductFacts;
+import com.example.demo.model.ProductImage;
+import com.example.demo.model.ProductSales;
+import com.example.demo.model.ProductSearchCriteria;
+import com.example.demo.model.ProductSummary;
+import com.example.demo.model.ProductUpdate;
+import com.example.demo.service.CategoryIndex;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductFactsCache;
+import com.example.demo.service.ProductImageService;
+import com.example.demo.service.ProductSearchIndex;
 import com.example.demo.service.ProductService;
+import com.example.demo.service.SalesRanking;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -16,6 +49,27 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductDAO productDAO;
 
+    @Autowired
+    private CategoryIndex categoryIndex;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private PageCache pageCache;
+
+    @Autowired
+    private ProductFactsCache productFactsCache;
+
+    @Autowired
+    private OrderItemDAO orderItemDAO;
+
+    @Autowired
+    private SalesRanking salesRanking;
+
+    @Autowired
+    private ProductImageService productImageService;
+
     @Override
     public List<Product> getAllProducts() {
         return productDAO.findAll();
@@ -31,6 +85,20 @@ public class ProductServiceImpl implements ProductService {
         return productDAO.findById(id);
     }
 
+    /**
+     * 快取命中時不需要開啟交易；未命中時在同一個 Session 內載入商品與圖片
+     */
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductFacts getProductFacts(Long id) {
+        return productFactsCache.get(id, this::loadProductFacts);
+    }
+
+    private ProductFacts loadProductFacts(Long id) {
+        Product product = productDAO.findById(id);
+        return product == null ? null : ProductFacts.of(product);
+    }
+
     @Override
     public List<Product> getProductsByCategory(String category) {
         if (category == null || category.isBlank()) {
@@ -47,13 +115,314 @@ public class ProductServiceImpl implements ProductService {
         return productDAO.findListedByCategory(category);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getProductSummaries(String category, boolean includeUnlisted) {
+        return productDAO.findSummaries(category, !includeUnlisted);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getProductSummaries(String category, boolean includeUnlisted, String sort) {
+        List<ProductSummary> summaries = productDAO.findSummaries(category, !includeUnlisted);
+        if (SORT_BESTSELLING.equals(sort)) {
+            refreshSalesRanking();
+            // 查詢結果已依ID排序，穩定排序讓銷量相同的商品維持ID順序
+            summaries = new ArrayList<>(summaries);
+            summaries.sort(Comparator.comparingLong((ProductSummary summary) -> salesRanking.getUnitsSold(summary.getId()))
+                    .reversed());
+        }
+        return summaries;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long refreshSalesRanking() {
+        long now = System.currentTimeMillis();
+        if (salesRanking.tryStartRefresh(now)) {
+            List<ProductSales> delta = null;
+            try {
+                LocalDateTime settledBefore = LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(salesRanking.settledBefore(now)), ZoneId.systemDefault());
+                delta = orderItemDAO.sumSalesSince(salesRanking.getWatermark(), settledBefore);
+            } finally {
+                if (salesRanking.finishRefresh(delta, now)) {
+                    // 排行改變只影響列表頁
+                    pageCache.listChanged();
+                }
+            }
+        }
+        return salesRanking.getVersion();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CatalogPage getCatalogPage(CatalogQuery query, String cursor) {
+        if (cursor != null && !cursor.isBlank()) {
+            applyCursor(query, cursor);
+        }
+        List<Map<String, Object>> rows = productDAO.findCatalogPage(query);
+        String nextCursor = null;
+        if (rows.size() > query.getLimit()) {
+            rows = new ArrayList<>(rows.subList(0, query.getLimit()));
+            nextCursor = encodeCursor(query, rows.get(rows.size() - 1));
+        }
+        // 排序鍵是為了游標才查詢的，沒有要求的欄位不回傳
+        for (Map<String, Object> row : rows) {
+            row.keySet().retainAll(query.getFields());
+        }
+        return new CatalogPage(rows, nextCursor);
+    }
+
+    /**
+     * 游標內容為「排序方式:ID[:價格]」，以 Base64URL 編碼，對用戶端而言是不透明字串
+     */
+    private String encodeCursor(CatalogQuery query, Map<String, Object> last) {
+        StringBuilder value = new StringBuilder(query.getSort()).append(':').append(last.get("id"));
+        if (query.isPriceSort()) {
+            value.append(':').append(((BigDecimal) last.get("price")).toPlainString());
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void applyCursor(CatalogQuery query, String cursor) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("游標格式錯誤");
+        }
+        int expected = query.isPriceSort() ? 3 : 2;
+        if (parts.length != expected || !parts[0].equals(query.getSort())) {
+            throw new IllegalArgumentException("游標與排序方式不符");
+        }
+        try {
+            query.setAfter(Long.valueOf(parts[1]), query.isPriceSort() ? new BigDecimal(parts[2]) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("游標格式錯誤");
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResult<Product> searchProducts(ProductSearchCriteria criteria) {
+        ProductSearchCriteria effective = criteria == null ? new ProductSearchCriteria() : criteria;
+        if (effective.getSearch() == null) {
+            return productDAO.findPage(effective);
+        }
+
+        // 索引在啟動時建立；啟動時建立失敗才在這裡補建
+        if (!productSearchIndex.isInitialized()) {
+            refreshSearchIndex();
+        }
+        List<Long> rankedIds = productSearchIndex.search(effective.getSearch(), effective.getCategory());
+        if (rankedIds.isEmpty()) {
+            return new PageResult<>(new ArrayList<>(), effective.getPage(), effective.getPageSize(), 0);
+        }
+        // 依相關度排序時直接在排名結果上分頁；其他排序先將命中的ID依欄位排好（分批讀排序鍵），
+        // 兩者都只載入當頁商品，不把所有命中的ID放進同一個 IN 清單
+        List<Long> orderedIds = ProductSearchCriteria.SORT_RELEVANCE.equals(effective.getSortBy())
+                ? rankedIds
+                : productDAO.sortIds(rankedIds, effective.getSortBy(), effective.isDescending());
+        int from = Math.min(effective.getOffset(), orderedIds.size());
+        int to = Math.min(from + effective.getPageSize(), orderedIds.size());
+        return new PageResult<>(productDAO.findByIds(orderedIds.subList(from, to)),
+                effective.getPage(), effective.getPageSize(), orderedIds.size());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> getCategoryCounts() {
+        ensureCategoryIndex();
+        return categoryIndex.getCategoryCounts();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> getCategories(boolean includeUnlisted) {
+        ensureCategoryIndex();
+        return includeUnlisted ? categoryIndex.getCategories() : categoryIndex.getListedCategories();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void refreshCategoryIndex() {
+        categoryIndex.rebuild(productDAO.countByCategoryAndListed());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void refreshSearchIndex() {
+        productSearchIndex.rebuild(productDAO::findSearchDocuments);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CatalogVersion getListVersion(String category, boolean includeUnlisted) {
+        return productDAO.findListVersion(category, !includeUnlisted);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CatalogVersion getDetailVersion(Long id) {
+        return productDAO.findDetailVersion(id);
+    }
+
     @Override
     public void saveProduct(Product product) {
+        CategoryCount previous = productDAO.findCategoryState(product.getId());
         productDAO.save(product);
+        categoryIndex.productChanged(previous, product.getCategory(), product.getListed());
+        productSearchIndex.productChanged(product);
+        pageCache.productChanged(product.getId());
+        productFactsCache.invalidate(product.getId());
+    }
+
+    @Override
+    public BulkUpdateResult bulkUpdateProducts(List<ProductUpdate> updates) {
+        BulkUpdateResult result = new BulkUpdateResult();
+        if (updates == null || updates.isEmpty()) {
+            return result;
+        }
+        LinkedHashSet<Long> ids = new LinkedHashSet<>();
+        for (ProductUpdate update : updates) {
+            if (update.getProductId() != null) {
+                ids.add(update.getProductId());
+            }
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productDAO.findByIds(new ArrayList<>(ids))) {
+            products.put(product.getId(), product);
+        }
+
+        // 只修改受管理的實體，不逐筆呼叫 save；提交時由髒值檢查產生 UPDATE 並依 hibernate.jdbc.batch_size 批次送出
+        for (ProductUpdate update : updates) {
+            Product product = products.get(update.getProductId());
+            if (product == null) {
+                result.add(update.getProductId(), BulkUpdateResult.Status.NOT_FOUND, "找不到商品");
+                continue;
+            }
+            String error = validate(update);
+            if (error != null) {
+                result.add(product.getId(), BulkUpdateResult.Status.INVALID, error);
+                continue;
+            }
+            result.add(product.getId(), applyUpdate(product, update)
+                    ? BulkUpdateResult.Status.UPDATED : BulkUpdateResult.Status.UNCHANGED, null);
+        }
+        return result;
+    }
+
+    private String validate(ProductUpdate update) {
+        if (update.getName() != null && update.getName().isEmpty()) {
+            return "名稱不能為空";
+        }
+        if (update.getCategory() != null && update.getCategory().isEmpty()) {
+            return "分類不能為空";
+        }
+        if (update.getPrice() != null && update.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+            return "價格不能為負數";
+        }
+        if (update.getStock() != null && update.getStock() < 0) {
+            return "庫存不能為負數";
+        }
+        return null;
+    }
+
+    /**
+     * 套用單列變更並通知索引與快取，回傳是否有任何欄位改變
+     */
+    private boolean applyUpdate(Product product, ProductUpdate update) {
+        CategoryCount previous = new CategoryCount(product.getCategory(), product.getListed(), 1L);
+        String previousName = product.getName();
+        BigDecimal previousPrice = product.getPrice();
+        Integer previousStock = product.getStock();
+
+        if (update.getName() != null) {
+            product.setName(update.getName());
+        }
+        if (update.getCategory() != null) {
+            product.setCategory(update.getCategory());
+        }
+        if (update.getPrice() != null) {
+            product.setPrice(update.getPrice());
+        }
+        if (update.getStock() != null) {
+            product.setStock(update.getStock());
+        }
+        if (update.getListed() != null) {
+            product.setListed(update.getListed());
+        }
+
+        boolean categoryChanged = !Objects.equals(previous.getCategory(), product.getCategory())
+                || previous.isListed() != product.getListed();
+        boolean factsChanged = !Objects.equals(previousName, product.getName())
+                || !Objects.equals(previousPrice, product.getPrice())
+                || previous.isListed() != product.getListed();
+        boolean searchChanged = !Objects.equals(previousName, product.getName())
+                || !Objects.equals(previous.getCategory(), product.getCategory());
+        if (!categoryChanged && !factsChanged && !searchChanged
+                && Objects.equals(previousStock, product.getStock())) {
+            return false;
+        }
+        if (categoryChanged) {
+            categoryIndex.productChanged(previous, product.getCategory(), product.getListed());
+        }
+        if (searchChanged) {
+            productSearchIndex.productChanged(product);
+        }
+        if (factsChanged) {
+            productFactsCache.invalidate(product.getId());
+        }
+        pageCache.productChanged(product.getId());
+        return true;
+    }
+
+    @Override
+    public int renameCategory(String oldCategory, String newCategory) {
+        int updated = productDAO.renameCategory(oldCategory, newCategory);
+        categoryMoved(oldCategory, newCategory, updated);
+        return updated;
+    }
+
+    @Override
+    public int reassignCategory(String category, String fallbackCategory) {
+        int updated = productDAO.reassignCategory(category, fallbackCategory);
+        categoryMoved(category, fallbackCategory, updated);
+        return updated;
+    }
+
+    private void categoryMoved(String oldCategory, String newCategory, int updated) {
+        if (updated == 0) {
+            return;
+        }
+        categoryIndex.categoryMoved(oldCategory, newCategory);
+        productSearchIndex.categoryMoved(oldCategory, newCategory);
+        // 列表頁都可能受影響；商品基本資料不含分類，不需清除
+        pageCache.productChanged(null);
     }
 
     @Override
     public void deleteProduct(Long id) {
+        CategoryCount previous = productDAO.findCategoryState(id);
+        Set<String> imageUrls = new LinkedHashSet<>();
+        Product product = productDAO.findById(id);
+        if (product != null) {
+            imageUrls.add(product.getImageUrl());
+            product.getImages().stream().map(ProductImage::getImageUrl).forEach(imageUrls::add);
+        }
         productDAO.delete(id);
+        // 圖片紀錄隨商品刪除，其他商品沒有共用的圖片檔在提交後刪除
+        productImageService.releaseImageFiles(imageUrls);
+        categoryIndex.productRemoved(previous);
+        productSearchIndex.productRemoved(id);
+        pageCache.productChanged(id);
+        productFactsCache.invalidate(id);
+    }
+
+    private void ensureCategoryIndex() {
+        if (!categoryIndex.isInitialized()) {
+            refreshCategoryIndex();
+        }
     }
 }
\ No newline at end of file
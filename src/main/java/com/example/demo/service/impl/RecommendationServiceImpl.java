@@ -0,0 +1,108 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dao.OrderItemDAO;
+import com.example.demo.model.ProductFacts;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductService;
+import com.example.demo.service.RecommendationBuilder;
+import com.example.demo.service.RecommendationModel;
+import com.example.demo.service.RecommendationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 推薦模型在背景重建（見 RecommendationScheduler），請求只讀取目前的不可變模型。
+ * 重建期間舊模型照常服務，完成後以一次參照替換。
+ */
+@Service
+public class RecommendationServiceImpl implements RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationServiceImpl.class);
+
+    private final OrderItemDAO orderItemDAO;
+    private final ProductService productService;
+    private final PageCache pageCache;
+    private final int topK;
+    private final int maxBasketSize;
+    private final int buildThreads;
+    private final int fetchSize;
+    private volatile RecommendationModel model = RecommendationModel.EMPTY;
+
+    @Autowired
+    public RecommendationServiceImpl(OrderItemDAO orderItemDAO, ProductService productService, PageCache pageCache,
+                                     Environment environment) {
+        this(orderItemDAO, productService, pageCache,
+                environment.getProperty("recommendation.top-k", Integer.class, 10),
+                environment.getProperty("recommendation.max-basket-size", Integer.class, 50),
+                environment.getProperty("recommendation.build-threads", Integer.class, 0),
+                environment.getProperty("recommendation.fetch-size", Integer.class, 1000));
+    }
+
+    public RecommendationServiceImpl(OrderItemDAO orderItemDAO, ProductService productService, PageCache pageCache,
+                                     int topK, int maxBasketSize, int buildThreads, int fetchSize) {
+        this.orderItemDAO = orderItemDAO;
+        this.productService = productService;
+        this.pageCache = pageCache;
+        this.topK = topK;
+        this.maxBasketSize = maxBasketSize;
+        this.buildThreads = buildThreads > 0 ? buildThreads : Runtime.getRuntime().availableProcessors();
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public List<ProductFacts> getRelatedProducts(Long productId, int limit) {
+        List<ProductFacts> products = new ArrayList<>();
+        if (productId == null) {
+            return products;
+        }
+        // 多取一些，扣掉已下架或已刪除的商品後仍有 limit 個
+        for (long relatedId : model.getRelated(productId, topK)) {
+            ProductFacts facts = productService.getProductFacts(relatedId);
+            if (facts != null && facts.isListed()) {
+                products.add(facts);
+                if (products.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public long getModelVersion() {
+        return model.getBuiltAt();
+    }
+
+    @Override
+    public int rebuild() {
+        long started = System.currentTimeMillis();
+        RecommendationBuilder builder = new RecommendationBuilder(topK, maxBasketSize);
+        long items = orderItemDAO.scrollBasketItems(fetchSize, builder);
+        int baskets = builder.getBasketCount();
+        RecommendationModel built;
+        try {
+            built = builder.build(buildThreads);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recommendation rebuild interrupted", e);
+        }
+        if (built.hasSameRelations(model)) {
+            // 新訂單沒有改變任何推薦：保留目前的模型，快取的明細頁仍然正確
+            log.info("Recommendations unchanged after scanning {} order items ({} baskets) in {} ms.",
+                    items, baskets, System.currentTimeMillis() - started);
+            return built.size();
+        }
+        model = built;
+        // 明細頁含推薦區塊
+        pageCache.productChanged(null);
+        log.info("Recommendations rebuilt from {} order items ({} baskets): {} products in {} ms.",
+                items, baskets, built.size(), System.currentTimeMillis() - started);
+        return built.size();
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.service.ImageStorage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 存放在 S3 相容物件儲存（AWS S3、MinIO 等）的圖片。以 path-style 網址（{endpoint}/{bucket}/{object}）
+ * 發送 AWS Signature V4 簽章的 PUT / GET / HEAD / DELETE，不需要額外的 SDK。
+ * 圖片網址為 publicUrl/{prefix}{key}，bucket（或前面的 CDN）需開放讀取；上傳與刪除只經由這裡。
+ */
+public class S3ImageStorage implements ImageStorage {
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final String prefix;
+    private final String publicUrl;
+    private final HttpClient httpClient;
+
+    /**
+     * @param prefix    物件名稱的前綴（例如 products/），可為空字串
+     * @param publicUrl 對外的圖片網址前綴；null 時使用 {endpoint}/{bucket}
+     */
+    public S3ImageStorage(URI endpoint, String bucket, String region, String accessKey, String secretKey,
+                          String prefix, String publicUrl) {
+        String base = endpoint.toString();
+        this.endpoint = URI.create(base.endsWith("/") ? base.substring(0, base.length() - 1) : base);
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.prefix = prefix != null ? prefix : "";
+        String url = publicUrl != null && !publicUrl.isBlank() ? publicUrl : this.endpoint + "/" + bucket;
+        this.publicUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    @Override
+    public void write(String key, byte[] data, String contentType) throws IOException {
+        HttpResponse<byte[]> response = send("PUT", key, data, contentType);
+        if (response.statusCode() != 200) {
+            throw failure("PUT", key, response);
+        }
+    }
+
+    @Override
+    public byte[] read(String key) throws IOException {
+        HttpResponse<byte[]> response = send("GET", key, null, null);
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(key);
+        }
+        if (response.statusCode() != 200) {
+            throw failure("GET", key, response);
+        }
+        return response.body();
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<byte[]> response = send("HEAD", key, null, null);
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        if (response.statusCode() != 200) {
+            throw failure("HEAD", key, response);
+        }
+        return true;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<byte[]> response = send("DELETE", key, null, null);
+        if (response.statusCode() != 204 && response.statusCode() != 200 && response.statusCode() != 404) {
+            throw failure("DELETE", key, response);
+        }
+    }
+
+    @Override
+    public String publicUrl(String key) {
+        return publicUrl + "/" + prefix + key;
+    }
+
+    @Override
+    public String keyOf(String imageUrl) {
+        String base = publicUrl + "/" + prefix;
+        if (imageUrl == null || !imageUrl.startsWith(base)) {
+            return null;
+        }
+        String key = imageUrl.substring(base.length());
+        return isValidKey(key) ? key : null;
+    }
+
+    private HttpResponse<byte[]> send(String method, String key, byte[] body, String contentType) throws IOException {
+        if (!isValidKey(key)) {
+            throw new IOException("無效的圖片名稱: " + key);
+        }
+        String path = endpoint.getRawPath() + "/" + encode(bucket) + "/" + encode(prefix + key);
+        URI uri = URI.create(endpoint.getScheme() + "://" + endpoint.getRawAuthority() + path);
+        String payloadHash = body != null ? hex(sha256(body)) : EMPTY_SHA256;
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        String amzDate = now.format(AMZ_DATE);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("x-amz-date", amzDate)
+                .header("x-amz-content-sha256", payloadHash)
+                .header("Authorization", authorization(method, uri, path, amzDate, payloadHash))
+                .method(method, body != null
+                        ? HttpRequest.BodyPublishers.ofByteArray(body) : HttpRequest.BodyPublishers.noBody());
+        if (contentType != null) {
+            request.header("Content-Type", contentType);
+            // 檔名是內容雜湊，且只在處理完成後寫入一次（見 FileUploadServiceImpl），bucket / CDN 回應時帶著長期快取
+            request.header("Cache-Control", "public, max-age=31536000, immutable");
+        }
+        try {
+            return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("圖片儲存請求被中斷: " + method + " " + key, e);
+        }
+    }
+
+    /**
+     * AWS Signature V4：簽 host、x-amz-content-sha256、x-amz-date 三個標頭
+     */
+    private String authorization(String method, URI uri, String path, String amzDate, String payloadHash)
+            throws IOException {
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String signedHeaders = "host;x-amz-content-sha256;x-amz-date";
+        String canonicalRequest = method + "\n" + path + "\n\n"
+                + "host:" + host(uri) + "\n"
+                + "x-amz-content-sha256:" + payloadHash + "\n"
+                + "x-amz-date:" + amzDate + "\n\n"
+                + signedHeaders + "\n" + payloadHash;
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n"
+                + hex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope + ", SignedHeaders=" + signedHeaders
+                + ", Signature=" + hex(hmac(signingKey, stringToSign));
+    }
+
+    // 與 HttpClient 送出的 Host 標頭一致：預設埠不帶埠號
+    private static String host(URI uri) {
+        int port = uri.getPort();
+        boolean defaultPort = port == -1 || ("http".equals(uri.getScheme()) && port == 80)
+                || ("https".equals(uri.getScheme()) && port == 443);
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    private static IOException failure(String method, String key, HttpResponse<byte[]> response) {
+        return new IOException("圖片儲存請求失敗: " + method + " " + key + " → HTTP " + response.statusCode());
+    }
+
+    /**
+     * RFC 3986 編碼，保留 / 作為路徑分隔
+     */
+    private static String encode(String value) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || c == '/') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static boolean isValidKey(String key) {
+        return key != null && !key.isEmpty() && !key.startsWith(".")
+                && key.indexOf('/') < 0 && key.indexOf('\\') < 0;
+    }
+
+    private static byte[] sha256(byte[] data) throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) throws IOException {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.demo.web;
+
+import com.example.demo.service.PageCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.LocaleResolver;
+import org.springframework.web.servlet.support.SessionFlashMapManager;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 前台商品列表與商品明細的頁面快取。
+ * 由 web.xml 以 DelegatingFilterProxy 掛在 Spring Security 之後（需要已解析的登入身分），
+ * 使用 DispatcherServlet 的 context，與 Controller 呼叫的 Service 共用同一個 PageCache。
+ */
+@Component("pageCacheFilter")
+public class PageCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern DETAIL_PATH = Pattern.compile("^/products/detail/(\\d{1,18})$");
+    private static final String LIST_PATH = "/products";
+    private static final String FLASH_MAPS_ATTRIBUTE = SessionFlashMapManager.class.getName() + ".FLASH_MAPS";
+    private static final long FOLLOWER_TIMEOUT_MILLIS = 10_000;
+    // ProductController 設定的條件式 GET 標頭，命中快取時照樣送出
+    private static final List<String> REPLAYED_HEADERS = List.of(
+            HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL, HttpHeaders.VARY);
+
+    private final PageCache pageCache;
+    private final LocaleResolver localeResolver;
+
+    @Autowired
+    public PageCacheFilter(PageCache pageCache, LocaleResolver localeResolver) {
+        this.pageCache = pageCache;
+        this.localeResolver = localeResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) || request.getParameter("lang") != null) {
+            // 切換語系會寫入 cookie，不能用快取回應
+            return true;
+        }
+        String path = pathWithinApplication(request);
+        return !LIST_PATH.equals(path) && !DETAIL_PATH.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (hasPendingFlashMessages(request) || request.isRequestedSessionIdFromURL()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = buildKey(request);
+        PageCache.CachedPage cached = pageCache.get(key);
+        if (cached != null) {
+            writePage(cached, request, response, "HIT");
+            return;
+        }
+
+        PageCache.Flight flight = pageCache.startFlight(key);
+        if (!flight.isLeader()) {
+            PageCache.CachedPage shared = flight.await(FOLLOWER_TIMEOUT_MILLIS);
+            if (shared != null) {
+                writePage(shared, request, response, "SHARED");
+            } else {
+                filterChain.doFilter(request, response);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        PageCache.CachedPage page = null;
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (isCacheable(request, wrapper)) {
+                page = new PageCache.CachedPage(wrapper.getContentAsByteArray(), wrapper.getContentType(),
+                        detailProductId(pathWithinApplication(request)), replayedHeaders(wrapper),
+                        relatedProductIds(request));
+            }
+            wrapper.setHeader("X-Page-Cache", "MISS");
+            wrapper.copyBodyToResponse();
+        } finally {
+            flight.complete(page);
+        }
+    }
+
+    private String buildKey(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder()
+                .append(roleClass()).append('|')
+                .append(localeResolver.resolveLocale(request).toLanguageTag()).append('|')
+                .append(pathWithinApplication(request));
+        if (request.getQueryString() != null) {
+            key.append('?').append(request.getQueryString());
+        }
+        return key.toString();
+    }
+
+    /**
+     * 頁面只依角色類別呈現不同內容（導覽列、下架商品），不含個人資料
+     */
+    private String roleClass() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return "anonymous";
+        }
+        boolean staff = false;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if ("ROLE_ADMIN".equals(authority.getAuthority())) {
+                return "admin";
+            }
+            staff |= "ROLE_STAFF".equals(authority.getAuthority());
+        }
+        return staff ? "staff" : "customer";
+    }
+
+    private boolean hasPendingFlashMessages(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return false;
+        }
+        Object flashMaps = session.getAttribute(FLASH_MAPS_ATTRIBUTE);
+        return flashMaps instanceof Collection && !((Collection<?>) flashMaps).isEmpty();
+    }
+
+    private boolean isCacheable(HttpServletRequest request, ContentCachingResponseWrapper response) {
+        if (response.getStatus() != HttpServletResponse.SC_OK
+                || response.getContentType() == null
+                || !response.getContentType().startsWith("text/html")
+                || !response.getHeaders("Set-Cookie").isEmpty()) {
+            return false;
+        }
+        // 產生頁面時用掉了其他請求留下的 flash 訊息
+        Object inputFlashMap = request.getAttribute(DispatcherServlet.INPUT_FLASH_MAP_ATTRIBUTE);
+        return !(inputFlashMap instanceof Map) || ((Map<?, ?>) inputFlashMap).isEmpty();
+    }
+
+    private Map<String, String> replayedHeaders(HttpServletResponse response) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : REPLAYED_HEADERS) {
+            String value = response.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        return headers;
+    }
+
+    private void writePage(PageCache.CachedPage page, HttpServletRequest request, HttpServletResponse response,
+                           String status) throws IOException {
+        page.getHeaders().forEach(response::setHeader);
+        response.setHeader("X-Page-Cache", status);
+        String etag = page.getHeaders().get(HttpHeaders.ETAG);
+        if (etag != null) {
+            HttpHeaders validators = new HttpHeaders();
+            page.getHeaders().forEach(validators::set);
+            if (new ServletWebRequest(request, response).checkNotModified(etag, validators.getLastModified())) {
+                return;
+            }
+        }
+        response.setContentType(page.getContentType());
+        response.setContentLength(page.getBody().length);
+        response.getOutputStream().write(page.getBody());
+    }
+
+    private Set<Long> relatedProductIds(HttpServletRequest request) {
+        Object related = request.getAttribute(PageCache.RELATED_PRODUCTS_ATTRIBUTE);
+        Set<Long> ids = new HashSet<>();
+        if (related instanceof Collection) {
+            for (Object id : (Collection<?>) related) {
+                if (id instanceof Long) {
+                    ids.add((Long) id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private Long detailProductId(String path) {
+        Matcher matcher = DETAIL_PATH.matcher(path);
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    private String pathWithinApplication(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.test;
+
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.ProductExportRow;
+import com.example.demo.service.impl.CatalogExportServiceImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CatalogExportServiceTest {
+
+    @Mock
+    private ProductDAO productDAO;
+
+    private CatalogExportServiceImpl exportService;
+
+    @Before
+    public void setUp() {
+        exportService = new CatalogExportServiceImpl(productDAO, 100);
+        doAnswer(invocation -> {
+            Consumer<ProductExportRow> consumer = invocation.getArgument(1);
+            consumer.accept(new ProductExportRow(1L, "Pen, \"blue\"", "line1\nline2", new BigDecimal("12.50"),
+                    "Office", 3, true, null, null, Arrays.asList("/a.jpg", "/b.jpg")));
+            consumer.accept(new ProductExportRow(2L, "Cup", null, new BigDecimal("5"),
+                    "Kitchen", 0, false, "/cup.jpg", null, Collections.emptyList()));
+            return 2L;
+        }).when(productDAO).scrollExportRows(eq(100), any());
+    }
+
+    @Test
+    public void exportCsvShouldQuoteSpecialCharacters() throws Exception {
+        StringWriter writer = new StringWriter();
+
+        assertEquals(2, exportService.exportCsv(writer));
+
+        String[] lines = writer.toString().split("\r\n");
+        assertEquals("id,name,category,price,stock,listed,description,image_url,updated_at,images", lines[0]);
+        assertEquals("1,\"Pen, \"\"blue\"\"\",Office,12.50,3,true,\"line1\nline2\",,,/a.jpg|/b.jpg", lines[1]);
+        assertEquals("2,Cup,Kitchen,5,0,false,,/cup.jpg,,", lines[2]);
+    }
+
+    @Test
+    public void exportJsonShouldWriteEscapedArray() throws Exception {
+        StringWriter writer = new StringWriter();
+
+        exportService.exportJson(writer);
+
+        String json = writer.toString();
+        assertTrue(json.startsWith("[\n{\"id\":1,\"name\":\"Pen, \\\"blue\\\"\""));
+        assertTrue(json.contains("\"description\":\"line1\\nline2\""));
+        assertTrue(json.contains("\"images\":[\"/a.jpg\",\"/b.jpg\"]"));
+        assertTrue(json.contains("{\"id\":2,\"name\":\"Cup\",\"category\":\"Kitchen\",\"price\":5,\"stock\":0,\"listed\":false"));
+        assertTrue(json.endsWith("\n]"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.test;
+
+import com.example.demo.model.CategoryCount;
+import com.example.demo.service.CategoryIndex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CategoryIndexTest {
+
+    private CategoryIndex categoryIndex;
+
+    @Before
+    public void setUp() {
+        categoryIndex = new CategoryIndex();
+        categoryIndex.rebuild(List.of(
+                new CategoryCount("上衣", true, 3L),
+                new CategoryCount("上衣", false, 1L),
+                new CategoryCount("bags", false, 2L),
+                new CategoryCount("Accessories", true, 1L)));
+    }
+
+    @Test
+    public void rebuildShouldSortCategoriesAndSplitListedCounts() {
+        assertTrue(categoryIndex.isInitialized());
+        assertEquals(List.of("Accessories", "bags", "上衣"), categoryIndex.getCategories());
+        assertEquals(List.of("Accessories", "上衣"), categoryIndex.getListedCategories());
+        assertEquals(Long.valueOf(4L), categoryIndex.getCategoryCounts().get("上衣"));
+    }
+
+    @Test
+    public void productChangesShouldUpdateCountsIncrementally() {
+        // 新商品
+        categoryIndex.productChanged(null, "褲子", true);
+        // 上架狀態改變：bags 的下架商品改為上架
+        categoryIndex.productChanged(new CategoryCount("bags", false, 1L), "bags", true);
+        // 換分類，原分類清空後應消失
+        categoryIndex.productChanged(new CategoryCount("Accessories", true, 1L), "上衣", true);
+        categoryIndex.productRemoved(new CategoryCount("上衣", false, 1L));
+
+        Map<String, Long> counts = categoryIndex.getCategoryCounts();
+        assertEquals(List.of("bags", "上衣", "褲子"), categoryIndex.getCategories());
+        assertEquals(Long.valueOf(2L), counts.get("bags"));
+        assertEquals(Long.valueOf(4L), counts.get("上衣"));
+        assertEquals(Long.valueOf(1L), counts.get("褲子"));
+        assertEquals(List.of("bags", "上衣", "褲子"), categoryIndex.getListedCategories());
+    }
+
+    @Test
+    public void categoryMovedShouldMergeCountsIntoTarget() {
+        categoryIndex.categoryMoved("bags", "上衣");
+
+        assertEquals(List.of("Accessories", "上衣"), categoryIndex.getCategories());
+        assertEquals(Long.valueOf(6L), categoryIndex.getCategoryCounts().get("上衣"));
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.demo.test;
+
+import com.example.demo.model.ImageEncodingStats;
+import com.example.demo.model.ImageUploadResult;
+import com.example.demo.model.ProcessingState;
+import com.example.demo.model.StoredImage;
+import com.example.demo.service.ImageFileRegistry;
+import com.example.demo.service.ImageProcessingPipeline;
+import com.example.demo.service.ImageStorage;
+import com.example.demo.service.impl.FileUploadServiceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class FileUploadServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ImageStorage imageStorage;
+    private ImageProcessingPipeline imageProcessingPipeline;
+    private ExecutorService executor;
+    private FileUploadServiceImpl fileUploadService;
+
+    @Before
+    public void setUp() throws IOException {
+        imageStorage = mock(ImageStorage.class);
+        when(imageStorage.publicUrl(anyString())).thenAnswer(invocation -> "/resources/images/products/" + invocation.getArgument(0));
+        executor = Executors.newFixedThreadPool(4);
+        fileUploadService = new FileUploadServiceImpl();
+        ReflectionTestUtils.setField(fileUploadService, "environment",
+                new MockEnvironment().withProperty("image.originals.dir", folder.newFolder("originals").toString()));
+        imageProcessingPipeline = mock(ImageProcessingPipeline.class);
+        ReflectionTestUtils.setField(fileUploadService, "imageProcessingPipeline", imageProcessingPipeline);
+        ReflectionTestUtils.setField(fileUploadService, "imageStorage", imageStorage);
+        ReflectionTestUtils.setField(fileUploadService, "imageUploadExecutor", executor);
+        ImageFileRegistry imageFileRegistry = mock(ImageFileRegistry.class);
+        when(imageFileRegistry.issue(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<ImageFileRegistry.ImageFileAction<?>>getArgument(1).run());
+        ReflectionTestUtils.setField(fileUploadService, "imageFileRegistry", imageFileRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void uploadsShouldRunConcurrentlyKeepFileOrderAndReportFailures() throws Exception {
+        // 三張有效圖片查詢儲存時互相等待：依序處理時等不到其他檔案
+        CountDownLatch allChecking = new CountDownLatch(3);
+        List<Boolean> overlapped = new CopyOnWriteArrayList<>();
+        when(imageStorage.exists(anyString())).thenAnswer(invocation -> {
+            allChecking.countDown();
+            overlapped.add(allChecking.await(5, TimeUnit.SECONDS));
+            return false;
+        });
+
+        List<MultipartFile> files = List.of(
+                image("a.png", 30),
+                new MockMultipartFile("imageFiles", "notes.txt", "text/plain", new byte[]{1, 2, 3}),
+                new MockMultipartFile("imageFiles", "empty.png", "image/png", new byte[0]),
+                image("b.png", 20),
+                image("c.png", 10));
+
+        ImageUploadResult result = fileUploadService.uploadProductImages(files, 1L);
+
+        assertEquals(List.of(true, true, true), overlapped);
+        List<ImageUploadResult.Outcome> outcomes = result.getOutcomes();
+        assertEquals(4, outcomes.size());
+        assertEquals("a.png", outcomes.get(0).getFilename());
+        assertEquals("notes.txt", outcomes.get(1).getFilename());
+        assertFalse(outcomes.get(1).isUploaded());
+        assertEquals("b.png", outcomes.get(2).getFilename());
+        assertEquals("c.png", outcomes.get(3).getFilename());
+        assertEquals(3, result.getImageUrls().size());
+        assertTrue(result.getImageUrls().get(0).startsWith("/resources/images/products/"));
+        assertTrue(result.getFailureSummary().startsWith("notes.txt（不支援的圖片格式"));
+    }
+
+    @Test
+    public void importShouldStorePngPhotosAsProgressiveJpegAndKeepTransparentPng() throws Exception {
+        Map<String, byte[]> stored = new ConcurrentHashMap<>();
+        doAnswer(invocation -> stored.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(imageStorage).write(anyString(), any(), anyString());
+        Random random = new Random(42);
+        BufferedImage photo = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+        BufferedImage logo = new BufferedImage(300, 200, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 300; x++) {
+            for (int y = 0; y < 200; y++) {
+                photo.setRGB(x, y, random.nextInt(0xffffff));
+                logo.setRGB(x, y, x < 150 ? 0x00000000 : 0xff3366cc);
+            }
+        }
+        Path photoFile = folder.getRoot().toPath().resolve("photo.png");
+        Path logoFile = folder.getRoot().toPath().resolve("logo.png");
+        ImageIO.write(photo, "png", photoFile.toFile());
+        ImageIO.write(logo, "png", logoFile.toFile());
+
+        StoredImage photoImage = fileUploadService.importProductImage(photoFile);
+        String photoUrl = photoImage.getImageUrl();
+        String logoUrl = fileUploadService.importProductImage(logoFile).getImageUrl();
+
+        assertTrue(photoUrl.endsWith(".jpg"));
+        // 300 寬的圖片只產生 w240，不會放大成 w480/w800，寬度記錄實際輸出
+        assertEquals("240,300", photoImage.getVariantWidths());
+        String base = key(photoUrl).substring(0, key(photoUrl).lastIndexOf('.'));
+        assertTrue(stored.containsKey(base + "_w240.jpg"));
+        assertFalse(stored.containsKey(base + "_w480.jpg"));
+        assertEquals(240, ImageIO.read(new ByteArrayInputStream(stored.get(base + "_w240.jpg"))).getWidth());
+        byte[] jpeg = stored.get(photoUrl.substring(photoUrl.lastIndexOf('/') + 1));
+        assertEquals(0xd8, jpeg[1] & 0xff);
+        assertTrue("progressive JPEG (SOF2)", indexOf(jpeg, (byte) 0xff, (byte) 0xc2) > 0);
+        assertTrue("no EXIF segment", indexOf(jpeg, (byte) 0xff, (byte) 0xe1) < 0);
+        assertTrue(logoUrl.endsWith(".png"));
+        BufferedImage storedLogo = ImageIO.read(new ByteArrayInputStream(stored.get(logoUrl.substring(logoUrl.lastIndexOf('/') + 1))));
+        assertTrue(storedLogo.getColorModel().hasAlpha());
+
+        ImageEncodingStats stats = fileUploadService.getEncodingStats();
+        assertEquals(2, stats.getImages());
+        assertEquals(1, stats.getPngToJpeg());
+        assertTrue(stats.getSavedBytes() > 0);
+    }
+
+    @Test
+    public void uploadShouldPublishOnlyTheReencodedImageWithoutMetadata() throws Exception {
+        Map<String, byte[]> stored = new ConcurrentHashMap<>();
+        Map<String, String> contentTypes = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            stored.put(invocation.getArgument(0), invocation.getArgument(1));
+            return contentTypes.put(invocation.getArgument(0), invocation.getArgument(2));
+        }).when(imageStorage).write(anyString(), any(), anyString());
+        List<ImageProcessingPipeline.ImageTask> tasks = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> tasks.add(invocation.getArgument(2)))
+                .when(imageProcessingPipeline).submit(anyLong(), anyString(), any());
+
+        // 帶 EXIF（含 GPS 的 APP1 區段）的 JPEG 與沒有透明度的 PNG 照片
+        byte[] jpeg = withExif(encode(photo(400, 300), "jpeg"));
+        assertTrue(indexOf(jpeg, (byte) 0xff, (byte) 0xe1) > 0);
+        String jpegUrl = fileUploadService.uploadProductImage(
+                new MockMultipartFile("imageFile", "camera.jpg", "image/jpeg", jpeg), 1L);
+        String pngUrl = fileUploadService.uploadProductImage(
+                new MockMultipartFile("imageFile", "photo.png", "image/png", encode(photo(400, 300), "png")), 1L);
+
+        // 處理完成前網址沒有任何內容
+        assertEquals(2, tasks.size());
+        verify(imageStorage, never()).write(anyString(), any(), anyString());
+
+        // 400 寬的圖片：w240 加上主圖本身的實際寬度
+        for (ImageProcessingPipeline.ImageTask task : tasks) {
+            assertEquals("240,400", task.process());
+        }
+        byte[] published = stored.get(key(jpegUrl));
+        assertEquals("image/jpeg", contentTypes.get(key(jpegUrl)));
+        assertTrue("no EXIF segment", indexOf(published, (byte) 0xff, (byte) 0xe1) < 0);
+        assertTrue(pngUrl.endsWith(".jpg"));
+        assertEquals("image/jpeg", contentTypes.get(key(pngUrl)));
+        assertEquals(0xd8, stored.get(key(pngUrl))[1] & 0xff);
+    }
+
+    @Test
+    public void handedOutUrlShouldBeWrittenOnceAndNeverRewritten() throws Exception {
+        Map<String, byte[]> stored = new ConcurrentHashMap<>();
+        List<String> writes = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            writes.add(invocation.getArgument(0));
+            return stored.put(invocation.getArgument(0), invocation.getArgument(1));
+        }).when(imageStorage).write(anyString(), any(), anyString());
+        when(imageStorage.exists(anyString())).thenAnswer(invocation -> stored.containsKey(invocation.<String>getArgument(0)));
+        when(imageStorage.read(anyString())).thenAnswer(invocation -> stored.get(invocation.<String>getArgument(0)));
+        List<ImageProcessingPipeline.ImageTask> tasks = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> tasks.add(invocation.getArgument(2)))
+                .when(imageProcessingPipeline).submit(anyLong(), anyString(), any());
+        byte[] png = encode(photo(300, 200), "png");
+        Path file = folder.getRoot().toPath().resolve("same.png");
+        Files.write(file, png);
+
+        // 上傳排隊中、相同內容的匯入（未看到處理中的狀態）先寫入；之後才輪到的背景處理不再改寫
+        String imageUrl = fileUploadService.uploadProductImage(
+                new MockMultipartFile("imageFile", "same.png", "image/png", png), 1L);
+        assertEquals(imageUrl, fileUploadService.importProductImage(file).getImageUrl());
+        byte[] published = stored.get(key(imageUrl));
+        // 略過處理時由已寫入的主圖讀出實際寬度
+        assertEquals("240,300", tasks.get(0).process());
+        assertSame(published, stored.get(key(imageUrl)));
+
+        // 已寫入後再上傳或匯入相同內容，沿用既有的檔案
+        when(imageProcessingPipeline.getState(imageUrl)).thenReturn(ProcessingState.READY);
+        assertEquals(imageUrl, fileUploadService.uploadProductImage(
+                new MockMultipartFile("imageFile", "again.png", "image/png", png), 2L));
+        assertEquals("240,300", fileUploadService.importProductImage(file).getVariantWidths());
+
+        assertEquals(1, tasks.size());
+        assertEquals("each key written once: " + writes, writes.size(), new HashSet<>(writes).size());
+        assertTrue(writes.contains(key(imageUrl)));
+
+        // 上傳處理中時匯入相同內容，交給背景處理寫入
+        byte[] other = encode(photo(200, 100), "png");
+        Path otherFile = folder.getRoot().toPath().resolve("other.png");
+        Files.write(otherFile, other);
+        String otherUrl = fileUploadService.uploadProductImage(
+                new MockMultipartFile("imageFile", "other.png", "image/png", other), 3L);
+        when(imageProcessingPipeline.getState(otherUrl)).thenReturn(ProcessingState.PENDING);
+        StoredImage pending = fileUploadService.importProductImage(otherFile);
+        assertEquals(otherUrl, pending.getImageUrl());
+        assertNull(pending.getVariantWidths());
+        assertFalse(stored.containsKey(key(otherUrl)));
+        tasks.get(1).process();
+        assertEquals(1, Collections.frequency(writes, key(otherUrl)));
+    }
+
+    @Test
+    public void validationShouldRejectHugeDimensionsFromTheHeaderAlone() throws Exception {
+        // 只有 IHDR 宣告 9000x5000、沒有任何像素資料的 PNG：能得到尺寸錯誤表示沒有解碼像素
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        png.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+        ByteBuffer header = ByteBuffer.allocate(13).putInt(9000).putInt(5000)
+                .put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0);
+        writeChunk(png, "IHDR", header.array());
+        writeChunk(png, "IEND", new byte[0]);
+
+        String error = fileUploadService.validateImageFile(
+                new MockMultipartFile("imageFile", "huge.png", "image/png", png.toByteArray()));
+
+        assertEquals("圖片尺寸過大，寬高相乘不能超過 4000 萬像素", error);
+        assertNull(fileUploadService.validateImageFile(image("small.png", 10)));
+    }
+
+    @Test
+    public void largePhotosShouldBeSubsampledToAboutTwiceTheTargetWhileDecoding() throws Exception {
+        byte[] png = encode(new BufferedImage(6000, 4000, BufferedImage.TYPE_BYTE_GRAY), "png");
+
+        BufferedImage decoded = ReflectionTestUtils.invokeMethod(fileUploadService, "decodeImage",
+                new ByteArrayInputStream(png), "large.png");
+
+        // 主圖上限 800：解碼結果約為兩倍（抽樣間隔 3 → 2000x1334），不是 6000x4000
+        assertNotNull(decoded);
+        assertTrue("decoded width " + decoded.getWidth(), decoded.getWidth() >= 1600 && decoded.getWidth() <= 2400);
+        assertEquals(decoded.getWidth() * 2 / 3, decoded.getHeight(), 1);
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(type.getBytes(StandardCharsets.US_ASCII));
+        crc.update(data);
+        out.write(ByteBuffer.allocate(4).putInt(data.length).array());
+        out.write(type.getBytes(StandardCharsets.US_ASCII));
+        out.write(data);
+        out.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    private static String key(String imageUrl) {
+        return imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+    }
+
+    private static BufferedImage photo(int width, int height) {
+        Random random = new Random(width * 31L + height);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, random.nextInt(0xffffff));
+            }
+        }
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 在 SOI 之後插入一個 APP1 Exif 區段（內容只是可辨識的文字）
+     */
+    private static byte[] withExif(byte[] jpeg) {
+        byte[] payload = "Exif\0\0GPS 25.0330N 121.5654E".getBytes(StandardCharsets.ISO_8859_1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xff);
+        out.write(0xe1);
+        out.write((payload.length + 2) >> 8);
+        out.write((payload.length + 2) & 0xff);
+        out.write(payload, 0, payload.length);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    private static int indexOf(byte[] data, byte first, byte second) {
+        for (int i = 0; i + 1 < data.length; i++) {
+            if (data[i] == first && data[i + 1] == second) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static MockMultipartFile image(String filename, int size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB), "png", out);
+        return new MockMultipartFile("imageFiles", filename, "image/png", out.toByteArray());
+    }
+}
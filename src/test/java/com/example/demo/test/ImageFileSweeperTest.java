@@ -0,0 +1,108 @@
+package com.example.demo.test;
+
+import com.example.demo.dao.ImageFileDAO;
+import com.example.demo.dao.ProductImageDAO;
+import com.example.demo.model.ImageFile;
+import com.example.demo.service.FileUploadService;
+import com.example.demo.service.ImageFileRegistry;
+import com.example.demo.service.ImageFileSweeper;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ImageFileSweeperTest {
+
+    private ImageFileDAO imageFileDAO;
+    private ProductImageDAO productImageDAO;
+    private FileUploadService fileUploadService;
+    private TransactionTemplate transactionTemplate;
+    private ImageFileSweeper sweeper;
+
+    @Before
+    public void setUp() {
+        imageFileDAO = mock(ImageFileDAO.class);
+        productImageDAO = mock(ProductImageDAO.class);
+        fileUploadService = mock(FileUploadService.class);
+        transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        sweeper = new ImageFileSweeper(imageFileDAO, productImageDAO, fileUploadService, transactionTemplate,
+                Duration.ofMinutes(10));
+    }
+
+    @Test
+    public void sweepShouldDeleteOnlyFilesStillUnreferencedAfterTheGracePeriod() throws Exception {
+        LocalDateTime longAgo = LocalDateTime.now().minusHours(1);
+        ImageFile unused = imageFile("/resources/images/products/a.jpg", longAgo, longAgo);
+        ImageFile referencedAgain = imageFile("/resources/images/products/b.jpg", longAgo, longAgo);
+        // 標記後另一次上傳取得了同一個網址，引用紀錄可能還沒寫入
+        ImageFile justIssued = imageFile("/resources/images/products/c.jpg", LocalDateTime.now(), longAgo);
+        when(imageFileDAO.findReleasedBefore(any(), eq(""), anyInt()))
+                .thenReturn(List.of(unused.getImageUrl(), referencedAgain.getImageUrl(), justIssued.getImageUrl()));
+        when(imageFileDAO.findReleasedBefore(any(), eq(justIssued.getImageUrl()), anyInt())).thenReturn(List.of());
+        for (ImageFile imageFile : List.of(unused, referencedAgain, justIssued)) {
+            when(imageFileDAO.lock(imageFile.getImageUrl())).thenReturn(imageFile);
+        }
+        when(productImageDAO.countReferences(referencedAgain.getImageUrl())).thenReturn(1L);
+
+        assertEquals(1, sweeper.sweep());
+
+        verify(fileUploadService).deleteProductImage(unused.getImageUrl());
+        verify(imageFileDAO).delete(unused);
+        verify(fileUploadService, times(1)).deleteProductImage(anyString());
+        // 又有引用：取消標記；剛取得網址：保留標記，下一輪再確認
+        assertNull(referencedAgain.getReleasedAt());
+        assertEquals(longAgo, justIssued.getReleasedAt());
+        verify(productImageDAO, never()).countReferences(justIssued.getImageUrl());
+    }
+
+    @Test
+    public void sweepShouldSkipFilesAlreadyHandledByAnotherNode() throws Exception {
+        when(imageFileDAO.findReleasedBefore(any(), eq(""), anyInt()))
+                .thenReturn(List.of("/resources/images/products/a.jpg"));
+        when(imageFileDAO.findReleasedBefore(any(), eq("/resources/images/products/a.jpg"), anyInt()))
+                .thenReturn(List.of());
+        // 等到鎖時紀錄已被其他伺服器的清理刪除
+        when(imageFileDAO.lock(anyString())).thenReturn(null);
+
+        assertEquals(0, sweeper.sweep());
+
+        verify(fileUploadService, never()).deleteProductImage(anyString());
+        verify(productImageDAO, never()).countReferences(anyString());
+    }
+
+    @Test
+    public void issueShouldRecreateTheRecordWhenTheSweepDeletedItWhileWaitingForTheLock() throws Exception {
+        ImageFileRegistry registry = new ImageFileRegistry(imageFileDAO, transactionTemplate);
+        ImageFile recreated = new ImageFile("/resources/images/products/a.jpg");
+        // 第一次建立時其他伺服器剛好也在建立
+        doThrow(new DataIntegrityViolationException("duplicate key")).doNothing().when(imageFileDAO).create(any());
+        when(imageFileDAO.lock("/resources/images/products/a.jpg")).thenReturn(null, recreated);
+        AtomicInteger runs = new AtomicInteger();
+
+        String result = registry.issue("/resources/images/products/a.jpg", () -> "stored-" + runs.incrementAndGet());
+
+        assertEquals("stored-1", result);
+        assertNotNull(recreated.getIssuedAt());
+        verify(imageFileDAO, times(2)).create(any());
+
+        registry.release("/resources/images/products/a.jpg");
+        assertNotNull(recreated.getReleasedAt());
+    }
+
+    private ImageFile imageFile(String imageUrl, LocalDateTime issuedAt, LocalDateTime releasedAt) {
+        ImageFile imageFile = new ImageFile(imageUrl);
+        imageFile.setIssuedAt(issuedAt);
+        imageFile.setReleasedAt(releasedAt);
+        return imageFile;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.test;
+
+import com.example.demo.dao.ProductImageDAO;
+import com.example.demo.model.ImagePipelineStats;
+import com.example.demo.model.ProcessingState;
+import com.example.demo.service.ImageProcessingPipeline;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductFactsCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ImageProcessingPipelineTest {
+
+    private ProductImageDAO productImageDAO;
+    private PageCache pageCache;
+    private ImageProcessingPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        productImageDAO = mock(ProductImageDAO.class);
+        pageCache = mock(PageCache.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        pipeline = new ImageProcessingPipeline(productImageDAO, transactionTemplate, pageCache,
+                mock(ProductFactsCache.class), 1, 4);
+    }
+
+    @Test
+    public void submitShouldReturnImmediatelyAndRecordStateWhenDone() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline.submit(7L, "/img/a.jpg", () -> {
+            await(release);
+            return "240,480";
+        });
+        pipeline.submit(7L, "/img/b.jpg", () -> {
+            throw new IOException("broken");
+        });
+
+        // 工作還在排隊或處理中
+        assertEquals(ProcessingState.PENDING, pipeline.getState("/img/a.jpg"));
+        assertEquals(ProcessingState.PENDING, pipeline.getState("/img/b.jpg"));
+        assertEquals(2, pipeline.getStats().getInFlight());
+
+        release.countDown();
+        pipeline.destroy();
+
+        assertEquals(ProcessingState.READY, pipeline.getState("/img/a.jpg"));
+        assertEquals(ProcessingState.FAILED, pipeline.getState("/img/b.jpg"));
+        assertNull(pipeline.getState("/img/unknown.jpg"));
+        assertEquals("240,480", pipeline.getVariantWidths("/img/a.jpg"));
+        assertNull(pipeline.getVariantWidths("/img/b.jpg"));
+        verify(productImageDAO).updateProcessingState("/img/a.jpg", ProcessingState.READY, "240,480");
+        verify(productImageDAO).updateProcessingState("/img/b.jpg", ProcessingState.FAILED, null);
+        verify(pageCache, times(2)).productChanged(7L);
+
+        ImagePipelineStats stats = pipeline.getStats();
+        assertEquals(2, stats.getSubmitted());
+        assertEquals(1, stats.getCompleted());
+        assertEquals(1, stats.getFailed());
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(4, stats.getQueueCapacity());
+    }
+
+    @Test
+    public void reconcileShouldRewriteStateForImagesSavedAfterProcessing() throws Exception {
+        pipeline.submit(1L, "/img/c.jpg", () -> null);
+        pipeline.destroy();
+
+        pipeline.reconcile("/img/c.jpg");
+        pipeline.reconcile("/img/never-submitted.jpg");
+
+        verify(productImageDAO, times(2)).updateProcessingState("/img/c.jpg", ProcessingState.READY, null);
+        verify(productImageDAO, never()).updateProcessingState(eq("/img/never-submitted.jpg"), any(), any());
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IOException("timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.test;
+
+import com.example.demo.service.impl.LocalImageStorage;
+import com.example.demo.service.impl.S3ImageStorage;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class ImageStorageTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void localStorageShouldWriteOnceAndReadLegacyImagesReadOnly() throws Exception {
+        Path directory = folder.newFolder("images").toPath();
+        Path legacy = folder.newFolder("webapp").toPath();
+        Files.write(legacy.resolve("product_7_old.png"), bytes("legacy"));
+        LocalImageStorage storage = new LocalImageStorage(directory, List.of(legacy));
+
+        storage.write("abc.jpg", bytes("image"), "image/jpeg");
+        assertArrayEquals(bytes("image"), Files.readAllBytes(directory.resolve("abc.jpg")));
+        assertTrue(storage.exists("abc.jpg"));
+        assertArrayEquals(bytes("legacy"), storage.read("product_7_old.png"));
+
+        // 舊網址可能含 contextPath；外部網址與路徑穿越都不是這裡的圖片
+        assertEquals("abc.jpg", storage.keyOf("/shop/resources/images/products/abc.jpg"));
+        assertEquals("/resources/images/products/abc.jpg", storage.publicUrl("abc.jpg"));
+        assertNull(storage.keyOf("https://cdn.example.com/abc.jpg"));
+        assertNull(storage.keyOf("/resources/images/products/../secret.txt"));
+
+        storage.delete("abc.jpg");
+        storage.delete("product_7_old.png");
+        assertFalse(storage.exists("abc.jpg"));
+        assertTrue(Files.exists(legacy.resolve("product_7_old.png")));
+        try {
+            storage.read("abc.jpg");
+            fail("expected NoSuchFileException");
+        } catch (NoSuchFileException expected) {
+        }
+    }
+
+    @Test
+    public void s3StorageShouldSignRequestsAndRoundTripObjects() throws Exception {
+        // 簡易的 S3 替身：以路徑存放物件，記錄每個請求的方法與簽章
+        Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        List<String> requests = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getRawPath();
+            requests.add(exchange.getRequestMethod() + " " + path + " "
+                    + exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            byte[] object = objects.get(path);
+            switch (exchange.getRequestMethod()) {
+                case "PUT":
+                    objects.put(path, body);
+                    exchange.sendResponseHeaders(200, -1);
+                    break;
+                case "GET":
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                    } else {
+                        exchange.sendResponseHeaders(200, object.length);
+                        exchange.getResponseBody().write(object);
+                    }
+                    break;
+                case "HEAD":
+                    exchange.sendResponseHeaders(object == null ? 404 : 200, -1);
+                    break;
+                case "DELETE":
+                    objects.remove(path);
+                    exchange.sendResponseHeaders(204, -1);
+                    break;
+                default:
+                    exchange.sendResponseHeaders(405, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+        S3ImageStorage storage = new S3ImageStorage(URI.create(endpoint), "shop", "ap-east-1", "AKID", "secret",
+                "products/", "https://img.example.com");
+
+        assertFalse(storage.exists("abc.jpg"));
+        storage.write("abc.jpg", bytes("image"), "image/jpeg");
+        assertArrayEquals(bytes("image"), objects.get("/shop/products/abc.jpg"));
+        assertTrue(storage.exists("abc.jpg"));
+        assertArrayEquals(bytes("image"), storage.read("abc.jpg"));
+        storage.delete("abc.jpg");
+        assertTrue(objects.isEmpty());
+        try {
+            storage.read("abc.jpg");
+            fail("expected NoSuchFileException");
+        } catch (NoSuchFileException expected) {
+        }
+
+        assertEquals("https://img.example.com/products/abc.jpg", storage.publicUrl("abc.jpg"));
+        assertEquals("abc.jpg", storage.keyOf("https://img.example.com/products/abc.jpg"));
+        assertNull(storage.keyOf("/resources/images/products/abc.jpg"));
+        for (String request : requests) {
+            assertTrue(request, request.matches("\\w+ /shop/products/abc\\.jpg AWS4-HMAC-SHA256 "
+                    + "Credential=AKID/\\d{8}/ap-east-1/s3/aws4_request, "
+                    + "SignedHeaders=host;x-amz-content-sha256;x-amz-date, Signature=[0-9a-f]{64}"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void s3StorageShouldReportServerErrors() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(403, -1);
+            exchange.close();
+        });
+        server.start();
+        new S3ImageStorage(URI.create("http://127.0.0.1:" + server.getAddress().getPort()), "shop", "us-east-1",
+                "AKID", "wrong", "", null).write("abc.jpg", bytes("image"), "image/jpeg");
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.test;
+
+import com.example.demo.dao.ProductImageDAO;
+import com.example.demo.model.ImageVariants;
+import com.example.demo.model.ProcessingState;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductImage;
+import com.example.demo.service.FileUploadService;
+import com.example.demo.service.ImageVariantBackfill;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductFactsCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ImageVariantBackfillTest {
+
+    private ProductImageDAO productImageDAO;
+    private FileUploadService fileUploadService;
+    private PageCache pageCache;
+    private ImageVariantBackfill backfill;
+
+    @Before
+    public void setUp() {
+        productImageDAO = mock(ProductImageDAO.class);
+        fileUploadService = mock(FileUploadService.class);
+        pageCache = mock(PageCache.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        backfill = new ImageVariantBackfill(productImageDAO, fileUploadService, transactionTemplate, pageCache,
+                mock(ProductFactsCache.class));
+    }
+
+    @Test
+    public void srcsetShouldListVariantsThenFullImageWithActualWidths() {
+        assertEquals("/shop/resources/images/products/a_w240.jpg 240w, "
+                        + "/shop/resources/images/products/a_w480.jpg 480w, "
+                        + "/shop/resources/images/products/a.jpg 800w",
+                ImageVariants.srcset("/resources/images/products/a.jpg", "240,480,800", "/shop"));
+        // 比 480 窄的圖片只有 w240，主圖標上實際寬度；外部圖片不加 contextPath
+        assertEquals("https://cdn.example.com/b_w240.png 240w, https://cdn.example.com/b.png 300w",
+                ImageVariants.srcset("https://cdn.example.com/b.png", "240,300", "/shop"));
+        // 沒有衍生檔（比 240 窄）或還沒有記錄時不輸出 srcset
+        assertNull(ImageVariants.srcset("/resources/images/products/a.jpg", "200", ""));
+        assertNull(ImageVariants.srcset("/resources/images/products/a.jpg", null, ""));
+        assertEquals(List.of(240), ImageVariants.derivativeWidthsFor(300));
+        assertEquals(List.of(), ImageVariants.derivativeWidthsFor(240));
+        assertEquals("240,480,800", ImageVariants.widths(ImageVariants.derivativeWidthsFor(800), 800));
+    }
+
+    @Test
+    public void backfillShouldPageByIdAndSkipFailures() throws Exception {
+        ProductImage first = image(1L, 10L, "/resources/images/products/a.jpg");
+        ProductImage external = image(2L, 10L, "https://cdn.example.com/b.jpg");
+        ProductImage broken = image(3L, 11L, "/resources/images/products/c.jpg");
+        ProductImage last = image(4L, 12L, "/resources/images/products/d.jpg");
+        when(productImageDAO.findWithoutVariants(eq(0L), anyInt())).thenReturn(List.of(first, external, broken));
+        when(productImageDAO.findWithoutVariants(eq(3L), anyInt())).thenReturn(List.of(last));
+        when(productImageDAO.findWithoutVariants(eq(4L), anyInt())).thenReturn(List.of());
+        when(fileUploadService.isManagedImage(startsWith("/resources/"))).thenReturn(true);
+        when(fileUploadService.generateVariants(anyString())).thenReturn("240,480,800");
+        when(fileUploadService.generateVariants("/resources/images/products/c.jpg"))
+                .thenThrow(new IOException("missing"));
+
+        assertEquals(2, backfill.backfill());
+
+        verify(productImageDAO).updateProcessingState("/resources/images/products/a.jpg", ProcessingState.READY, "240,480,800");
+        verify(productImageDAO).updateProcessingState("/resources/images/products/d.jpg", ProcessingState.READY, "240,480,800");
+        verify(productImageDAO, never()).updateProcessingState(eq("/resources/images/products/c.jpg"), any(), any());
+        verify(fileUploadService, never()).generateVariants("https://cdn.example.com/b.jpg");
+        verify(pageCache).productChanged(10L);
+        verify(pageCache).productChanged(12L);
+        assertTrue(backfill.getStatus().contains("processed=2 skipped=1 failed=1"));
+    }
+
+    private ProductImage image(Long id, Long productId, String imageUrl) {
+        Product product = new Product();
+        product.setId(productId);
+        ProductImage image = new ProductImage();
+        image.setId(id);
+        image.setProduct(product);
+        image.setImageUrl(imageUrl);
+        return image;
+    }
+}
@@ -2,6 +2,8 @@ package com.example.demo.test;
 
 import com.example.demo.dao.impl.OrderDAOImpl;
 import com.example.demo.model.Order;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.model.OrderSummary;
 import com.example.demo.model.User;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -16,7 +18,10 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -37,7 +42,7 @@ public class OrderDAOImplTest {
     @Before
     public void setUp() {
         when(sessionFactory.getCurrentSession()).thenReturn(session);
-        when(session.createQuery(anyString(), eq(Order.class))).thenReturn(query);
+        lenient().when(session.createQuery(anyString(), eq(Order.class))).thenReturn(query);
         orderDAO = new OrderDAOImpl(sessionFactory);
     }
 
@@ -56,4 +61,19 @@ public class OrderDAOImplTest {
         verify(query).setParameter("userId", user.getId());
         verify(query).list();
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFindRecentByUserLimitsProjection() {
+        Query<OrderSummary> summaryQuery = mock(Query.class);
+        when(session.createQuery(contains("new com.example.demo.model.OrderSummary"), eq(OrderSummary.class)))
+                .thenReturn(summaryQuery);
+        List<OrderSummary> expected = List.of(new OrderSummary(9L, null, OrderStatus.PENDING_PAYMENT, null, null));
+        when(summaryQuery.list()).thenReturn(expected);
+
+        assertEquals(expected, orderDAO.findRecentByUser(1L, 5));
+        verify(summaryQuery).setParameter("userId", 1L);
+        verify(summaryQuery).setMaxResults(5);
+        assertEquals(List.of(), orderDAO.findRecentByUser(null, 5));
+    }
 }
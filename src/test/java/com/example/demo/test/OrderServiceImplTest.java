@@ -4,6 +4,7 @@ import com.example.demo.dao.OrderDAO;
 import com.example.demo.dao.ProductDAO;
 import com.example.demo.model.*;
 import com.example.demo.service.AddressService;
+import com.example.demo.service.PageCache;
 import com.example.demo.service.impl.OrderServiceImpl;
 import org.junit.Before;
 import org.junit.Test;
@@ -29,7 +30,8 @@ public class OrderServiceImplTest {
 
     @Before
     public void setUp() {
-        orderService = new OrderServiceImpl(orderDAO, productDAO, addressService);
+        orderService = new OrderServiceImpl(orderDAO, productDAO, addressService,
+                new PageCache(PageCache.DEFAULT_MAX_BYTES));
     }
 
     @Test
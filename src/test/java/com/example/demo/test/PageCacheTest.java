@@ -0,0 +1,112 @@
+package com.example.demo.test;
+
+import com.example.demo.service.PageCache;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PageCacheTest {
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedPagesWhenOverByteLimit() {
+        PageCache cache = new PageCache(10);
+        store(cache, "a", "1234", null);
+        store(cache, "b", "1234", null);
+        // 讀取 a，讓 b 成為最久未使用
+        assertNotNull(cache.get("a"));
+        store(cache, "c", "1234", null);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(8, cache.getTotalBytes());
+    }
+
+    @Test
+    public void productChangeShouldDropListPagesAndOnlyThatProductsDetail() {
+        PageCache cache = new PageCache(PageCache.DEFAULT_MAX_BYTES);
+        store(cache, "anonymous|en|/products", "list", null);
+        store(cache, "anonymous|en|/products/detail/1", "one", 1L);
+        store(cache, "anonymous|en|/products/detail/2", "two", 2L);
+
+        cache.productChanged(1L);
+
+        assertNull(cache.get("anonymous|en|/products"));
+        assertNull(cache.get("anonymous|en|/products/detail/1"));
+        assertNotNull(cache.get("anonymous|en|/products/detail/2"));
+        assertEquals(1, cache.getStats().getHitCount());
+        assertEquals(2, cache.getStats().getMissCount());
+    }
+
+    @Test
+    public void productChangeShouldDropDetailPagesShowingItAsRelated() {
+        PageCache cache = new PageCache(PageCache.DEFAULT_MAX_BYTES);
+        PageCache.Flight flight = cache.startFlight("anonymous|en|/products/detail/1");
+        flight.complete(new PageCache.CachedPage("one".getBytes(StandardCharsets.UTF_8), "text/html", 1L,
+                Map.of(), Set.of(3L)));
+        store(cache, "anonymous|en|/products/detail/2", "two", 2L);
+
+        cache.productChanged(3L);
+
+        assertNull(cache.get("anonymous|en|/products/detail/1"));
+        assertNotNull(cache.get("anonymous|en|/products/detail/2"));
+    }
+
+    @Test
+    public void pageRenderedBeforeInvalidationShouldNotBeStored() {
+        PageCache cache = new PageCache(PageCache.DEFAULT_MAX_BYTES);
+        PageCache.Flight flight = cache.startFlight("k");
+        cache.productChanged(5L);
+        flight.complete(page("stale", null));
+
+        assertNull(cache.get("k"));
+    }
+
+    @Test
+    public void concurrentMissesShouldShareOneRender() throws Exception {
+        PageCache cache = new PageCache(PageCache.DEFAULT_MAX_BYTES);
+        PageCache.Flight leader = cache.startFlight("k");
+        assertTrue(leader.isLeader());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch started = new CountDownLatch(2);
+        try {
+            Future<PageCache.CachedPage> first = executor.submit(() -> awaitFollower(cache, started));
+            Future<PageCache.CachedPage> second = executor.submit(() -> awaitFollower(cache, started));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            leader.complete(page("html", null));
+
+            assertEquals("html", new String(first.get(5, TimeUnit.SECONDS).getBody(), StandardCharsets.UTF_8));
+            assertEquals("html", new String(second.get(5, TimeUnit.SECONDS).getBody(), StandardCharsets.UTF_8));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, cache.getStats().getPutCount());
+        assertTrue(cache.startFlight("k").isLeader());
+    }
+
+    private static PageCache.CachedPage awaitFollower(PageCache cache, CountDownLatch started) {
+        PageCache.Flight flight = cache.startFlight("k");
+        assertFalse(flight.isLeader());
+        started.countDown();
+        return flight.await(5000);
+    }
+
+    private static void store(PageCache cache, String key, String body, Long productId) {
+        cache.startFlight(key).complete(page(body, productId));
+    }
+
+    private static PageCache.CachedPage page(String body, Long productId) {
+        return new PageCache.CachedPage(body.getBytes(StandardCharsets.UTF_8), "text/html;charset=UTF-8", productId);
+    }
+}
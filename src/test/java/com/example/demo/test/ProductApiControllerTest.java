@@ -0,0 +1,124 @@
+package com.example.demo.test;
+
+import com.example.demo.controller.ProductApiController;
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.CatalogQuery;
+import com.example.demo.service.CategoryIndex;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductFactsCache;
+import com.example.demo.service.ProductSearchIndex;
+import com.example.demo.service.impl.ProductServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProductApiControllerTest {
+
+    @Mock
+    private ProductDAO productDAO;
+
+    @Mock
+    private CategoryIndex categoryIndex;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private PageCache pageCache;
+
+    @Mock
+    private ProductFactsCache productFactsCache;
+
+    @InjectMocks
+    private ProductServiceImpl productService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        ProductApiController controller = new ProductApiController();
+        ReflectionTestUtils.setField(controller, "productService", productService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    public void listShouldReturnSparseFieldsAndCursorRoundTrip() throws Exception {
+        when(productDAO.findCatalogPage(any())).thenReturn(rows(3, 4, 5));
+
+        String body = mockMvc.perform(get("/api/products").param("fields", "name").param("limit", "2")
+                        .param("sort", "price"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/json"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        JsonNode page = objectMapper.readTree(body);
+        assertEquals(2, page.get("items").size());
+        // 排序鍵 id、price 只用於游標，沒有要求就不回傳
+        JsonNode first = page.get("items").get(0);
+        assertEquals(1, first.size());
+        assertEquals("商品3", first.get("name").asText());
+        String cursor = page.get("nextCursor").asText();
+
+        when(productDAO.findCatalogPage(any())).thenReturn(rows(5));
+        body = mockMvc.perform(get("/api/products").param("cursor", cursor).param("sort", "price"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        ArgumentCaptor<CatalogQuery> captor = ArgumentCaptor.forClass(CatalogQuery.class);
+        verify(productDAO, times(2)).findCatalogPage(captor.capture());
+        CatalogQuery second = captor.getAllValues().get(1);
+        assertEquals(Long.valueOf(4L), second.getAfterId());
+        assertEquals(new BigDecimal("40.50"), second.getAfterPrice());
+        assertTrue(objectMapper.readTree(body).get("nextCursor").isNull());
+    }
+
+    @Test
+    public void listShouldRejectUnknownFieldsAndMismatchedCursor() throws Exception {
+        mockMvc.perform(get("/api/products").param("fields", "name,cost"))
+                .andExpect(status().isBadRequest());
+        when(productDAO.findCatalogPage(any())).thenReturn(rows(1, 2));
+        String cursor = objectMapper.readTree(mockMvc.perform(get("/api/products").param("limit", "1"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8)).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/products").param("cursor", cursor).param("sort", "price_desc"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products").param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<Map<String, Object>> rows(long... ids) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (long id : ids) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", "商品" + id);
+            row.put("id", id);
+            row.put("price", new BigDecimal(id + "0.50"));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
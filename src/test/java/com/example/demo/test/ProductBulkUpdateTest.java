@@ -0,0 +1,121 @@
+package com.example.demo.test;
+
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.BulkUpdateResult;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductUpdate;
+import com.example.demo.service.CategoryIndex;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductFactsCache;
+import com.example.demo.service.ProductSearchIndex;
+import com.example.demo.service.impl.ProductServiceImpl;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProductBulkUpdateTest {
+
+    @Mock
+    private ProductDAO productDAO;
+
+    @Mock
+    private CategoryIndex categoryIndex;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private PageCache pageCache;
+
+    @Mock
+    private ProductFactsCache productFactsCache;
+
+    @InjectMocks
+    private ProductServiceImpl productService;
+
+    @Test
+    public void bulkUpdateShouldLoadOnceAndReportEachRow() {
+        Product first = product(1L, "Pen", "Office", 5);
+        Product second = product(2L, "Cup", "Kitchen", 3);
+        when(productDAO.findByIds(anyList())).thenReturn(Arrays.asList(first, second));
+
+        BulkUpdateResult result = productService.bulkUpdateProducts(Arrays.asList(
+                ProductUpdate.stock(1L, 8),
+                ProductUpdate.stock(2L, 3),
+                ProductUpdate.stock(2L, -1),
+                ProductUpdate.stock(99L, 4)));
+
+        List<BulkUpdateResult.Outcome> outcomes = result.getOutcomes();
+        assertEquals(4, outcomes.size());
+        assertEquals(BulkUpdateResult.Status.UPDATED, outcomes.get(0).getStatus());
+        assertEquals(BulkUpdateResult.Status.UNCHANGED, outcomes.get(1).getStatus());
+        assertEquals(BulkUpdateResult.Status.INVALID, outcomes.get(2).getStatus());
+        assertEquals(BulkUpdateResult.Status.NOT_FOUND, outcomes.get(3).getStatus());
+        assertEquals(Long.valueOf(99L), outcomes.get(3).getProductId());
+        assertEquals(2, result.getFailures().size());
+
+        assertEquals(Integer.valueOf(8), first.getStock());
+        assertEquals(Integer.valueOf(3), second.getStock());
+        verify(productDAO, times(1)).findByIds(Arrays.asList(1L, 2L, 99L));
+        verify(productDAO, never()).save(any());
+        verify(pageCache).productChanged(1L);
+        verify(pageCache, never()).productChanged(2L);
+        // 只改庫存：分類索引、搜尋索引與商品資訊快取都不受影響
+        verifyNoInteractions(categoryIndex, productSearchIndex, productFactsCache);
+    }
+
+    @Test
+    public void invalidRowShouldNotApplyAnyField() {
+        Product product = product(1L, "Pen", "Office", 5);
+        when(productDAO.findByIds(anyList())).thenReturn(Arrays.asList(product));
+
+        ProductUpdate update = new ProductUpdate(1L);
+        update.setName("Pencil");
+        update.setPrice(new BigDecimal("-1"));
+        BulkUpdateResult result = productService.bulkUpdateProducts(Arrays.asList(update));
+
+        assertEquals(1, result.count(BulkUpdateResult.Status.INVALID));
+        assertEquals("Pen", product.getName());
+        verifyNoInteractions(pageCache);
+    }
+
+    @Test
+    public void categoryChangeShouldUpdateIndexesAndFacts() {
+        Product product = product(1L, "Pen", "Office", 5);
+        when(productDAO.findByIds(anyList())).thenReturn(Arrays.asList(product));
+
+        ProductUpdate update = new ProductUpdate(1L);
+        update.setCategory(" Stationery ");
+        update.setListed(false);
+        BulkUpdateResult result = productService.bulkUpdateProducts(Arrays.asList(update));
+
+        assertEquals(1, result.count(BulkUpdateResult.Status.UPDATED));
+        assertEquals("Stationery", product.getCategory());
+        verify(categoryIndex).productChanged(any(), eq("Stationery"), eq(false));
+        verify(productSearchIndex).productChanged(product);
+        verify(productFactsCache).invalidate(1L);
+        verify(pageCache).productChanged(1L);
+    }
+
+    private Product product(Long id, String name, String category, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(stock);
+        product.setListed(true);
+        return product;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.test;
+
+import com.example.demo.controller.ProductController;
+import com.example.demo.model.CatalogVersion;
+import com.example.demo.model.Product;
+import com.example.demo.service.FileUploadService;
+import com.example.demo.service.ProductImageService;
+import com.example.demo.service.ProductService;
+import com.example.demo.service.RecommendationService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.view.InternalResourceViewResolver;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProductControllerTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    @Mock
+    private ProductImageService productImageService;
+
+    @Mock
+    private RecommendationService recommendationService;
+
+    @InjectMocks
+    private ProductController productController;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        InternalResourceViewResolver viewResolver = new InternalResourceViewResolver("/WEB-INF/views/", ".html");
+        mockMvc = MockMvcBuilders.standaloneSetup(productController).setViewResolvers(viewResolver).build();
+    }
+
+    @Test
+    public void detailShouldReturnNotModifiedWithoutLoadingImages() throws Exception {
+        Product product = new Product();
+        product.setId(7L);
+        product.setName("帆布包");
+        product.setPrice(BigDecimal.TEN);
+        product.setListed(true);
+        when(productService.getProductById(7L)).thenReturn(product);
+        when(productService.getDetailVersion(7L))
+                .thenReturn(new CatalogVersion(1L, LocalDateTime.of(2024, 5, 1, 10, 0), 2L, null));
+
+        MvcResult first = mockMvc.perform(get("/products/detail/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "private, no-cache"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/products/detail/7").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        verify(productImageService, times(1)).getImagesByProductId(7L);
+    }
+
+    @Test
+    public void listEtagShouldChangeWhenCatalogChanges() throws Exception {
+        when(productService.getListVersion(isNull(), eq(false)))
+                .thenReturn(new CatalogVersion(3L, LocalDateTime.of(2024, 5, 1, 10, 0), 3L, null));
+        String etag = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // 刪除一個商品：最後異動時間不變，但筆數改變
+        when(productService.getListVersion(isNull(), eq(false)))
+                .thenReturn(new CatalogVersion(2L, LocalDateTime.of(2024, 5, 1, 10, 0), 2L, null));
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+
+        verify(productService, times(2)).getProductSummaries(null, false);
+    }
+}
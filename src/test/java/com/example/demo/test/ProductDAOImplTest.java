@@ -0,0 +1,158 @@
+package com.example.demo.test;
+
+import com.example.demo.dao.impl.ProductDAOImpl;
+import com.example.demo.model.ProcessingState;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductImage;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.jdbc.Work;
+import org.hibernate.query.Query;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ProductDAOImplTest {
+
+    private Connection connection;
+    private Session session;
+    private ProductDAOImpl productDAO;
+
+    @Before
+    public void setUp() throws Exception {
+        // 批次新增直接走 JDBC，以記憶體內的 H2 執行 doWork
+        connection = DriverManager.getConnection("jdbc:h2:mem:product-dao-test;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table products (id bigint auto_increment primary key, name varchar(255) not null, "
+                    + "description varchar(2000), price decimal(19, 2) not null, image_url varchar(255), "
+                    + "category varchar(255) not null, stock int not null, listed boolean not null, updated_at timestamp)");
+            statement.execute("create table product_images (id bigint auto_increment primary key, product_id bigint not null, "
+                    + "image_url varchar(255) not null, is_cover boolean not null, display_order int not null, "
+                    + "updated_at timestamp, processing_state varchar(16), variant_widths varchar(32))");
+        }
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        session = mock(Session.class);
+        when(sessionFactory.getCurrentSession()).thenReturn(session);
+        when(sessionFactory.getCache()).thenReturn(mock(Cache.class));
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(session).doWork(any(Work.class));
+        productDAO = new ProductDAOImpl();
+        ReflectionTestUtils.setField(productDAO, "sessionFactory", sessionFactory);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void sortIdsShouldReadSortKeysInBoundedChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, 2500).boxed().collect(Collectors.toList());
+        List<List<Long>> chunks = new ArrayList<>();
+        Query<Object[]> query = mock(Query.class);
+        when(session.createQuery(anyString(), eq(Object[].class))).thenReturn(query);
+        when(query.setParameterList(eq("ids"), anyCollection())).thenAnswer(invocation -> {
+            chunks.add(new ArrayList<>(invocation.<Collection<Long>>getArgument(1)));
+            return query;
+        });
+        // 價格以ID的餘數決定：排序依價格，相同時依ID
+        when(query.list()).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long id : chunks.get(chunks.size() - 1)) {
+                rows.add(new Object[]{id, BigDecimal.valueOf(id % 1000)});
+            }
+            return rows;
+        });
+
+        List<Long> sorted = productDAO.sortIds(ids, "price", true);
+
+        assertEquals(List.of(1000, 1000, 500), chunks.stream().map(List::size).collect(Collectors.toList()));
+        assertEquals(2500, sorted.size());
+        assertEquals(List.of(1999L, 999L, 1998L, 998L), sorted.subList(0, 4));
+        assertEquals(List.of(2000L, 1000L), sorted.subList(2498, 2500));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void findByIdsShouldLoadInBoundedChunksAndKeepTheRequestedOrder() {
+        List<Long> ids = LongStream.rangeClosed(1, 2001).map(id -> 2002 - id).boxed().collect(Collectors.toList());
+        List<List<Long>> chunks = new ArrayList<>();
+        Query<Product> query = mock(Query.class);
+        when(session.createQuery(anyString(), eq(Product.class))).thenReturn(query);
+        when(query.setParameterList(eq("ids"), anyCollection())).thenAnswer(invocation -> {
+            chunks.add(new ArrayList<>(invocation.<Collection<Long>>getArgument(1)));
+            return query;
+        });
+        // 資料庫不保證回傳順序，也不回傳已刪除的商品（ID 為 7 的倍數）
+        when(query.list()).thenAnswer(invocation -> {
+            List<Product> rows = new ArrayList<>();
+            for (Long id : chunks.get(chunks.size() - 1)) {
+                if (id % 7 != 0) {
+                    Product product = new Product();
+                    product.setId(id);
+                    rows.add(0, product);
+                }
+            }
+            return rows;
+        });
+
+        List<Product> products = productDAO.findByIds(ids);
+
+        assertEquals(List.of(1000, 1000, 1), chunks.stream().map(List::size).collect(Collectors.toList()));
+        List<Long> expected = ids.stream().filter(id -> id % 7 != 0).collect(Collectors.toList());
+        assertEquals(expected, products.stream().map(Product::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void insertBatchShouldKeepImageVariantWidthsAndProcessingState() throws Exception {
+        Product product = new Product();
+        product.setName("匯入商品");
+        product.setPrice(new BigDecimal("120.00"));
+        product.setCategory("文具");
+        product.setStock(5);
+        product.setListed(true);
+        ProductImage cover = new ProductImage();
+        cover.setProduct(product);
+        cover.setImageUrl("/resources/images/products/abc.jpg");
+        cover.setIsCover(true);
+        cover.setDisplayOrder(0);
+        cover.setVariantWidths("240,480,800");
+        product.getImages().add(cover);
+
+        productDAO.insertBatch(List.of(product));
+
+        assertNotNull(product.getId());
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "select product_id, processing_state, variant_widths from product_images")) {
+            assertTrue(rows.next());
+            assertEquals(product.getId().longValue(), rows.getLong(1));
+            assertEquals(ProcessingState.READY.name(), rows.getString(2));
+            assertEquals("240,480,800", rows.getString(3));
+            assertFalse(rows.next());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.test;
+
+import com.example.demo.model.ProductFacts;
+import com.example.demo.service.ProductFactsCache;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class ProductFactsCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Long, ProductFacts> loader = id -> {
+        loads.incrementAndGet();
+        return id > 100 ? null : new ProductFacts(id, "商品" + id, BigDecimal.TEN, true, null);
+    };
+
+    private ProductFactsCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new ProductFactsCache(2, 60_000, now::get);
+    }
+
+    @Test
+    public void shouldLoadOnceUntilExpired() {
+        assertEquals("商品1", cache.get(1L, loader).getName());
+        cache.get(1L, loader);
+        assertEquals(1, loads.get());
+
+        now.addAndGet(60_001);
+        cache.get(1L, loader);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getStats().getHitCount());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedAndNotCacheMissingProducts() {
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(1L, loader);
+        cache.get(3L, loader);
+        assertEquals(3, loads.get());
+
+        // 2 最久未使用，已被淘汰
+        cache.get(2L, loader);
+        assertEquals(4, loads.get());
+
+        assertNull(cache.get(999L, loader));
+        assertNull(cache.get(999L, loader));
+        assertEquals(6, loads.get());
+    }
+
+    @Test
+    public void invalidateShouldForceReload() {
+        cache.get(1L, loader);
+        cache.invalidate(1L);
+        cache.get(1L, loader);
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.test;
+
+import com.example.demo.dao.ProductImageDAO;
+import com.example.demo.model.ProcessingState;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductImage;
+import com.example.demo.service.FileUploadService;
+import com.example.demo.service.ImageFileRegistry;
+import com.example.demo.service.ImageProcessingPipeline;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductFactsCache;
+import com.example.demo.service.impl.ProductImageServiceImpl;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProductImageServiceTest {
+
+    @Mock
+    private ProductImageDAO productImageDAO;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    @Mock
+    private ImageProcessingPipeline imageProcessingPipeline;
+
+    @Mock
+    private ImageFileRegistry imageFileRegistry;
+
+    @Mock
+    private PageCache pageCache;
+
+    @Mock
+    private ProductFactsCache productFactsCache;
+
+    @InjectMocks
+    private ProductImageServiceImpl productImageService;
+
+    @Test
+    public void getImagesByProductIdsShouldGroupSingleQueryResultByProduct() {
+        Product first = createProduct(1L);
+        Product second = createProduct(2L);
+        ProductImage cover = createImage(first, "/a.png", true);
+        ProductImage other = createImage(first, "/b.png", false);
+        ProductImage secondCover = createImage(second, "/c.png", true);
+
+        List<Long> ids = List.of(1L, 2L, 3L);
+        when(productImageDAO.findByProductIds(ids)).thenReturn(List.of(cover, other, secondCover));
+
+        Map<Long, List<ProductImage>> result = productImageService.getImagesByProductIds(ids);
+
+        assertEquals(List.of(cover, other), result.get(1L));
+        assertEquals(List.of(secondCover), result.get(2L));
+        assertFalse(result.containsKey(3L));
+        verify(productImageDAO, times(1)).findByProductIds(ids);
+        verify(productImageDAO, never()).findByProductId(anyLong());
+    }
+
+    @Test
+    public void deleteShouldOnlyReleaseFileWhenLastReferenceIsGone() throws Exception {
+        Product product = createProduct(1L);
+        ProductImage shared = createImage(product, "/resources/images/products/ab.jpg", false);
+        ProductImage last = createImage(product, "/resources/images/products/cd.jpg", false);
+        when(productImageDAO.findById(10L)).thenReturn(shared);
+        when(productImageDAO.findById(11L)).thenReturn(last);
+        when(productImageDAO.countReferences("/resources/images/products/ab.jpg")).thenReturn(2L);
+        when(productImageDAO.countReferences("/resources/images/products/cd.jpg")).thenReturn(0L);
+        when(fileUploadService.isManagedImage(anyString())).thenReturn(true);
+
+        productImageService.deleteProductImage(10L);
+        productImageService.deleteProductImage(11L);
+
+        // 只標記等待清理，不直接刪檔：相同內容的上傳可能剛取得網址
+        verify(imageFileRegistry, never()).release("/resources/images/products/ab.jpg");
+        verify(imageFileRegistry).release("/resources/images/products/cd.jpg");
+        verify(fileUploadService, never()).deleteProductImage(anyString());
+    }
+
+    @Test
+    public void saveShouldReuseVariantWidthsOfSharedFile() {
+        ProductImage image = createImage(createProduct(1L), "/resources/images/products/ab.jpg", false);
+        when(productImageDAO.findVariantWidths("/resources/images/products/ab.jpg")).thenReturn("240,480");
+
+        productImageService.saveProductImage(image);
+
+        assertEquals("240,480", image.getVariantWidths());
+        verify(productImageDAO).save(image);
+    }
+
+    @Test
+    public void coverShouldOnlyUseProcessedImages() {
+        Product product = createProduct(1L);
+        product.setImageUrl("/a.png");
+        ProductImage pending = createImage(product, "/a.png", true);
+        pending.setProcessingState(ProcessingState.PENDING);
+        ProductImage ready = createImage(product, "/b.png", false);
+        product.getImages().add(pending);
+        product.getImages().add(ready);
+
+        // 封面還在處理中：改用處理完成的圖片
+        assertEquals("/b.png", product.getCoverImageUrl());
+
+        // 沒有處理完成的圖片：imageUrl 指向處理中的圖片，也不使用
+        ready.setProcessingState(ProcessingState.FAILED);
+        assertNull(product.getCoverImageUrl());
+
+        pending.setProcessingState(ProcessingState.READY);
+        assertEquals("/a.png", product.getCoverImageUrl());
+    }
+
+    private Product createProduct(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+
+    private ProductImage createImage(Product product, String url, boolean isCover) {
+        ProductImage image = new ProductImage();
+        image.setProduct(product);
+        image.setImageUrl(url);
+        image.setIsCover(isCover);
+        return image;
+    }
+}
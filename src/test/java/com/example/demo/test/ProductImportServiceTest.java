@@ -0,0 +1,218 @@
+package com.example.demo.test;
+
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.dao.ProductImportJobDAO;
+import com.example.demo.model.ImportReport;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductImportJob;
+import com.example.demo.model.StoredImage;
+import com.example.demo.service.CategoryIndex;
+import com.example.demo.service.FileUploadService;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductImageService;
+import com.example.demo.service.ProductSearchIndex;
+import com.example.demo.service.impl.ProductImportServiceImpl;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProductImportServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private ProductDAO productDAO;
+
+    @Mock
+    private ProductImportJobDAO productImportJobDAO;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    @Mock
+    private ProductImageService productImageService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CategoryIndex categoryIndex;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private PageCache pageCache;
+
+    private final List<Product> inserted = new ArrayList<>();
+    // 每次寫入時的檢查點內容（同一個物件會被更新，記錄當下的值）
+    private final List<String> checkpoints = new ArrayList<>();
+    private ProductImportServiceImpl importService;
+    private Path jobDir;
+
+    @Before
+    public void setUp() throws IOException {
+        jobDir = folder.newFolder("supplier", "images").toPath().getParent();
+        Files.write(jobDir.resolve("images/a.jpg"), new byte[]{1});
+        Files.write(jobDir.resolve("images/b.jpg"), new byte[]{1});
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            for (Product product : products) {
+                product.setId(ids.incrementAndGet());
+                inserted.add(product);
+            }
+            return null;
+        }).when(productDAO).insertBatch(anyList());
+        lenient().doAnswer(invocation -> {
+            ProductImportJob job = invocation.getArgument(0);
+            checkpoints.add("record=" + job.getLastRecord() + " inserted=" + job.getInserted()
+                    + " completed=" + job.isCompleted());
+            return null;
+        }).when(productImportJobDAO).save(any());
+        importService = new ProductImportServiceImpl(productDAO, productImportJobDAO, fileUploadService, productImageService, transactionManager,
+                categoryIndex, productSearchIndex, pageCache, folder.getRoot().toPath(), 2, 2);
+    }
+
+    @Test
+    public void importShouldBatchValidRowsAndReportRejected() throws Exception {
+        when(fileUploadService.importProductImage(any()))
+                .thenAnswer(invocation -> new StoredImage("/img/" + ((Path) invocation.getArgument(0)).getFileName(),
+                        "240,480,800"));
+        writeCsv("name,category,price,stock,listed,description,images\n"
+                + "Pen,Office,10,5,true,\"Blue, \"\"fine\"\"\nink\",a.jpg|b.jpg\n"
+                + ",Office,10,5,true,,\n"
+                + "Cup,Kitchen,-1,5,true,,\n"
+                + "Mug,Kitchen,8.5,,false,,\n"
+                + "Lamp,Home,20,1,yes,,missing.jpg\n"
+                + "Desk,Home,99,2,no,,\n");
+
+        ImportReport report = importService.runImport("supplier");
+
+        assertEquals(ImportReport.State.COMPLETED, report.getState());
+        assertEquals(3, report.getInserted());
+        assertEquals(3, report.getRejected());
+        assertEquals(6, report.getRowsProcessed());
+        assertEquals(2, report.getImagesStored());
+        verify(productDAO, times(2)).insertBatch(anyList());
+
+        Product pen = inserted.get(0);
+        assertEquals("Blue, \"fine\"\nink", pen.getDescription());
+        assertEquals("/img/a.jpg", pen.getImageUrl());
+        assertEquals(2, pen.getImages().size());
+        assertTrue(pen.getImages().get(0).getIsCover());
+        assertFalse(pen.getImages().get(1).getIsCover());
+        assertEquals("240,480,800", pen.getImages().get(0).getVariantWidths());
+        assertEquals(Integer.valueOf(0), inserted.get(1).getStock());
+        assertFalse(inserted.get(1).getListed());
+        verify(categoryIndex, times(3)).productChanged(isNull(), anyString(), anyBoolean());
+        assertEquals("record=7 inserted=3 completed=true", checkpoints.get(checkpoints.size() - 1));
+    }
+
+    @Test
+    public void importShouldResumeAfterLastCommittedBatch() throws Exception {
+        writeCsv("name,category,price\nA,c,1\nB,c,1\nC,c,1\nD,c,1\n");
+        ProductImportJob job = new ProductImportJob("supplier");
+        job.setLastRecord(3);
+        job.setInserted(2);
+        when(productImportJobDAO.findByName("supplier")).thenReturn(job);
+
+        ImportReport report = importService.runImport("supplier");
+
+        assertEquals(3, report.getResumedFromRecord());
+        assertEquals(4, report.getInserted());
+        assertEquals(2, report.getRowsProcessed());
+        assertEquals(2, inserted.size());
+        assertEquals("C", inserted.get(0).getName());
+        assertEquals("D", inserted.get(1).getName());
+    }
+
+    @Test
+    public void failedBatchShouldKeepCheckpointAtLastCommit() throws Exception {
+        writeCsv("name,category,price\nA,c,1\nB,c,1\nC,c,1\nD,c,1\n");
+        doAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            if (products.get(0).getName().equals("C")) {
+                throw new IllegalStateException("connection lost");
+            }
+            products.forEach(inserted::add);
+            return null;
+        }).when(productDAO).insertBatch(anyList());
+
+        ImportReport report = importService.runImport("supplier");
+
+        assertEquals(ImportReport.State.FAILED, report.getState());
+        assertEquals("connection lost", report.getFailureMessage());
+        assertEquals(List.of("record=3 inserted=2 completed=false"), checkpoints);
+    }
+
+    @Test
+    public void checkpointShouldCommitInTheSameTransactionAsTheBatch() throws Exception {
+        writeCsv("name,category,price\nA,c,1\nB,c,1\nC,c,1\nD,c,1\n");
+        // 第二批的檢查點寫入失敗：整個交易回滾，商品也不會提交
+        doAnswer(invocation -> {
+            ProductImportJob job = invocation.getArgument(0);
+            if (job.getLastRecord() == 5) {
+                throw new IllegalStateException("lock timeout");
+            }
+            return null;
+        }).when(productImportJobDAO).save(any());
+
+        ImportReport report = importService.runImport("supplier");
+
+        assertEquals(ImportReport.State.FAILED, report.getState());
+        assertEquals(2, report.getInserted());
+        InOrder order = inOrder(transactionManager, productDAO, productImportJobDAO);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(productDAO).insertBatch(anyList());
+        order.verify(productImportJobDAO).save(any());
+        order.verify(transactionManager).commit(any());
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(productDAO).insertBatch(anyList());
+        order.verify(productImportJobDAO).save(any());
+        order.verify(transactionManager).rollback(any());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    public void failedBatchShouldDiscardItsImagesAndThePrefetchedBatchImagesOnce() throws Exception {
+        when(fileUploadService.importProductImage(any()))
+                .thenAnswer(invocation -> new StoredImage("/img/" + ((Path) invocation.getArgument(0)).getFileName(),
+                        "240,480,800"));
+        // 第一批寫入失敗時，第二批已經讀好並送出圖片
+        writeCsv("name,category,price,images\nA,c,1,a.jpg\nB,c,1,\nC,c,1,b.jpg\nD,c,1,\nE,c,1,\n");
+        doThrow(new IllegalStateException("connection lost")).when(productDAO).insertBatch(anyList());
+
+        ImportReport report = importService.runImport("supplier");
+
+        assertEquals(ImportReport.State.FAILED, report.getState());
+        verify(productImageService).releaseImageFiles(List.of("/img/a.jpg"));
+        verify(productImageService).releaseImageFiles(List.of("/img/b.jpg"));
+        verify(productImageService, times(2)).releaseImageFiles(anyCollection());
+        assertTrue(checkpoints.isEmpty());
+    }
+
+    private void writeCsv(String content) throws IOException {
+        Files.write(jobDir.resolve("products.csv"), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
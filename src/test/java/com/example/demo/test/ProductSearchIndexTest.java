@@ -0,0 +1,166 @@
+package com.example.demo.test;
+
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.PageResult;
+import com.example.demo.model.Product;
+import com.example.demo.model.ProductSearchCriteria;
+import com.example.demo.model.ProductSearchDocument;
+import com.example.demo.service.ProductSearchIndex;
+import com.example.demo.service.SearchTokenizer;
+import com.example.demo.service.impl.ProductServiceImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex searchIndex;
+
+    @Before
+    public void setUp() {
+        searchIndex = new ProductSearchIndex();
+        searchIndex.rebuild(() -> List.of(
+                new ProductSearchDocument(1L, "純棉短袖上衣", "上衣", "舒適透氣的夏季上衣"),
+                new ProductSearchDocument(2L, "牛仔長褲", "褲子", "搭配上衣的經典款"),
+                new ProductSearchDocument(3L, "Canvas Tote Bag", "bags", "Large cotton bag"),
+                new ProductSearchDocument(4L, "Leather Wallet", "Accessories", "Ｃｏｔｔｏｎ lined")));
+    }
+
+    @Test
+    public void tokenizerShouldSplitCjkIntoBigramsAndLatinIntoWords() {
+        assertEquals(List.of("上", "上衣", "衣", "t", "shirt", "2024"),
+                SearchTokenizer.tokenizeForIndex("上衣 T-Shirt ２０２４"));
+        assertEquals(2, SearchTokenizer.tokenizeQuery("短袖上").size());
+    }
+
+    @Test
+    public void nameMatchesShouldRankAboveDescriptionMatches() {
+        assertEquals(List.of(1L, 2L), searchIndex.search("上衣", null));
+        assertEquals(List.of(1L), searchIndex.search("短袖", null));
+        assertEquals(List.of(2L), searchIndex.search("上衣", "褲子"));
+    }
+
+    @Test
+    public void latinTermsShouldMatchByPrefixAndRequireAllTerms() {
+        assertEquals(List.of(3L, 4L), searchIndex.search("cott", null));
+        assertEquals(List.of(3L), searchIndex.search("cotton BAG", null));
+        assertTrue(searchIndex.search("cotton shoes", null).isEmpty());
+    }
+
+    @Test
+    public void changesShouldReplaceAndRemoveIndexedTerms() {
+        searchIndex.productChanged(createProduct(3L, "Canvas Backpack", "bags", null));
+        searchIndex.productRemoved(4L);
+
+        assertTrue(searchIndex.search("cotton", null).isEmpty());
+        assertEquals(List.of(3L), searchIndex.search("backpack", null));
+    }
+
+    @Test
+    public void categoryMovedShouldReplaceCategoryTermsOnly() {
+        searchIndex.categoryMoved("bags", "手提包");
+
+        assertEquals(List.of(3L), searchIndex.search("提包", null));
+        assertEquals(List.of(3L), searchIndex.search("tote", "手提包"));
+        // 名稱中的 bag 仍可搜尋，分類詞 bags 已移除
+        assertEquals(List.of(3L), searchIndex.search("bag", null));
+        assertTrue(searchIndex.search("tote", "bags").isEmpty());
+    }
+
+    @Test
+    public void changesCommittedDuringRebuildShouldBeReplayedAfterTheSwap() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        // 尚未建立也沒有在重建：略過，之後的重建會讀到
+        index.productChanged(createProduct(9L, "Ignored", "misc", null));
+
+        index.rebuild(() -> {
+            // 讀取資料之後才提交的異動：不在讀到的資料中
+            index.productChanged(createProduct(1L, "Wool Scarf", "accessories", null));
+            index.productRemoved(2L);
+            index.categoryMoved("bags", "totes");
+            return List.of(new ProductSearchDocument(1L, "Cotton Scarf", "accessories", null),
+                    new ProductSearchDocument(2L, "Linen Shirt", "tops", null),
+                    new ProductSearchDocument(3L, "Canvas Tote", "bags", null));
+        });
+
+        assertTrue(index.isInitialized());
+        assertEquals(List.of(1L), index.search("wool", null));
+        assertTrue(index.search("cotton", null).isEmpty());
+        assertTrue(index.search("linen", null).isEmpty());
+        assertEquals(List.of(3L), index.search("canvas", "totes"));
+        assertTrue(index.search("ignored", null).isEmpty());
+
+        // 重建結束後的異動直接套用
+        index.productChanged(createProduct(2L, "Linen Shirt", "tops", null));
+        assertEquals(List.of(2L), index.search("linen", null));
+    }
+
+    @Test
+    public void failedRebuildShouldKeepTheCurrentIndexAndStopQueueing() {
+        try {
+            searchIndex.rebuild(() -> {
+                throw new IllegalStateException("connection lost");
+            });
+            fail("expected the loader failure");
+        } catch (IllegalStateException expected) {
+            assertEquals("connection lost", expected.getMessage());
+        }
+
+        searchIndex.productRemoved(3L);
+        assertEquals(List.of(4L), searchIndex.search("cotton", null));
+    }
+
+    @Test
+    public void refreshShouldRebuildFromTheProjection() {
+        ProductDAO productDAO = mock(ProductDAO.class);
+        ProductServiceImpl productService = new ProductServiceImpl();
+        ReflectionTestUtils.setField(productService, "productDAO", productDAO);
+        ReflectionTestUtils.setField(productService, "productSearchIndex", searchIndex);
+        when(productDAO.findSearchDocuments())
+                .thenReturn(List.of(new ProductSearchDocument(5L, "Silk Tie", "Accessories", null)));
+
+        productService.refreshSearchIndex();
+
+        assertEquals(List.of(5L), searchIndex.search("silk", null));
+        assertTrue(searchIndex.search("cotton", null).isEmpty());
+        verify(productDAO, never()).findAll();
+    }
+
+    @Test
+    public void searchSortedByColumnShouldLoadOnlyThePage() {
+        ProductDAO productDAO = mock(ProductDAO.class);
+        ProductServiceImpl productService = new ProductServiceImpl();
+        ReflectionTestUtils.setField(productService, "productDAO", productDAO);
+        ReflectionTestUtils.setField(productService, "productSearchIndex", searchIndex);
+        when(productDAO.sortIds(List.of(3L, 4L), "price", false)).thenReturn(List.of(4L, 3L));
+        when(productDAO.findByIds(List.of(3L))).thenReturn(List.of(createProduct(3L, "Canvas Tote Bag", "bags", null)));
+        ProductSearchCriteria criteria = new ProductSearchCriteria();
+        criteria.setSearch("cott");
+        criteria.setSortBy("price");
+        criteria.setPage(2);
+        criteria.setPageSize(1);
+
+        PageResult<Product> page = productService.searchProducts(criteria);
+
+        // 命中的ID先排序，只有當頁的ID進入 IN 查詢
+        assertEquals(2, page.getTotalElements());
+        assertEquals(3L, page.getContent().get(0).getId().longValue());
+        verify(productDAO).findByIds(List.of(3L));
+        verify(productDAO, never()).findPage(any());
+    }
+
+    private Product createProduct(Long id, String name, String category, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setDescription(description);
+        return product;
+    }
+}
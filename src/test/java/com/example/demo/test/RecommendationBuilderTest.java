@@ -0,0 +1,131 @@
+package com.example.demo.test;
+
+import com.example.demo.config.RecommendationScheduler;
+import com.example.demo.dao.OrderItemDAO;
+import com.example.demo.model.ProductFacts;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductService;
+import com.example.demo.service.RecommendationBuilder;
+import com.example.demo.service.RecommendationModel;
+import com.example.demo.service.RecommendationService;
+import com.example.demo.service.impl.RecommendationServiceImpl;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RecommendationBuilderTest {
+
+    @Test
+    public void shouldRankCoPurchasedProductsByCount() throws Exception {
+        RecommendationModel model = build(3, 4, 1);
+
+        // 1 與 2 一起買了三次，與 3 兩次，與 4、5 各一次（4 的ID較小排前面）
+        assertArrayEquals(new long[]{2, 3, 4}, model.getRelated(1, 10));
+        assertArrayEquals(new long[]{2, 3}, model.getRelated(1, 2));
+        assertArrayEquals(new long[]{1, 3}, model.getRelated(2, 10));
+        // 只出現在單一商品訂單或超大訂單中的商品沒有資料
+        assertArrayEquals(new long[0], model.getRelated(9, 10));
+        assertArrayEquals(new long[0], model.getRelated(20, 10));
+        assertArrayEquals(new long[0], model.getRelated(404, 10));
+    }
+
+    @Test
+    public void parallelBuildShouldMatchSingleThreadedBuild() throws Exception {
+        RecommendationModel single = build(3, 4, 1);
+        RecommendationModel parallel = build(3, 4, 4);
+
+        assertEquals(single.size(), parallel.size());
+        for (long id = 1; id <= 30; id++) {
+            assertArrayEquals(single.getRelated(id, 10), parallel.getRelated(id, 10));
+        }
+    }
+
+    @Test
+    public void serviceShouldSkipUnlistedProductsAndSwapModelOnRebuild() {
+        OrderItemDAO orderItemDAO = mock(OrderItemDAO.class);
+        ProductService productService = mock(ProductService.class);
+        PageCache pageCache = mock(PageCache.class);
+        when(orderItemDAO.scrollBasketItems(anyInt(), any())).thenAnswer(invocation -> {
+            OrderItemDAO.BasketItemConsumer consumer = invocation.getArgument(1);
+            feed(consumer);
+            return 0L;
+        });
+        when(productService.getProductFacts(anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            return new ProductFacts(id, "P" + id, BigDecimal.ONE, id != 2L, null);
+        });
+        RecommendationServiceImpl service = new RecommendationServiceImpl(orderItemDAO, productService, pageCache,
+                3, 4, 2, 100);
+
+        assertTrue(service.getRelatedProducts(1L, 2).isEmpty());
+        assertEquals(0, service.getModelVersion());
+
+        service.rebuild();
+
+        List<Long> related = service.getRelatedProducts(1L, 2).stream()
+                .map(ProductFacts::getId).collect(Collectors.toList());
+        assertEquals(List.of(3L, 4L), related);
+        assertTrue(service.getModelVersion() > 0);
+        verify(pageCache).productChanged(null);
+
+        // 訂單沒有變動：保留原模型，不清除頁面快取
+        long version = service.getModelVersion();
+        service.rebuild();
+        assertEquals(version, service.getModelVersion());
+        verify(pageCache, times(1)).productChanged(null);
+    }
+
+    @Test
+    public void schedulerShouldOnlyRunInDispatcherServletContext() {
+        AnnotationConfigApplicationContext root = schedulerContext(null);
+        AnnotationConfigApplicationContext dispatcher = schedulerContext(root);
+        try {
+            assertTrue(root.getBeansOfType(RecommendationScheduler.class).isEmpty());
+            assertEquals(1, dispatcher.getBeansOfType(RecommendationScheduler.class).size());
+        } finally {
+            dispatcher.close();
+            root.close();
+        }
+    }
+
+    private static AnnotationConfigApplicationContext schedulerContext(AnnotationConfigApplicationContext parent) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.setParent(parent);
+        context.registerBean(RecommendationService.class, () -> mock(RecommendationService.class));
+        context.register(RecommendationScheduler.class);
+        context.refresh();
+        return context;
+    }
+
+    private RecommendationModel build(int topK, int maxBasketSize, int threads) throws InterruptedException {
+        RecommendationBuilder builder = new RecommendationBuilder(topK, maxBasketSize);
+        feed(builder);
+        return builder.build(threads);
+    }
+
+    private static void feed(OrderItemDAO.BasketItemConsumer consumer) {
+        long[][] orders = {
+                {1, 2, 3},
+                {2, 1},
+                {1, 2, 2, 3},
+                {1, 4},
+                {1, 5},
+                {9},
+                {20, 21, 22, 23, 24},
+                {6, 7, 8},
+                {10, 11}, {11, 12}, {12, 13}, {13, 10},
+        };
+        for (int order = 0; order < orders.length; order++) {
+            for (long productId : orders[order]) {
+                consumer.accept(100 + order, productId);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.test;
+
+import com.example.demo.config.WebMvcConfig;
+import com.example.demo.service.impl.LocalImageStorage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResourceLoader;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+import org.springframework.web.servlet.resource.ResourceUrlProviderExposingInterceptor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ResourceCachingTest {
+
+    private static final String IMMUTABLE = "max-age=31536000, public, immutable";
+    private static final String HASHED_IMAGE = "0123456789abcdef0123456789abcdef";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockServletContext servletContext;
+    private SimpleUrlHandlerMapping handlerMapping;
+    private ResourceUrlProvider resourceUrlProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        Path webRoot = folder.newFolder("webapp").toPath();
+        Files.createDirectories(webRoot.resolve("resources/css"));
+        Files.createDirectories(webRoot.resolve("resources/images/products"));
+        byte[] css = "body { background: url(bg.png); }".getBytes(StandardCharsets.UTF_8);
+        Files.write(webRoot.resolve("resources/css/site.css"), css);
+        Files.write(webRoot.resolve("resources/css/site.css.gz"), gzip(css));
+        Files.write(webRoot.resolve("resources/css/bg.png"), new byte[]{0});
+        Files.write(webRoot.resolve("resources/images/products/product_7_legacy.png"), new byte[]{1});
+        Path images = folder.newFolder("images").toPath();
+        Files.write(images.resolve(HASHED_IMAGE + ".jpg"), new byte[]{2});
+        Files.write(images.resolve(HASHED_IMAGE + "_w240.jpg"), new byte[]{3});
+
+        servletContext = new MockServletContext(webRoot.toUri().toString(), new FileSystemResourceLoader());
+        GenericWebApplicationContext context = new GenericWebApplicationContext(servletContext);
+        context.refresh();
+        WebMvcConfig config = new WebMvcConfig();
+        ReflectionTestUtils.setField(config, "imageStorage", new LocalImageStorage(images, List.of()));
+        ResourceHandlerRegistry registry = new ResourceHandlerRegistry(context, servletContext);
+        config.addResourceHandlers(registry);
+        handlerMapping = (SimpleUrlHandlerMapping) ReflectionTestUtils.invokeMethod(registry, "getHandlerMapping");
+        handlerMapping.setApplicationContext(context);
+        Map<String, ResourceHttpRequestHandler> handlers = new LinkedHashMap<>();
+        handlerMapping.getUrlMap().forEach((pattern, handler) -> handlers.put(pattern, (ResourceHttpRequestHandler) handler));
+        for (ResourceHttpRequestHandler handler : handlers.values()) {
+            handler.afterPropertiesSet();
+        }
+        // ResourceUrlEncodingFilter 產生帶版本的網址
+        resourceUrlProvider = new ResourceUrlProvider();
+        resourceUrlProvider.setHandlerMap(handlers);
+    }
+
+    @Test
+    public void versionedStaticFileShouldBeImmutableAndPlainPathShouldRevalidate() throws Exception {
+        String versioned = resourceUrlProvider.getForLookupPath("/resources/css/site.css");
+        assertTrue(versioned, versioned.matches("/resources/css/site-[0-9a-f]{32}\\.css"));
+
+        MockHttpServletResponse response = get(versioned, null);
+        assertEquals(200, response.getStatus());
+        // CSS 內的連結改寫成帶版本的網址，轉換後的內容也帶同樣的快取標頭
+        assertTrue(response.getContentAsString().matches(".*url\\(/resources/css/bg-[0-9a-f]{32}\\.png\\).*"));
+        assertEquals(IMMUTABLE, response.getHeader("Cache-Control"));
+
+        // 預先壓縮的檔案也帶同樣的快取標頭
+        MockHttpServletResponse compressed = get(versioned, "gzip");
+        assertEquals("gzip", compressed.getHeader("Content-Encoding"));
+        assertEquals(IMMUTABLE, compressed.getHeader("Cache-Control"));
+
+        // 沒有版本的網址內容會改變，不能快取一年
+        MockHttpServletResponse plain = get("/resources/css/site.css", null);
+        assertEquals(200, plain.getStatus());
+        assertEquals("no-cache", plain.getHeader("Cache-Control"));
+        assertEquals("no-cache", get("/resources/css/site.css", "gzip").getHeader("Cache-Control"));
+
+        // 版本與內容不符（舊版本的網址）時找不到
+        assertEquals(404, get("/resources/css/site-ffffffffffffffffffffffffffffffff.css", null).getStatus());
+    }
+
+    @Test
+    public void contentNamedProductImagesShouldBeImmutableAndLegacyImagesShouldRevalidate() throws Exception {
+        assertEquals(IMMUTABLE, get("/resources/images/products/" + HASHED_IMAGE + ".jpg", null).getHeader("Cache-Control"));
+        assertEquals(IMMUTABLE, get("/resources/images/products/" + HASHED_IMAGE + "_w240.jpg", null).getHeader("Cache-Control"));
+        assertEquals("no-cache", get("/resources/images/products/product_7_legacy.png", null).getHeader("Cache-Control"));
+
+        // 處理中（還沒寫入）的圖片回應 404，不帶快取標頭
+        MockHttpServletResponse pending = get("/resources/images/products/ffffffffffffffffffffffffffffffff.jpg", null);
+        assertEquals(404, pending.getStatus());
+        assertNull(pending.getHeader("Cache-Control"));
+    }
+
+    private MockHttpServletResponse get(String path, String acceptEncoding) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", path);
+        // CSS 內的連結改寫成帶版本的網址（正式環境由 MVC 的攔截器提供）
+        request.setAttribute(ResourceUrlProviderExposingInterceptor.RESOURCE_URL_PROVIDER_ATTR, resourceUrlProvider);
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        HandlerExecutionChain chain = handlerMapping.getHandler(request);
+        assertNotNull(path, chain);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        // 與 DispatcherServlet 相同：綁定目前的請求，由對應的攔截器設定 handler 內的路徑
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            for (HandlerInterceptor interceptor : chain.getInterceptorList()) {
+                assertTrue(interceptor.preHandle(request, response, chain.getHandler()));
+            }
+            ((ResourceHttpRequestHandler) chain.getHandler()).handleRequest(request, response);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        return response;
+    }
+
+    private static byte[] gzip(byte[] data) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
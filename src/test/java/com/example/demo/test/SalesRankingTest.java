@@ -0,0 +1,127 @@
+package com.example.demo.test;
+
+import com.example.demo.config.SalesRankingScheduler;
+import com.example.demo.dao.OrderItemDAO;
+import com.example.demo.dao.ProductDAO;
+import com.example.demo.model.ProductSales;
+import com.example.demo.model.ProductSummary;
+import com.example.demo.service.PageCache;
+import com.example.demo.service.ProductService;
+import com.example.demo.service.SalesRanking;
+import com.example.demo.service.impl.ProductServiceImpl;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SalesRankingTest {
+
+    @Mock
+    private ProductDAO productDAO;
+
+    @Mock
+    private OrderItemDAO orderItemDAO;
+
+    @Mock
+    private PageCache pageCache;
+
+    @Spy
+    private SalesRanking salesRanking = new SalesRanking(300, 60);
+
+    @InjectMocks
+    private ProductServiceImpl productService;
+
+    @Test
+    public void refreshShouldMergeDeltasAndAdvanceWatermark() {
+        SalesRanking ranking = new SalesRanking(0, 60);
+
+        assertTrue(ranking.tryStartRefresh(1_000));
+        assertTrue(ranking.finishRefresh(List.of(
+                new ProductSales(5L, 3L, 10L),
+                new ProductSales(2L, 1L, 8L)), 1_000));
+        assertEquals(10, ranking.getWatermark());
+
+        // 新訂單：既有商品累加，新商品插入正確位置
+        assertTrue(ranking.tryStartRefresh(2_000));
+        assertTrue(ranking.finishRefresh(List.of(
+                new ProductSales(5L, 2L, 14L),
+                new ProductSales(3L, 7L, 12L)), 2_000));
+
+        assertEquals(5, ranking.getUnitsSold(5L));
+        assertEquals(1, ranking.getUnitsSold(2L));
+        assertEquals(7, ranking.getUnitsSold(3L));
+        assertEquals(0, ranking.getUnitsSold(4L));
+        assertEquals(14, ranking.getWatermark());
+        assertEquals(2, ranking.getVersion());
+    }
+
+    @Test
+    public void refreshShouldRunOncePerIntervalAndKeepSnapshotOnFailure() {
+        SalesRanking ranking = new SalesRanking(300, 60);
+
+        assertTrue(ranking.tryStartRefresh(1_000));
+        // 刷新進行中，其他請求不重複查詢
+        assertFalse(ranking.tryStartRefresh(1_000));
+        assertFalse(ranking.finishRefresh(List.of(), 1_000));
+        assertFalse(ranking.tryStartRefresh(200_000));
+        assertTrue(ranking.tryStartRefresh(301_000));
+
+        // 查詢失敗：保留原快照，下次請求可以重試
+        assertFalse(ranking.finishRefresh(null, 301_000));
+        assertTrue(ranking.tryStartRefresh(301_001));
+        assertEquals(0, ranking.getVersion());
+        assertEquals(241_000, ranking.settledBefore(301_000));
+    }
+
+    @Test
+    public void bestsellingSortShouldOrderByUnitsAndQueryOnlyNewItems() {
+        when(productDAO.findSummaries(isNull(), eq(true))).thenReturn(List.of(
+                summary(1L), summary(2L), summary(3L), summary(4L)));
+        when(orderItemDAO.sumSalesSince(eq(0L), any())).thenReturn(List.of(
+                new ProductSales(3L, 9L, 20L),
+                new ProductSales(2L, 4L, 18L),
+                new ProductSales(4L, 4L, 15L)));
+
+        List<ProductSummary> sorted = productService.getProductSummaries(null, false, ProductService.SORT_BESTSELLING);
+
+        // 銷量相同時維持ID順序，沒有銷售的商品排在最後
+        assertEquals(List.of(3L, 2L, 4L, 1L),
+                sorted.stream().map(ProductSummary::getId).collect(Collectors.toList()));
+        verify(pageCache).listChanged();
+
+        // 還沒到刷新時間：不再查詢訂單明細
+        productService.getProductSummaries(null, false, ProductService.SORT_BESTSELLING);
+        verify(orderItemDAO, times(1)).sumSalesSince(anyLong(), any());
+        assertEquals(20, salesRanking.getWatermark());
+    }
+
+    @Test
+    public void schedulerShouldRefreshWithoutRequestsAndEvictCachedLists() {
+        // 快取命中的列表頁不會經過 Controller，排行由排程刷新並清除列表頁快取
+        when(orderItemDAO.sumSalesSince(eq(0L), any())).thenReturn(List.of(new ProductSales(3L, 9L, 20L)));
+        SalesRankingScheduler scheduler = new SalesRankingScheduler(productService, salesRanking);
+        scheduler.afterPropertiesSet();
+        try {
+            verify(pageCache, timeout(5_000)).listChanged();
+        } finally {
+            scheduler.destroy();
+        }
+        assertEquals(9, salesRanking.getUnitsSold(3L));
+        assertEquals(1, salesRanking.getVersion());
+    }
+
+    private ProductSummary summary(Long id) {
+        return new ProductSummary(id, "P" + id, BigDecimal.TEN, "Office", 5, true, null, null);
+    }
+}